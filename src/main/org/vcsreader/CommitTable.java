@@ -0,0 +1,195 @@
+package org.vcsreader;
+
+import org.jetbrains.annotations.NotNull;
+import org.vcsreader.VcsChange.Type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar view of commits for aggregate queries (e.g. number of changes per file or commits per author),
+ * so that scanning millions of changes reads primitive arrays instead of following {@link VcsCommit}/{@link VcsChange} objects.
+ * <p>
+ * Commit columns are indexed by commit index (in the same order as commits in {@link LogResult}).
+ * Change columns are indexed by change index; changes of commit {@code i} are in the range
+ * from {@code changeOffsets()[i]} (inclusive) to {@code changeOffsets()[i + 1]} (exclusive).
+ * Authors and file paths are stored as ids in dictionaries (see {@link #author(int)} and {@link #filePath(int)}).
+ * <p>
+ * Arrays returned by this class are not copied and must not be modified.
+ */
+public class CommitTable {
+	private static final Type[] types = Type.values();
+
+	private final String[] revisions;
+	private final long[] commitTimes;
+	private final int[] authorIds;
+	private final int[] changeOffsets;
+	private final byte[] changeTypes;
+	private final int[] filePathIds;
+	private final int[] filePathBeforeIds;
+	private final String[] authors;
+	private final String[] filePaths;
+
+
+	private CommitTable(String[] revisions, long[] commitTimes, int[] authorIds, int[] changeOffsets,
+	                    byte[] changeTypes, int[] filePathIds, int[] filePathBeforeIds,
+	                    String[] authors, String[] filePaths) {
+		this.revisions = revisions;
+		this.commitTimes = commitTimes;
+		this.authorIds = authorIds;
+		this.changeOffsets = changeOffsets;
+		this.changeTypes = changeTypes;
+		this.filePathIds = filePathIds;
+		this.filePathBeforeIds = filePathBeforeIds;
+		this.authors = authors;
+		this.filePaths = filePaths;
+	}
+
+	public static CommitTable from(List<? extends VcsCommit> commits) {
+		int changeCount = 0;
+		for (VcsCommit commit : commits) {
+			changeCount += commit.getChanges().size();
+		}
+
+		String[] revisions = new String[commits.size()];
+		long[] commitTimes = new long[commits.size()];
+		int[] authorIds = new int[commits.size()];
+		int[] changeOffsets = new int[commits.size() + 1];
+		byte[] changeTypes = new byte[changeCount];
+		int[] filePathIds = new int[changeCount];
+		int[] filePathBeforeIds = new int[changeCount];
+		Dictionary authors = new Dictionary();
+		Dictionary filePaths = new Dictionary();
+		filePaths.idOf(VcsChange.noFilePath);
+
+		int changeIndex = 0;
+		for (int i = 0; i < commits.size(); i++) {
+			VcsCommit commit = commits.get(i);
+			revisions[i] = commit.getRevision();
+			commitTimes[i] = commit.getDateTime().toEpochMilli();
+			authorIds[i] = authors.idOf(commit.getAuthor());
+			changeOffsets[i] = changeIndex;
+			for (VcsChange change : commit.getChanges()) {
+				changeTypes[changeIndex] = (byte) change.getType().ordinal();
+				filePathIds[changeIndex] = filePaths.idOf(change.getFilePath());
+				filePathBeforeIds[changeIndex] = filePaths.idOf(change.getFilePathBefore());
+				changeIndex++;
+			}
+		}
+		changeOffsets[commits.size()] = changeIndex;
+
+		return new CommitTable(
+				revisions, commitTimes, authorIds, changeOffsets,
+				changeTypes, filePathIds, filePathBeforeIds,
+				authors.values(), filePaths.values()
+		);
+	}
+
+	public int commitCount() {
+		return commitTimes.length;
+	}
+
+	public int changeCount() {
+		return changeTypes.length;
+	}
+
+	@NotNull public String revision(int commitIndex) {
+		return revisions[commitIndex];
+	}
+
+	/**
+	 * @return commit times in milliseconds since epoch
+	 */
+	public long[] commitTimes() {
+		return commitTimes;
+	}
+
+	/**
+	 * @return author id of each commit (see {@link #author(int)})
+	 */
+	public int[] authorIds() {
+		return authorIds;
+	}
+
+	/**
+	 * @return indices of the first change of each commit; the last element is the number of changes
+	 */
+	public int[] changeOffsets() {
+		return changeOffsets;
+	}
+
+	/**
+	 * @return {@link Type#ordinal()} of each change (see {@link #changeType(byte)})
+	 */
+	public byte[] changeTypes() {
+		return changeTypes;
+	}
+
+	/**
+	 * @return file path id of each change (see {@link #filePath(int)})
+	 */
+	public int[] filePathIds() {
+		return filePathIds;
+	}
+
+	/**
+	 * @return file path before change id of each change (see {@link #filePath(int)})
+	 */
+	public int[] filePathBeforeIds() {
+		return filePathBeforeIds;
+	}
+
+	@NotNull public String author(int authorId) {
+		return authors[authorId];
+	}
+
+	public int authorCount() {
+		return authors.length;
+	}
+
+	/**
+	 * @return file path for the id; id 0 is always {@link VcsChange#noFilePath}
+	 */
+	@NotNull public String filePath(int filePathId) {
+		return filePaths[filePathId];
+	}
+
+	public int filePathCount() {
+		return filePaths.length;
+	}
+
+	public static Type changeType(byte value) {
+		return types[value];
+	}
+
+	@Override public String toString() {
+		return "CommitTable{" +
+				"commits=" + commitCount() +
+				", changes=" + changeCount() +
+				", authors=" + authorCount() +
+				", filePaths=" + filePathCount() +
+				'}';
+	}
+
+
+	private static class Dictionary {
+		private final Map<String, Integer> idByValue = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		int idOf(String value) {
+			Integer id = idByValue.get(value);
+			if (id == null) {
+				id = values.size();
+				idByValue.put(value, id);
+				values.add(value);
+			}
+			return id;
+		}
+
+		String[] values() {
+			return values.toArray(new String[0]);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package org.vcsreader;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.lang.CharsetDetector;
+import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * File content which is read directly from stdout of VCS command while it's still running
+ * (as opposed to {@link LogFileContentResult} which contains the whole decoded content),
+ * so that large files can be hashed or copied without keeping them in memory.
+ * Content is exactly as it's stored in VCS, i.e. unlike {@link LogFileContentResult#text()} last new line is not trimmed.
+ * <p>
+ * The stream must be closed after use (e.g. with try-with-resources) to make sure VCS command is stopped.
+ * Until then, VCS command is considered to be running, e.g. it can be stopped with {@link VcsRoot#cancelLastCommand()}.
+ * Errors reported by VCS are only available in {@link #exceptions()} after all content was read and the stream was closed.
+ */
+public class FileContentStream implements Closeable {
+	public static final ExceptionWrapper<FileContentStream> adapter = e -> new FileContentStream(new LogFileContentResult(e));
+	private static final int headSize = 8192;
+
+	private final BufferedInputStream bufferedStream;
+	private final InputStream inputStream;
+	private final Source source;
+	private final List<Exception> exceptions = new ArrayList<>();
+	private byte[] head;
+	private int headLength;
+	private boolean isEndOfStream;
+	private boolean isClosed;
+	private Runnable closeCallback = () -> {};
+
+
+	/**
+	 * Creates stream with already loaded content (e.g. if VCS root doesn't support streaming).
+	 */
+	public FileContentStream(LogFileContentResult result) {
+		this(result.inputStream(), new Source() {
+			@Override @Nullable public Charset charsetOf(byte[] bytes, int length) {
+				return result.isBinary() ? null : UTF_8;
+			}
+			@Override public List<Exception> finish() {
+				List<Exception> exceptions = new ArrayList<>();
+				if (!result.isSuccessful()) exceptions.add(result.exception());
+				return exceptions;
+			}
+			@Override public void cancel() {}
+		});
+	}
+
+	/**
+	 * @param inputStream stdout of VCS command (not buffered)
+	 */
+	public FileContentStream(InputStream inputStream, Source source) {
+		this.bufferedStream = new BufferedInputStream(inputStream, headSize);
+		this.inputStream = new FilterInputStream(bufferedStream) {
+			@Override public int read() throws IOException {
+				int result = super.read();
+				if (result == -1) isEndOfStream = true;
+				return result;
+			}
+
+			@Override public int read(byte[] bytes, int offset, int length) throws IOException {
+				int result = super.read(bytes, offset, length);
+				if (result == -1) isEndOfStream = true;
+				return result;
+			}
+
+			@Override public void close() {
+				FileContentStream.this.close();
+			}
+		};
+		this.source = source;
+	}
+
+	/**
+	 * @return raw bytes of file content; closing input stream will also close this object
+	 */
+	public InputStream inputStream() {
+		return inputStream;
+	}
+
+	/**
+	 * @return channel with raw bytes of file content; closing channel will also close this object
+	 */
+	public ReadableByteChannel channel() {
+		return Channels.newChannel(inputStream);
+	}
+
+	/**
+	 * Content is decoded while it's read. Charset is detected using the beginning of content
+	 * the same way as for {@link LogFileContentResult#text()}, so this method should be called before reading content.
+	 *
+	 * @return reader of file content; closing reader will also close this object
+	 */
+	public Reader reader() throws IOException {
+		readHead();
+		Charset charset = source.charsetOf(head, headLength);
+		return new InputStreamReader(inputStream, charset == null ? UTF_8 : charset);
+	}
+
+	/**
+	 * Checks the beginning of content (see {@link CharsetDetector#isBinary(byte[], int)}),
+	 * so this method should be called before reading content.
+	 */
+	public boolean isBinary() throws IOException {
+		readHead();
+		return CharsetDetector.isBinary(head, headLength);
+	}
+
+	public boolean isSuccessful() {
+		return exceptions.isEmpty();
+	}
+
+	/**
+	 * @return errors reported by VCS; can be incomplete until all content was read and the stream was closed
+	 */
+	public List<Exception> exceptions() {
+		return exceptions;
+	}
+
+	/**
+	 * Stops underlying VCS command if not all content was read.
+	 */
+	@Override public void close() {
+		if (isClosed) return;
+		isClosed = true;
+		try {
+			if (isEndOfStream || isAtEndOfStream()) {
+				exceptions.addAll(source.finish());
+			} else {
+				source.cancel();
+			}
+		} finally {
+			closeCallback.run();
+		}
+	}
+
+	/**
+	 * @param callback called once after the stream was closed
+	 */
+	public FileContentStream whenClosed(Runnable callback) {
+		Runnable previousCallback = closeCallback;
+		closeCallback = () -> {
+			previousCallback.run();
+			callback.run();
+		};
+		return this;
+	}
+
+	/**
+	 * Reads one more byte because content might have been read without reading the end of stream
+	 * (e.g. exactly content length was read or content is empty because file doesn't exist),
+	 * in which case VCS errors should still be reported.
+	 */
+	private boolean isAtEndOfStream() {
+		try {
+			return bufferedStream.read() == -1;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void readHead() throws IOException {
+		if (head != null) return;
+		head = new byte[headSize];
+		bufferedStream.mark(headSize);
+		int n;
+		while (headLength < head.length && (n = bufferedStream.read(head, headLength, head.length - headLength)) != -1) {
+			headLength += n;
+		}
+		bufferedStream.reset();
+	}
+
+	@Override public String toString() {
+		return "FileContentStream{isClosed=" + isClosed + ", exceptions=" + exceptions.size() + '}';
+	}
+
+
+	/**
+	 * Represents VCS command which produces file content.
+	 */
+	public interface Source {
+		/**
+		 * @return charset of content which starts with the specified bytes or null if it's unknown
+		 */
+		@Nullable Charset charsetOf(byte[] bytes, int length);
+
+		/**
+		 * Called after all content was read.
+		 * @return errors reported by VCS
+		 */
+		List<Exception> finish();
+
+		/**
+		 * Called if stream was closed before all content was read.
+		 */
+		void cancel();
+	}
+}
@@ -1,47 +1,92 @@
 package org.vcsreader;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 import org.vcsreader.vcs.VcsError;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.vcsreader.lang.StringUtil.shortened;
 
 public class LogFileContentResult {
 	public static final ExceptionWrapper<LogFileContentResult> adapter = LogFileContentResult::new;
 	private final String text;
+	@Nullable private final byte[] bytes;
 	private final int exitCode;
 	private final Exception exception;
 
 
 	public LogFileContentResult(Exception exception) {
-		this("", 0, exception);
+		this("", null, 0, exception);
 	}
 
 	public LogFileContentResult(@NotNull String text) {
-		this(text, 0, null);
+		this(text, null, 0, null);
+	}
+
+	/**
+	 * @param bytes content of binary file (it's not decoded, so {@link #text()} is empty)
+	 */
+	public LogFileContentResult(@NotNull byte[] bytes) {
+		this("", bytes, 0, null);
 	}
 
 	public LogFileContentResult(@NotNull String stderr, int exitCode) {
-		this("", exitCode, new VcsError(stderr));
+		this("", null, exitCode, new VcsError(stderr));
 	}
 
-	private LogFileContentResult(@NotNull String text, int exitCode, Exception exception) {
+	private LogFileContentResult(@NotNull String text, @Nullable byte[] bytes, int exitCode, Exception exception) {
 		this.text = text;
+		this.bytes = bytes;
 		this.exitCode = exitCode;
 		this.exception = exception;
 	}
 
+	/**
+	 * @return decoded file content or empty string if file is binary
+	 */
 	@NotNull public String text() {
 		return text;
 	}
 
+	/**
+	 * @return true if file content looks like binary data (see {@link org.vcsreader.lang.CharsetDetector#isBinary(byte[], int)})
+	 */
+	public boolean isBinary() {
+		return bytes != null;
+	}
+
+	/**
+	 * @return content of binary file or null if file is not binary
+	 */
+	@Nullable public byte[] bytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return raw bytes of binary file or text encoded as UTF-8
+	 * (see also {@link VcsRoot#logFileContentStream(String, String)} which doesn't load the whole content)
+	 */
+	public InputStream inputStream() {
+		return new ByteArrayInputStream(bytes != null ? bytes : text.getBytes(UTF_8));
+	}
+
 	public boolean isSuccessful() {
 		return exception == null && exitCode == 0;
 	}
 
+	@Nullable public Exception exception() {
+		return exception;
+	}
+
 	@Override public String toString() {
 		return "LogFileContentResult{" +
 				"text='" + shortened(text, 100) + '\'' +
+				(bytes != null ? ", bytes=" + bytes.length : "") +
 				", exitCode=" + exitCode + '\'' +
 				", exception=" + exception.toString() +
 				'}';
@@ -56,11 +101,13 @@ public class LogFileContentResult {
 
 		if (exitCode != that.exitCode) return false;
 		if (text != null ? !text.equals(that.text) : that.text != null) return false;
+		if (!Arrays.equals(bytes, that.bytes)) return false;
 		return exception != null ? exception.equals(that.exception) : that.exception == null;
 	}
 
 	@Override public int hashCode() {
 		int result = text != null ? text.hashCode() : 0;
+		result = 31 * result + Arrays.hashCode(bytes);
 		result = 31 * result + exitCode;
 		result = 31 * result + (exception != null ? exception.hashCode() : 0);
 		return result;
@@ -0,0 +1,201 @@
+package org.vcsreader;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.lang.TimeRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Filter for commits requested by {@link VcsRoot#log(TimeRange, LogFilter)}.
+ * VCS implementations pass the filter to VCS commands where possible (so that irrelevant commits are not read at all)
+ * and then apply it to the result with {@link #apply(LogResult)}, so that the result doesn't depend on VCS.
+ * <p>
+ * Paths are relative to {@link VcsRoot} and match a file or a folder with all its content,
+ * e.g. "src/main" matches "src/main/Main.java" but doesn't match "src/main2/Main.java".
+ * If filter has paths, only changes with matching file path (or file path before change) are kept
+ * and commits without such changes are skipped.
+ * <p>
+ * Authors and message keywords are fixed strings (not patterns) matched case-sensitively against
+ * {@link VcsCommit#getAuthor()} and {@link VcsCommit#getMessage()}.
+ * A commit matches if its author contains any of the authors and its message contains any of the keywords.
+ */
+public class LogFilter {
+	public static final LogFilter all = new LogFilter(emptyList(), emptyList(), emptyList(), emptyList());
+
+	private final List<String> includedPaths;
+	private final List<String> excludedPaths;
+	private final List<String> authors;
+	private final List<String> messageKeywords;
+
+
+	private LogFilter(List<String> includedPaths, List<String> excludedPaths,
+	                  List<String> authors, List<String> messageKeywords) {
+		this.includedPaths = unmodifiableList(includedPaths);
+		this.excludedPaths = unmodifiableList(excludedPaths);
+		this.authors = unmodifiableList(authors);
+		this.messageKeywords = unmodifiableList(messageKeywords);
+	}
+
+	/**
+	 * @param paths only changes under any of these paths are logged
+	 */
+	public LogFilter withIncludedPaths(String... paths) {
+		return new LogFilter(normalized(asList(paths)), excludedPaths, authors, messageKeywords);
+	}
+
+	/**
+	 * @param paths changes under these paths are not logged (even if they are under included paths)
+	 */
+	public LogFilter withExcludedPaths(String... paths) {
+		return new LogFilter(includedPaths, normalized(asList(paths)), authors, messageKeywords);
+	}
+
+	/**
+	 * @param authors only commits with author containing any of these strings are logged
+	 */
+	public LogFilter withAuthors(String... authors) {
+		return new LogFilter(includedPaths, excludedPaths, nonEmpty(asList(authors)), messageKeywords);
+	}
+
+	/**
+	 * @param keywords only commits with message containing any of these strings are logged
+	 *                 (e.g. issue tracker project key like "PROJ-")
+	 */
+	public LogFilter withMessageKeywords(String... keywords) {
+		return new LogFilter(includedPaths, excludedPaths, authors, nonEmpty(asList(keywords)));
+	}
+
+	@NotNull public List<String> includedPaths() {
+		return includedPaths;
+	}
+
+	@NotNull public List<String> excludedPaths() {
+		return excludedPaths;
+	}
+
+	@NotNull public List<String> authors() {
+		return authors;
+	}
+
+	@NotNull public List<String> messageKeywords() {
+		return messageKeywords;
+	}
+
+	public boolean hasPaths() {
+		return !includedPaths.isEmpty() || !excludedPaths.isEmpty();
+	}
+
+	public boolean hasAuthorsOrMessageKeywords() {
+		return !authors.isEmpty() || !messageKeywords.isEmpty();
+	}
+
+	public boolean matchesAuthorAndMessage(VcsCommit commit) {
+		return (authors.isEmpty() || containsAny(commit.getAuthor(), authors)) &&
+				(messageKeywords.isEmpty() || containsAny(commit.getMessage(), messageKeywords));
+	}
+
+	public boolean matchesPath(String filePath) {
+		if (filePath.equals(VcsChange.noFilePath)) return false;
+		if (!includedPaths.isEmpty() && !isUnderAny(includedPaths, filePath)) return false;
+		return !isUnderAny(excludedPaths, filePath);
+	}
+
+	/**
+	 * @return commit with matching changes only or null if commit doesn't match filter
+	 */
+	@Nullable public VcsCommit apply(VcsCommit commit) {
+		if (!matchesAuthorAndMessage(commit)) return null;
+		if (!hasPaths()) return commit;
+
+		List<VcsChange> changes = new ArrayList<>();
+		for (VcsChange change : commit.getChanges()) {
+			if (matchesPath(change.getFilePath()) || matchesPath(change.getFilePathBefore())) {
+				changes.add(change);
+			}
+		}
+		if (changes.isEmpty()) return null;
+		return changes.size() == commit.getChanges().size() ? commit : commit.withChanges(changes);
+	}
+
+	public LogResult apply(LogResult logResult) {
+		if (!hasPaths() && !hasAuthorsOrMessageKeywords()) return logResult;
+
+		List<VcsCommit> commits = new ArrayList<>();
+		for (VcsCommit commit : logResult.commits()) {
+			VcsCommit filteredCommit = apply(commit);
+			if (filteredCommit != null) commits.add(filteredCommit);
+		}
+		return new LogResult(commits, logResult.exceptions());
+	}
+
+	private static boolean isUnderAny(List<String> paths, String filePath) {
+		for (String path : paths) {
+			if (path.isEmpty()) return true;
+			if (filePath.startsWith(path) && (filePath.length() == path.length() || filePath.charAt(path.length()) == '/')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsAny(String s, List<String> values) {
+		for (String value : values) {
+			if (s.contains(value)) return true;
+		}
+		return false;
+	}
+
+	private static List<String> nonEmpty(List<String> values) {
+		List<String> result = new ArrayList<>();
+		for (String value : values) {
+			if (!value.isEmpty()) result.add(value);
+		}
+		return result;
+	}
+
+	private static List<String> normalized(List<String> paths) {
+		List<String> result = new ArrayList<>();
+		for (String path : paths) {
+			path = path.replace('\\', '/');
+			while (path.startsWith("./")) path = path.substring(2);
+			while (path.startsWith("/")) path = path.substring(1);
+			while (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+			if (path.equals(".")) path = "";
+			result.add(path);
+		}
+		return result;
+	}
+
+	@Override public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		LogFilter that = (LogFilter) o;
+
+		return includedPaths.equals(that.includedPaths) && excludedPaths.equals(that.excludedPaths) &&
+				authors.equals(that.authors) && messageKeywords.equals(that.messageKeywords);
+	}
+
+	@Override public int hashCode() {
+		int result = includedPaths.hashCode();
+		result = 31 * result + excludedPaths.hashCode();
+		result = 31 * result + authors.hashCode();
+		result = 31 * result + messageKeywords.hashCode();
+		return result;
+	}
+
+	@Override public String toString() {
+		return "LogFilter{" +
+				"includedPaths=" + includedPaths +
+				", excludedPaths=" + excludedPaths +
+				", authors=" + authors +
+				", messageKeywords=" + messageKeywords +
+				'}';
+	}
+}
@@ -1,11 +1,16 @@
 package org.vcsreader;
 
 import org.vcsreader.lang.Aggregatable;
+import org.vcsreader.vcs.CommitCompactor;
+import org.vcsreader.vcs.CompactCommit;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 import static java.util.Arrays.asList;
 
@@ -33,16 +38,100 @@ public class LogResult implements Aggregatable<LogResult> {
 	}
 
 	@Override public LogResult aggregateWith(LogResult value) {
-		List<VcsCommit> newCommits = new ArrayList<>(commits);
-		List<Exception> newExceptions = new ArrayList<>(exceptions);
+		return aggregate(asList(this, value));
+	}
+
+	/**
+	 * Aggregates all results at once by merging their commits (sorted by time) in linear time.
+	 * Commits of each result are expected to be mostly ordered by time (in either direction)
+	 * as they are returned by VCS, otherwise they are sorted before merging.
+	 * Commits with the same time are ordered by the position of result in the list.
+	 */
+	public static LogResult aggregate(List<LogResult> logResults) {
+		List<List<VcsCommit>> sortedCommits = new ArrayList<>(logResults.size());
+		List<Exception> newExceptions = new ArrayList<>();
+		int size = 0;
+		for (LogResult logResult : logResults) {
+			sortedCommits.add(sortedByTime(logResult.commits));
+			newExceptions.addAll(logResult.exceptions);
+			size += logResult.commits.size();
+		}
+
+		List<VcsCommit> newCommits = new ArrayList<>(size);
+		if (sortedCommits.size() == 1) {
+			newCommits.addAll(sortedCommits.get(0));
+			return new LogResult(newCommits, newExceptions);
+		}
 
-		newCommits.addAll(value.commits);
-		newCommits.sort(Comparator.comparing(VcsCommit::getDateTime));
-		newExceptions.addAll(value.exceptions);
+		// k-way merge using cursors as {index of list, index in list}
+		PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, sortedCommits.size()), (cursor1, cursor2) -> {
+			Instant dateTime1 = sortedCommits.get(cursor1[0]).get(cursor1[1]).getDateTime();
+			Instant dateTime2 = sortedCommits.get(cursor2[0]).get(cursor2[1]).getDateTime();
+			int result = dateTime1.compareTo(dateTime2);
+			return result != 0 ? result : Integer.compare(cursor1[0], cursor2[0]);
+		});
+		for (int i = 0; i < sortedCommits.size(); i++) {
+			if (!sortedCommits.get(i).isEmpty()) cursors.add(new int[]{i, 0});
+		}
+		while (!cursors.isEmpty()) {
+			int[] cursor = cursors.poll();
+			List<VcsCommit> commits = sortedCommits.get(cursor[0]);
+			newCommits.add(commits.get(cursor[1]));
+			cursor[1]++;
+			if (cursor[1] < commits.size()) cursors.add(cursor);
+		}
 
 		return new LogResult(newCommits, newExceptions);
 	}
 
+	private static List<VcsCommit> sortedByTime(List<VcsCommit> commits) {
+		boolean isAscending = true;
+		boolean isDescending = true;
+		for (int i = 1; i < commits.size() && (isAscending || isDescending); i++) {
+			int comparison = commits.get(i - 1).getDateTime().compareTo(commits.get(i).getDateTime());
+			if (comparison > 0) isAscending = false;
+			if (comparison < 0) isDescending = false;
+		}
+		if (isAscending) return commits;
+
+		List<VcsCommit> result = new ArrayList<>(commits);
+		if (isDescending) {
+			// reverse runs of commits with equal time to keep their original order (i.e. the same as stable sort)
+			Collections.reverse(result);
+			int runStart = 0;
+			for (int i = 1; i <= result.size(); i++) {
+				if (i == result.size() || !result.get(i).getDateTime().equals(result.get(runStart).getDateTime())) {
+					Collections.reverse(result.subList(runStart, i));
+					runStart = i;
+				}
+			}
+		} else {
+			// TimSort is close to linear for partially ordered lists
+			result.sort(Comparator.comparing(VcsCommit::getDateTime));
+		}
+		return result;
+	}
+
+	/**
+	 * @return result with the same commits converted to {@link CompactCommit}s which use less memory
+	 * (e.g. for histories with millions of changes)
+	 */
+	public LogResult compact() {
+		CommitCompactor compactor = new CommitCompactor();
+		List<VcsCommit> compactCommits = new ArrayList<>(commits.size());
+		for (VcsCommit commit : commits) {
+			compactCommits.add(compactor.compact(commit));
+		}
+		return new LogResult(compactCommits, exceptions);
+	}
+
+	/**
+	 * @return columnar view of commits for aggregate queries
+	 */
+	public CommitTable toCommitTable() {
+		return CommitTable.from(commits);
+	}
+
 	public boolean isSuccessful() {
 		return exceptions.isEmpty();
 	}
@@ -0,0 +1,195 @@
+package org.vcsreader;
+
+import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+/**
+ * Commits which are read from VCS one at a time while VCS command is still running
+ * (as opposed to {@link LogResult} which contains all commits).
+ * <p>
+ * The stream must be closed after use (e.g. with try-with-resources) to make sure VCS command is stopped.
+ * Until then, VCS command is considered to be running, e.g. it can be stopped with {@link VcsRoot#cancelLastCommand()}.
+ * Errors reported by VCS are only available in {@link #exceptions()} after all commits were read.
+ */
+public class LogStream implements Iterator<VcsCommit>, Closeable {
+	public static final ExceptionWrapper<LogStream> adapter = e -> new LogStream(new LogResult(e));
+	private final Iterator<? extends VcsCommit> commits;
+	private final Source source;
+	private final List<Exception> exceptions = new ArrayList<>();
+	private VcsRoot vcsRoot;
+	private boolean isFinished;
+	private Runnable finishCallback = () -> {};
+
+
+	public LogStream(LogResult logResult) {
+		this(logResult.commits().iterator(), new Source() {
+			@Override public List<Exception> finish() {
+				return logResult.exceptions();
+			}
+			@Override public void cancel() {}
+		});
+	}
+
+	public LogStream(Iterator<? extends VcsCommit> commits, Source source) {
+		this.commits = commits;
+		this.source = source;
+	}
+
+	/**
+	 * @return stream which reads commits lazily one after another from the specified streams
+	 */
+	static LogStream concat(List<Supplier<LogStream>> logStreams) {
+		ConcatenatedStreams concatenatedStreams = new ConcatenatedStreams(logStreams);
+		return new LogStream(concatenatedStreams, concatenatedStreams);
+	}
+
+	@Override public boolean hasNext() {
+		if (isFinished) return false;
+		if (commits.hasNext()) return true;
+
+		isFinished = true;
+		try {
+			exceptions.addAll(source.finish());
+		} finally {
+			finishCallback.run();
+		}
+		return false;
+	}
+
+	@Override public VcsCommit next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		VcsCommit commit = commits.next();
+		if (vcsRoot != null && commit instanceof VcsCommit.WithRootReference) {
+			((VcsCommit.WithRootReference) commit).setVcsRoot(vcsRoot);
+		}
+		return commit;
+	}
+
+	/**
+	 * @return java stream with the same commits; closing java stream will also close this object
+	 */
+	public Stream<VcsCommit> stream() {
+		int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+		return StreamSupport.stream(spliteratorUnknownSize(this, characteristics), false).onClose(this::close);
+	}
+
+	/**
+	 * Reads all remaining commits into {@link LogResult}.
+	 */
+	public LogResult toLogResult() {
+		List<VcsCommit> result = new ArrayList<>();
+		while (hasNext()) {
+			result.add(next());
+		}
+		return new LogResult(result, exceptions);
+	}
+
+	public boolean isSuccessful() {
+		return exceptions.isEmpty();
+	}
+
+	/**
+	 * @return errors reported by VCS; can be incomplete until all commits were read
+	 */
+	public List<Exception> exceptions() {
+		return exceptions;
+	}
+
+	/**
+	 * Stops underlying VCS command if not all commits were read.
+	 */
+	@Override public void close() {
+		if (isFinished) return;
+		isFinished = true;
+		try {
+			source.cancel();
+		} finally {
+			finishCallback.run();
+		}
+	}
+
+	/**
+	 * @param callback called once after all commits were read or the stream was closed
+	 */
+	public LogStream whenFinished(Runnable callback) {
+		Runnable previousCallback = finishCallback;
+		finishCallback = () -> {
+			previousCallback.run();
+			callback.run();
+		};
+		return this;
+	}
+
+	LogStream setVcsRoot(VcsRoot vcsRoot) {
+		this.vcsRoot = vcsRoot;
+		return this;
+	}
+
+	@Override public String toString() {
+		return "LogStream{isFinished=" + isFinished + ", exceptions=" + exceptions.size() + '}';
+	}
+
+
+	/**
+	 * Represents VCS command which produces commits.
+	 */
+	public interface Source {
+		/**
+		 * Called after all commits were read.
+		 * @return errors reported by VCS
+		 */
+		List<Exception> finish();
+
+		/**
+		 * Called if stream was closed before all commits were read.
+		 */
+		void cancel();
+	}
+
+
+	private static class ConcatenatedStreams implements Iterator<VcsCommit>, Source {
+		private final Iterator<Supplier<LogStream>> suppliers;
+		private final List<Exception> exceptions = new ArrayList<>();
+		private LogStream current;
+
+		ConcatenatedStreams(List<Supplier<LogStream>> suppliers) {
+			this.suppliers = suppliers.iterator();
+		}
+
+		@Override public boolean hasNext() {
+			while (current == null || !current.hasNext()) {
+				if (current != null) {
+					exceptions.addAll(current.exceptions());
+					current = null;
+				}
+				if (!suppliers.hasNext()) return false;
+				current = suppliers.next().get();
+			}
+			return true;
+		}
+
+		@Override public VcsCommit next() {
+			if (!hasNext()) throw new NoSuchElementException();
+			return current.next();
+		}
+
+		@Override public List<Exception> finish() {
+			return exceptions;
+		}
+
+		@Override public void cancel() {
+			if (current != null) current.close();
+		}
+	}
+}
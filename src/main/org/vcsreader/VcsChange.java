@@ -1,7 +1,15 @@
 package org.vcsreader;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.vcsreader.lang.StringUtil.shortened;
 
 /**
@@ -99,10 +107,44 @@ public interface VcsChange {
 		};
 
 		@NotNull private final String value;
+		@Nullable private final byte[] bytes;
 
 
 		public FileContent(@NotNull String value) {
 			this.value = value;
+			this.bytes = null;
+		}
+
+		/**
+		 * @param bytes content of binary file
+		 */
+		public FileContent(@NotNull byte[] bytes) {
+			this.value = "";
+			this.bytes = bytes;
+		}
+
+		/**
+		 * @return file content or {@link #failedToLoad} if the result is not successful
+		 */
+		@NotNull public static FileContent from(LogFileContentResult result) {
+			if (!result.isSuccessful()) return failedToLoad;
+			byte[] bytes = result.bytes();
+			return bytes != null ? new FileContent(bytes) : new FileContent(result.text());
+		}
+
+		/**
+		 * @return true if file looks like binary data, in which case it's not decoded
+		 * (i.e. {@link #getValue()} is empty and raw content is available as {@link #getBytes()})
+		 */
+		public boolean isBinary() {
+			return bytes != null;
+		}
+
+		/**
+		 * @return content of binary file or null if file is not binary
+		 */
+		@Nullable public byte[] getBytes() {
+			return bytes;
 		}
 
 		/**
@@ -114,7 +156,23 @@ public interface VcsChange {
 			return value;
 		}
 
+		/**
+		 * @return raw content of binary file or {@link #getValue()} encoded as UTF-8
+		 * (see also {@link VcsRoot#logFileContentStream(String, String)} which doesn't load the whole content)
+		 */
+		@NotNull public InputStream inputStream() {
+			return new ByteArrayInputStream(bytes != null ? bytes : value.getBytes(UTF_8));
+		}
+
+		/**
+		 * @return reader of {@link #getValue()}
+		 */
+		@NotNull public Reader reader() {
+			return new StringReader(value);
+		}
+
 		@Override public String toString() {
+			if (bytes != null) return "FileContent{bytes=" + bytes.length + "}";
 			return "FileContent{value='" + shortened(value, 100) + "'}";
 		}
 
@@ -124,11 +182,11 @@ public interface VcsChange {
 
 			FileContent fileContent = (FileContent) o;
 
-			return value.equals(fileContent.value);
+			return value.equals(fileContent.value) && Arrays.equals(bytes, fileContent.bytes);
 		}
 
 		@Override public int hashCode() {
-			return value.hashCode();
+			return 31 * value.hashCode() + Arrays.hashCode(bytes);
 		}
 	}
 }
@@ -1,10 +1,17 @@
 package org.vcsreader;
 
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.lang.Aggregatable;
 import org.vcsreader.lang.TimeRange;
 import org.vcsreader.vcs.VcsCommand;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
@@ -16,16 +23,29 @@ import static java.util.stream.Collectors.toList;
  * <p>
  * It is intended to be used from single thread
  * except for {@link #cancelLastCommand()} method which can be called from any thread.
+ * If project is created with {@link Executor}, commands for different {@link VcsRoot}s
+ * are executed concurrently (this is still transparent for the calling thread).
  */
 public class VcsProject {
 	private final List<VcsRoot> vcsRoots;
 	private final CompositeListener compositeListener;
+	@Nullable private final Executor executor;
 
 	public VcsProject(VcsRoot... vcsRoots) {
 		this(asList(vcsRoots));
 	}
 
 	public VcsProject(List<VcsRoot> vcsRoots) {
+		this(vcsRoots, null);
+	}
+
+	/**
+	 * @param executor executor used to run commands for different {@link VcsRoot}s concurrently
+	 *                 (e.g. see {@link #newExecutor(int)});
+	 *                 if null, commands are executed sequentially in the calling thread
+	 */
+	public VcsProject(List<VcsRoot> vcsRoots, @Nullable Executor executor) {
+		this.executor = executor;
 		this.compositeListener = new CompositeListener();
 		this.vcsRoots = unmodifiableList(vcsRoots.stream().map((vcsRoot) -> {
 			if (vcsRoot instanceof VcsCommand.Observer) {
@@ -41,12 +61,7 @@ public class VcsProject {
 	 * Does nothing for centralized VCS because commit history can be queried from server.
 	 */
 	public CloneResult cloneIt() {
-		CloneResult result = new CloneResult();
-		for (VcsRoot vcsRoot : vcsRoots) {
-			CloneResult cloneResult = vcsRoot.cloneIt();
-			result = result.aggregateWith(cloneResult);
-		}
-		return result;
+		return aggregate(forEachRoot(VcsRoot::cloneIt), new CloneResult());
 	}
 
 	/**
@@ -54,12 +69,7 @@ public class VcsProject {
 	 * Does nothing for centralized VCS because commit history can be queried from server.
 	 */
 	public UpdateResult update() {
-		UpdateResult result = new UpdateResult();
-		for (VcsRoot vcsRoot : vcsRoots) {
-			UpdateResult updateResult = vcsRoot.update();
-			result = result.aggregateWith(updateResult);
-		}
-		return result;
+		return aggregate(forEachRoot(VcsRoot::update), new UpdateResult());
 	}
 
 	/**
@@ -73,13 +83,48 @@ public class VcsProject {
 	 *                  start is inclusive with one second resolution, end is exclusive with one second resolution
 	 */
 	public LogResult log(TimeRange timeRange) {
-		LogResult result = new LogResult();
-		for (VcsRoot vcsRoot : vcsRoots) {
-			LogResult logResult = vcsRoot.log(timeRange);
-			logResult = (logResult != null ? logResult.setVcsRoot(vcsRoot) : null);
-			result = result.aggregateWith(logResult);
+		return log(timeRange, LogFilter.all);
+	}
+
+	/**
+	 * Same as {@link #log(TimeRange)} but only with commits and changes matching the filter
+	 * (paths in the filter are relative to each {@link VcsRoot}).
+	 */
+	public LogResult log(TimeRange timeRange, LogFilter filter) {
+		List<LogResult> logResults = forEachRoot(vcsRoot -> {
+			LogResult logResult = filter == LogFilter.all ? vcsRoot.log(timeRange) : vcsRoot.log(timeRange, filter);
+			return logResult != null ? logResult.setVcsRoot(vcsRoot) : null;
+		});
+		return LogResult.aggregate(logResults);
+	}
+
+	/**
+	 * Request commits from VCS for one of {@link #vcsRoots()} within specified revision range
+	 * (see {@link VcsRoot#log(String, String)}). Commits are in the order returned by VCS.
+	 *
+	 * @param vcsRoot must be equal to one of {@link #vcsRoots()} (revisions of different roots are not comparable)
+	 */
+	public LogResult log(VcsRoot vcsRoot, @Nullable String fromRevisionExclusive, String toRevision) {
+		int index = vcsRoots.indexOf(vcsRoot);
+		if (index == -1) {
+			throw new IllegalArgumentException("Root doesn't belong to project: " + vcsRoot);
 		}
-		return result;
+		// use project root because it's the one observed by project listeners and cancelLastCommand()
+		VcsRoot projectRoot = vcsRoots.get(index);
+		return projectRoot.log(fromRevisionExclusive, toRevision).setVcsRoot(projectRoot);
+	}
+
+	/**
+	 * Same as {@link #log(TimeRange)} except that commits are read one at a time while VCS commands are running.
+	 * Unlike {@link #log(TimeRange)} commits are not sorted by time but are grouped by {@link VcsRoot}
+	 * in the order returned by VCS. Commands for the next {@link VcsRoot} are only executed
+	 * after all commits from the previous one were read.
+	 */
+	public LogStream logStream(TimeRange timeRange) {
+		List<Supplier<LogStream>> logStreams = vcsRoots.stream()
+				.map(vcsRoot -> (Supplier<LogStream>) () -> vcsRoot.logStream(timeRange).setVcsRoot(vcsRoot))
+				.collect(toList());
+		return LogStream.concat(logStreams);
 	}
 
 	public VcsProject addListener(VcsCommand.Listener listener) {
@@ -97,6 +142,9 @@ public class VcsProject {
 	}
 
 	/**
+	 * Cancels currently running command of each {@link VcsRoot}
+	 * (i.e. all running commands if project is executed concurrently).
+	 *
 	 * @return true if there are no running commands, false otherwise
 	 */
 	public boolean cancelLastCommand() {
@@ -107,13 +155,73 @@ public class VcsProject {
 		return result;
 	}
 
+	/**
+	 * @return executor with daemon threads which can be used to run commands for up to {@code parallelism} roots at once
+	 */
+	public static Executor newExecutor(int parallelism) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "VcsProject-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
 	@Override public String toString() {
 		return "VcsProject{" + vcsRoots + '}';
 	}
 
+	private <T> List<T> forEachRoot(Function<VcsRoot, T> function) {
+		if (executor == null) {
+			return vcsRoots.stream().map(function).collect(toList());
+		}
+
+		List<CompletableFuture<T>> futures = vcsRoots.stream()
+				.map(vcsRoot -> CompletableFuture.supplyAsync(() -> function.apply(vcsRoot), executor))
+				.collect(toList());
+		// if one of the roots fails, commands of other roots are cancelled because their result won't be used
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		for (int i = 0; i < futures.size(); i++) {
+			int failedIndex = i;
+			futures.get(i).whenComplete((value, throwable) -> {
+				if (throwable == null || throwable instanceof CancellationException) return;
+				if (failure.compareAndSet(null, throwable)) cancelOtherRoots(futures, failedIndex);
+			});
+		}
+		List<T> result = new ArrayList<>();
+		for (CompletableFuture<T> future : futures) {
+			try {
+				result.add(future.join());
+			} catch (CompletionException | CancellationException e) {
+				Throwable cause = failure.get() != null ? failure.get() : e;
+				if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				if (cause instanceof Error) throw (Error) cause;
+				throw new CompletionException(cause);
+			}
+		}
+		return result;
+	}
+
+	private <T> void cancelOtherRoots(List<CompletableFuture<T>> futures, int failedIndex) {
+		for (int i = 0; i < futures.size(); i++) {
+			if (i == failedIndex) continue;
+			futures.get(i).cancel(false); // prevents commands which haven't started yet
+			vcsRoots.get(i).cancelLastCommand();
+		}
+	}
+
+	private static <T extends Aggregatable<T>> T aggregate(List<T> values, T initialValue) {
+		T result = initialValue;
+		for (T value : values) {
+			result = result.aggregateWith(value);
+		}
+		return result;
+	}
+
 
 	private class CompositeListener implements VcsCommand.Listener {
-		private final List<VcsCommand.Listener> listeners = new ArrayList<>();
+		private final List<VcsCommand.Listener> listeners = new CopyOnWriteArrayList<>();
 
 		public void add(VcsCommand.Listener listener) {
 			listeners.add(listener);
@@ -2,8 +2,15 @@ package org.vcsreader;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.vcsreader.VcsChange.FileContent;
+import org.vcsreader.lang.Pair;
 import org.vcsreader.lang.TimeRange;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.vcsreader.lang.Pair.pair;
+
 /**
  * Represents VCS repository.
  * <p>
@@ -21,7 +28,93 @@ public interface VcsRoot {
 
 	LogResult log(TimeRange timeRange);
 
+	/**
+	 * Same as {@link #log(TimeRange)} but only with commits and changes matching the filter.
+	 * By default, all commits are read with {@link #log(TimeRange)} and then filtered.
+	 */
+	default LogResult log(TimeRange timeRange, LogFilter filter) {
+		return filter.apply(log(timeRange));
+	}
+
+	/**
+	 * Requests commits which were added after {@code fromRevisionExclusive} up to and including {@code toRevision}
+	 * (e.g. to read only commits since the last processed revision). Unlike {@link #log(TimeRange)}
+	 * the range doesn't depend on commit dates, so commits with skewed clocks are not missed.
+	 *
+	 * @param fromRevisionExclusive if null, all commits up to {@code toRevision} are requested
+	 * @param toRevision revision or VCS-specific name (e.g. "HEAD" in git and svn, "tip" in hg)
+	 */
+	LogResult log(@Nullable String fromRevisionExclusive, String toRevision);
+
+	/**
+	 * Same as {@link #log(TimeRange)} except that commits are parsed one at a time while VCS command is running,
+	 * so that memory usage doesn't depend on the size of history.
+	 * VCS command is the last command of this root (see {@link #cancelLastCommand()}) until the stream is finished.
+	 * By default, all commits are read with {@link #log(TimeRange)}.
+	 */
+	default LogStream logStream(TimeRange timeRange) {
+		return new LogStream(log(timeRange));
+	}
+
 	LogFileContentResult logFileContent(String filePath, String revision);
 
+	/**
+	 * Same as {@link #logFileContent(String, String)} except that content is read from VCS command while it's running,
+	 * so that memory usage doesn't depend on the size of the file.
+	 * VCS command is the last command of this root (see {@link #cancelLastCommand()}) until the stream is closed.
+	 * By default, content is read with {@link #logFileContent(String, String)}.
+	 */
+	default FileContentStream logFileContentStream(String filePath, String revision) {
+		return new FileContentStream(logFileContent(filePath, revision));
+	}
+
+	/**
+	 * Requests content of several files at once, so that VCS implementation can read them in the cheapest way
+	 * (e.g. with a single VCS command). By default, each file is requested with {@link #logFileContent(String, String)}.
+	 *
+	 * @param filePathsAndRevisions pairs of file path and revision
+	 * @return results in the same order as requested files
+	 */
+	default List<LogFileContentResult> logFileContents(List<Pair<String, String>> filePathsAndRevisions) {
+		List<LogFileContentResult> result = new ArrayList<>();
+		for (Pair<String, String> filePathAndRevision : filePathsAndRevisions) {
+			result.add(logFileContent(filePathAndRevision.first, filePathAndRevision.second));
+		}
+		return result;
+	}
+
+	/**
+	 * Requests content of all files before and after the commit with {@link #logFileContents(List)}.
+	 *
+	 * @return pairs of file content before and after change in the same order as {@link VcsCommit#getChanges()}
+	 */
+	default List<Pair<FileContent, FileContent>> logFileContents(VcsCommit commit) {
+		List<Pair<String, String>> filePathsAndRevisions = new ArrayList<>();
+		for (VcsChange change : commit.getChanges()) {
+			if (!change.getFilePathBefore().equals(VcsChange.noFilePath)) {
+				filePathsAndRevisions.add(pair(change.getFilePathBefore(), change.getRevisionBefore()));
+			}
+			if (!change.getFilePath().equals(VcsChange.noFilePath)) {
+				filePathsAndRevisions.add(pair(change.getFilePath(), change.getRevision()));
+			}
+		}
+		List<LogFileContentResult> results = logFileContents(filePathsAndRevisions);
+
+		List<Pair<FileContent, FileContent>> contents = new ArrayList<>();
+		int i = 0;
+		for (VcsChange change : commit.getChanges()) {
+			FileContent contentBefore = FileContent.none;
+			if (!change.getFilePathBefore().equals(VcsChange.noFilePath)) {
+				contentBefore = FileContent.from(results.get(i++));
+			}
+			FileContent content = FileContent.none;
+			if (!change.getFilePath().equals(VcsChange.noFilePath)) {
+				content = FileContent.from(results.get(i++));
+			}
+			contents.add(pair(contentBefore, content));
+		}
+		return contents;
+	}
+
 	boolean cancelLastCommand();
 }
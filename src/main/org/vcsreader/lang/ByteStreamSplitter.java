@@ -0,0 +1,133 @@
+package org.vcsreader.lang;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Splits input stream into values by separator without copying values.
+ * After {@link #next()} the current value is available as a range of {@link #buffer()}
+ * (the range is only valid until the next call to {@link #next()}). Empty values are skipped.
+ */
+public class ByteStreamSplitter {
+	private static final int defaultReadSize = 64 * 1024;
+
+	private final InputStream inputStream;
+	private final byte[] separator;
+	private final int readSize;
+	private byte[] buffer;
+	private int position;
+	private int length;
+	private boolean isEndOfStream;
+	private int valueStart;
+	private int valueEnd;
+
+
+	public ByteStreamSplitter(InputStream inputStream, byte[] separator) {
+		this(inputStream, separator, defaultReadSize);
+	}
+
+	public ByteStreamSplitter(InputStream inputStream, byte[] separator, int readSize) {
+		if (separator.length == 0) throw new IllegalArgumentException("Separator cannot be empty");
+		this.inputStream = inputStream;
+		this.separator = separator;
+		this.readSize = readSize;
+		this.buffer = new byte[readSize];
+	}
+
+	/**
+	 * Splits bytes which are already in memory (the array is used as buffer without copying).
+	 */
+	public ByteStreamSplitter(byte[] bytes, byte[] separator) {
+		if (separator.length == 0) throw new IllegalArgumentException("Separator cannot be empty");
+		this.inputStream = null;
+		this.separator = separator;
+		this.readSize = 0;
+		this.buffer = bytes;
+		this.length = bytes.length;
+		this.isEndOfStream = true;
+	}
+
+	/**
+	 * @return true if the next value was found, false if there are no more values
+	 */
+	public boolean next() {
+		try {
+			while (true) {
+				int searchFrom = position;
+				int separatorIndex;
+				while ((separatorIndex = indexOf(buffer, separator, searchFrom, length)) == -1 && !isEndOfStream) {
+					searchFrom = Math.max(position, length - separator.length + 1);
+					searchFrom -= readMore();
+				}
+				valueStart = position;
+				valueEnd = separatorIndex == -1 ? length : separatorIndex;
+				position = separatorIndex == -1 ? length : separatorIndex + separator.length;
+				if (valueStart < valueEnd) return true;
+				if (separatorIndex == -1) return false;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public byte[] buffer() {
+		return buffer;
+	}
+
+	public int valueStart() {
+		return valueStart;
+	}
+
+	public int valueEnd() {
+		return valueEnd;
+	}
+
+	public String valueAsString(Charset charset) {
+		return new String(buffer, valueStart, valueEnd - valueStart, charset);
+	}
+
+	/**
+	 * Reads the next chunk of stream, discarding already split bytes (and growing buffer if necessary).
+	 *
+	 * @return number of bytes by which unprocessed bytes were moved towards the start of buffer
+	 */
+	private int readMore() throws IOException {
+		int shift = position;
+		if (shift > 0) {
+			System.arraycopy(buffer, position, buffer, 0, length - position);
+			length -= position;
+			position = 0;
+		}
+		if (buffer.length - length < readSize / 2 + 1) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		int n = inputStream.read(buffer, length, buffer.length - length);
+		if (n == -1) isEndOfStream = true;
+		else length += n;
+		return shift;
+	}
+
+	/**
+	 * @return index of the first occurrence of {@code value} in {@code bytes} between {@code from} and {@code to} or -1
+	 */
+	public static int indexOf(byte[] bytes, byte[] value, int from, int to) {
+		byte firstByte = value[0];
+		for (int i = from; i <= to - value.length; i++) {
+			if (bytes[i] != firstByte) continue;
+			int j = 1;
+			while (j < value.length && bytes[i + j] == value[j]) j++;
+			if (j == value.length) return i;
+		}
+		return -1;
+	}
+
+	public static int indexOf(byte[] bytes, byte value, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (bytes[i] == value) return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,113 @@
+package org.vcsreader.lang;
+
+import org.jetbrains.annotations.Nullable;
+import org.mozilla.universalchardet.UniversalDetector;
+
+import java.nio.charset.Charset;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Detects charset of command output (e.g. file content).
+ * Because most files are ASCII or UTF-8, bytes are checked for these encodings first
+ * and {@link UniversalDetector} (which is much slower) is only used for other encodings.
+ */
+public class CharsetDetector {
+	private static final int binarySniffLength = 8000;
+
+	/**
+	 * @param guess charset to use instead of running {@link UniversalDetector} if bytes are neither ASCII nor UTF-8
+	 *              (e.g. charset of another file with the same extension)
+	 * @return null if bytes are ASCII (i.e. any ASCII-compatible charset can be used) or charset could not be detected
+	 */
+	@Nullable public static Charset detectCharset(byte[] bytes, int length, @Nullable Charset guess) {
+		int asciiLength = asciiPrefixLength(bytes, length);
+		if (asciiLength == length) return null;
+		if (isUtf8(bytes, asciiLength, length)) return UTF_8;
+		if (guess != null) return guess;
+
+		UniversalDetector detector = new UniversalDetector(null);
+		String charsetName;
+		try {
+			detector.handleData(bytes, 0, length);
+			detector.dataEnd();
+			// read detected charset before reset() because reset() clears it
+			charsetName = detector.getDetectedCharset();
+		} finally {
+			detector.reset();
+		}
+		return charsetName == null ? null : Charset.forName(charsetName);
+	}
+
+	/**
+	 * Uses the same heuristic as git, i.e. content is binary if there is zero byte at the beginning of it
+	 * (except for text with UTF-16/UTF-32 byte order mark).
+	 */
+	public static boolean isBinary(byte[] bytes, int length) {
+		if (length >= 2 && ((bytes[0] == (byte) 0xFE && bytes[1] == (byte) 0xFF) || (bytes[0] == (byte) 0xFF && bytes[1] == (byte) 0xFE))) {
+			return false;
+		}
+		if (length >= 4 && bytes[0] == 0 && bytes[1] == 0 && bytes[2] == (byte) 0xFE && bytes[3] == (byte) 0xFF) {
+			return false;
+		}
+		int end = Math.min(length, binarySniffLength);
+		for (int i = 0; i < end; i++) {
+			if (bytes[i] == 0) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks bytes in blocks of 8 without branching inside the block (so that the loop can be optimized by JIT).
+	 */
+	static int asciiPrefixLength(byte[] bytes, int length) {
+		int i = 0;
+		for (; i + 8 <= length; i += 8) {
+			int mask = bytes[i] | bytes[i + 1] | bytes[i + 2] | bytes[i + 3] |
+					bytes[i + 4] | bytes[i + 5] | bytes[i + 6] | bytes[i + 7];
+			if (mask < 0) break;
+		}
+		for (; i < length; i++) {
+			if (bytes[i] < 0) return i;
+		}
+		return length;
+	}
+
+	/**
+	 * Checks that bytes are well-formed UTF-8 (see https://tools.ietf.org/html/rfc3629#section-4).
+	 * Incomplete sequence at the end is allowed because bytes might be only the beginning of the output.
+	 */
+	static boolean isUtf8(byte[] bytes, int from, int length) {
+		int i = from;
+		while (i < length) {
+			int b = bytes[i] & 0xFF;
+			if (b < 0x80) {
+				i++;
+				continue;
+			}
+			int sequenceLength;
+			int min = 0x80;
+			int max = 0xBF;
+			if (b >= 0xC2 && b <= 0xDF) {
+				sequenceLength = 2;
+			} else if (b >= 0xE0 && b <= 0xEF) {
+				sequenceLength = 3;
+				if (b == 0xE0) min = 0xA0;
+				else if (b == 0xED) max = 0x9F; // surrogates
+			} else if (b >= 0xF0 && b <= 0xF4) {
+				sequenceLength = 4;
+				if (b == 0xF0) min = 0x90;
+				else if (b == 0xF4) max = 0x8F;
+			} else {
+				return false;
+			}
+			for (int j = 1; j < sequenceLength; j++) {
+				if (i + j >= length) return true;
+				int next = bytes[i + j] & 0xFF;
+				if (next < (j == 1 ? min : 0x80) || next > (j == 1 ? max : 0xBF)) return false;
+			}
+			i += sequenceLength;
+		}
+		return true;
+	}
+}
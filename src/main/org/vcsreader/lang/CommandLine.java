@@ -1,15 +1,18 @@
 package org.vcsreader.lang;
 
 import org.jetbrains.annotations.NotNull;
-import org.mozilla.universalchardet.UniversalDetector;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -22,11 +25,17 @@ public class CommandLine {
 	private final String[] commandAndArgs;
 
 	private String stdout = "";
+	private byte[] binaryStdout;
 	private String stderr = "";
 	private int exitCode = exitCodeBeforeFinished;
 
 	private final AtomicReference<Process> processRef = new AtomicReference<>();
 	private final Map<String, String> environment = new HashMap<>();
+	private String input;
+	private Charset charsetGuess;
+	private volatile Charset detectedCharset;
+	private Future<String> stderrFuture;
+	private File stderrFile;
 
 
 	public CommandLine(Collection<String> commandAndArgs) {
@@ -53,6 +62,14 @@ public class CommandLine {
 		return this;
 	}
 
+	/**
+	 * @param text will be written to stdin of the command (using output charset) after it's started
+	 */
+	public CommandLine input(String text) {
+		input = text;
+		return this;
+	}
+
 	public CommandLine outputCharset(@NotNull Charset charset) {
 		return new CommandLine(config.outputCharset(charset), commandAndArgs);
 	}
@@ -61,37 +78,73 @@ public class CommandLine {
 		return new CommandLine(config.charsetAutoDetect(value), commandAndArgs);
 	}
 
+	/**
+	 * @param charset charset which is used if charset auto-detection is enabled and output is neither ASCII nor UTF-8
+	 *                (so that charset detector doesn't need to run), see {@link CharsetDetector}
+	 */
+	public CommandLine charsetGuess(@Nullable Charset charset) {
+		charsetGuess = charset;
+		return this;
+	}
+
+	/**
+	 * @param value if true and stdout looks like binary data, it is not decoded and is available as {@link #binaryStdout()}
+	 *              (in this case {@link #stdout()} is empty)
+	 */
+	public CommandLine detectBinaryOutput(boolean value) {
+		return new CommandLine(config.detectBinaryOutput(value), commandAndArgs);
+	}
+
+	/**
+	 * @param value if true, stderr will be written by OS into temporary file (instead of being read by separate thread)
+	 *              and then read from the file after command has finished
+	 */
+	public CommandLine redirectStderrToFile(boolean value) {
+		return new CommandLine(config.redirectStderrToFile(value), commandAndArgs);
+	}
+
 	public CommandLine execute() throws Failure {
 		InputStream stdoutInputStream = null;
 		InputStream stderrInputStream = null;
+		File stderrFile = null;
 		Process process;
 		try {
 
-			ProcessBuilder builder = new ProcessBuilder(commandAndArgs).directory(config.workingDir);
-			builder.environment().putAll(environment);
-			process = builder.start();
+			stderrFile = config.redirectStderrToFile ? createStderrFile() : null;
+			process = startProcess(stderrFile);
 			processRef.set(process);
 
 			stdoutInputStream = process.getInputStream();
 			stderrInputStream = process.getErrorStream();
 
-			Future<String> stdoutFuture = config.asyncExecutor.submit(
-					readStreamTask(stdoutInputStream, config.stdoutBufferSize),
-					"stdout reader: " + shortened(describe(), 30)
-			);
-			Future<String> stderrFuture = config.asyncExecutor.submit(
-					readStreamTask(stderrInputStream, config.stderrBufferSize),
+			Future<String> stderrFuture = stderrFile != null ? null : config.asyncExecutor.submit(
+					readStderrTask(stderrInputStream, config.stderrBufferSize),
 					"stderr reader: " + shortened(describe(), 30)
 			);
 
-			stdout = stdoutFuture.get();
-			stderr = stderrFuture.get();
+			String stdout;
+			if (input == null) {
+				// There is nothing to write to stdin, so it's ok to read stdout in the current thread.
+				writeInput(process);
+				stdout = readStdoutTask(stdoutInputStream).call();
+			} else {
+				Future<String> stdoutFuture = config.asyncExecutor.submit(
+						readStdoutTask(stdoutInputStream),
+						"stdout reader: " + shortened(describe(), 30)
+				);
+				writeInput(process);
+				stdout = stdoutFuture.get();
+			}
+			String stderr = stderrFuture != null ? stderrFuture.get() : null;
 
 			process.waitFor();
 			stdoutInputStream.close();
 			stderrInputStream.close();
 
 			process.destroy();
+			if (stderrFile != null) stderr = readStderrFile(stderrFile);
+			this.stdout = stdout;
+			this.stderr = stderr;
 			exitCode = process.exitValue();
 
 		} catch (Exception e) {
@@ -101,11 +154,77 @@ public class CommandLine {
 			processRef.set(null);
 			close(stdoutInputStream);
 			close(stderrInputStream);
+			delete(stderrFile);
 		}
 
 		return this;
 	}
 
+	/**
+	 * Starts command without waiting for it to finish, so that stdout can be processed while command is running.
+	 * After stdout was read {@link #waitFor()} must be called to get stderr and exit code of the command.
+	 * If input wasn't specified, stdin is kept open (see {@link #stdin()}).
+	 *
+	 * @return stdout of the command (not buffered)
+	 */
+	public InputStream start() throws Failure {
+		try {
+
+			stderrFile = config.redirectStderrToFile ? createStderrFile() : null;
+			Process process = startProcess(stderrFile);
+			processRef.set(process);
+
+			if (stderrFile == null) {
+				stderrFuture = config.asyncExecutor.submit(
+						readStderrTask(process.getErrorStream(), config.stderrBufferSize),
+						"stderr reader: " + shortened(describe(), 30)
+				);
+			}
+			if (input != null) writeInput(process);
+			return process.getInputStream();
+
+		} catch (Exception e) {
+			kill();
+			processRef.set(null);
+			delete(stderrFile);
+			throw new Failure(e);
+		}
+	}
+
+	/**
+	 * @return stdin of the command started with {@link #start()} (not buffered)
+	 */
+	public OutputStream stdin() {
+		Process process = processRef.get();
+		if (process == null) throw new IllegalStateException("Command is not running: " + describe());
+		return process.getOutputStream();
+	}
+
+	/**
+	 * Waits for command started with {@link #start()} to finish.
+	 */
+	public CommandLine waitFor() throws Failure {
+		Process process = processRef.get();
+		if (process == null) throw new IllegalStateException("Command is not running: " + describe());
+		try {
+
+			if (stderrFile == null) stderr = stderrFuture.get();
+			process.waitFor();
+			if (stderrFile != null) stderr = readStderrFile(stderrFile);
+			exitCode = process.exitValue();
+
+		} catch (Exception e) {
+			throw new Failure(e);
+		} finally {
+			kill();
+			processRef.set(null);
+			close(process.getInputStream());
+			close(process.getErrorStream());
+			delete(stderrFile);
+		}
+		return this;
+	}
+
 	/**
 	 * @return true is underlying process is dead (or there is no process), false if process is still running.
 	 */
@@ -127,6 +246,13 @@ public class CommandLine {
 		return stdout;
 	}
 
+	/**
+	 * @return stdout if it was detected as binary data (see {@link #detectBinaryOutput(boolean)}); otherwise null
+	 */
+	@Nullable public byte[] binaryStdout() {
+		return binaryStdout;
+	}
+
 	@NotNull public String stderr() {
 		return stderr;
 	}
@@ -151,42 +277,124 @@ public class CommandLine {
 		return describe();
 	}
 
-	private Callable<String> readStreamTask(final InputStream stdoutInputStream, final int inputBufferSize) {
+	private Process startProcess(File stderrFile) throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(commandAndArgs).directory(config.workingDir);
+		builder.environment().putAll(environment);
+		if (stderrFile != null) builder.redirectError(stderrFile);
+		return builder.start();
+	}
+
+	private static File createStderrFile() throws IOException {
+		File file = File.createTempFile("vcs-reader-stderr-", ".txt");
+		file.deleteOnExit();
+		return file;
+	}
+
+	private String readStderrFile(File stderrFile) throws IOException {
+		return new String(Files.readAllBytes(stderrFile.toPath()), config.outputCharset);
+	}
+
+	private static void delete(File file) {
+		//noinspection ResultOfMethodCallIgnored
+		if (file != null) file.delete();
+	}
+
+	private void writeInput(Process process) throws IOException {
+		OutputStream outputStream = process.getOutputStream();
+		try {
+			if (input != null) {
+				outputStream.write(input.getBytes(config.outputCharset));
+			}
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	private Callable<String> readStdoutTask(final InputStream stdoutInputStream) {
 		return () -> {
-			byte[] bytes = readAsBytes(stdoutInputStream, inputBufferSize);
-			return convertToString(bytes);
+			OutputBuffer buffer = new OutputBuffer(Math.max(config.stdoutBufferSize, stdoutInputStream.available()));
+			buffer.readFrom(stdoutInputStream);
+			if (config.detectBinaryOutput && buffer.isBinary()) {
+				binaryStdout = buffer.bytes();
+				return "";
+			}
+			binaryStdout = null;
+			return buffer.decode();
 		};
 	}
 
-	private String convertToString(byte[] bytes) throws IOException {
-		Charset charset = config.charsetAutoDetect ?
-				detectCharset(bytes, config.maxBufferForCharsetDetection) :
-				config.outputCharset;
-		if (charset == null) charset = config.outputCharset;
-		return new String(bytes, charset);
+	/**
+	 * Stderr is decoded without charset detection, so that {@link #detectedCharset()} is only updated by stdout.
+	 */
+	private Callable<String> readStderrTask(final InputStream stderrInputStream, final int inputBufferSize) {
+		return () -> {
+			OutputBuffer buffer = new OutputBuffer(Math.max(inputBufferSize, stderrInputStream.available()));
+			buffer.readFrom(stderrInputStream);
+			return buffer.decode(config.outputCharset);
+		};
 	}
 
-	private static byte[] readAsBytes(InputStream inputStream, int inputBufferSize) throws IOException {
-		ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
-		byte[] buffer = new byte[inputBufferSize];
-		int n;
-		while ((n = inputStream.read(buffer, 0, buffer.length)) != -1) {
-			byteArrayStream.write(buffer, 0, n);
-		}
-		byteArrayStream.flush();
-		return byteArrayStream.toByteArray();
+	/**
+	 * Converts command output to string using output charset of this command
+	 * (or detected charset if charset auto-detection is enabled).
+	 */
+	public String decode(byte[] bytes) {
+		return decode(bytes, charsetGuess);
 	}
 
-	private static Charset detectCharset(byte[] bytes, int maxBufferForCharsetDetection) {
-		UniversalDetector detector = new UniversalDetector(null);
+	/**
+	 * Same as {@link #decode(byte[])} but with charset guess for this output (see {@link #charsetGuess(Charset)}).
+	 */
+	public String decode(byte[] bytes, @Nullable Charset charsetGuess) {
+		return new String(bytes, charsetOf(bytes, bytes.length, charsetGuess));
+	}
+
+	/**
+	 * @return charset detected for the last decoded output or null if output was ASCII or charset wasn't detected
+	 */
+	@Nullable public Charset detectedCharset() {
+		return detectedCharset;
+	}
+
+	/**
+	 * @return charset which is used to decode output starting with the specified bytes
+	 * (output charset of this command or detected charset if charset auto-detection is enabled)
+	 */
+	public Charset charsetOf(byte[] bytes, int length) {
+		return charsetOf(bytes, length, charsetGuess);
+	}
+
+	private Charset charsetOf(byte[] bytes, int length, @Nullable Charset charsetGuess) {
+		if (!config.charsetAutoDetect) return config.outputCharset;
+		Charset charset = CharsetDetector.detectCharset(bytes, Math.min(length, config.maxBufferForCharsetDetection), charsetGuess);
+		detectedCharset = charset;
+		return charset == null ? config.outputCharset : charset;
+	}
+
+	/**
+	 * Same as {@link #start()} but stdout is decoded while it's read, so that the whole output is never kept in memory.
+	 * If charset auto-detection is enabled, charset is detected using the beginning of the output.
+	 * After stdout was read {@link #waitFor()} must be called to get stderr and exit code of the command.
+	 */
+	public Reader startReader() throws Failure {
+		InputStream inputStream = new BufferedInputStream(start(), config.stdoutBufferSize);
+		if (!config.charsetAutoDetect) {
+			return new InputStreamReader(inputStream, config.outputCharset);
+		}
 		try {
-			detector.handleData(bytes, 0, Math.min(bytes.length, maxBufferForCharsetDetection));
-			detector.dataEnd();
-		} finally {
-			detector.reset();
+			byte[] bytes = new byte[config.maxBufferForCharsetDetection];
+			inputStream.mark(bytes.length);
+			int length = 0;
+			int n;
+			while (length < bytes.length && (n = inputStream.read(bytes, length, bytes.length - length)) != -1) {
+				length += n;
+			}
+			inputStream.reset();
+			return new InputStreamReader(inputStream, charsetOf(bytes, length));
+		} catch (IOException e) {
+			kill();
+			throw new Failure(e);
 		}
-		String charsetName = detector.getDetectedCharset();
-		return charsetName == null ? null : Charset.forName(charsetName);
 	}
 
 	private static String[] checkForNulls(String[] command) {
@@ -220,6 +428,46 @@ public class CommandLine {
 	}
 
 
+	/**
+	 * Buffer which reads stream directly into its array and decodes it without copying array
+	 * (unlike reading via intermediate buffer and {@link ByteArrayOutputStream#toByteArray()}).
+	 */
+	private class OutputBuffer extends ByteArrayOutputStream {
+		OutputBuffer(int size) {
+			super(size);
+		}
+
+		void readFrom(InputStream inputStream) throws IOException {
+			int n;
+			do {
+				if (count == buf.length) buf = Arrays.copyOf(buf, grownSize(buf.length));
+				n = inputStream.read(buf, count, buf.length - count);
+				if (n > 0) count += n;
+			} while (n != -1);
+		}
+
+		String decode() {
+			return decode(charsetOf(buf, count));
+		}
+
+		String decode(Charset charset) {
+			return new String(buf, 0, count, charset);
+		}
+
+		boolean isBinary() {
+			return CharsetDetector.isBinary(buf, count);
+		}
+
+		byte[] bytes() {
+			return count == buf.length ? buf : Arrays.copyOf(buf, count);
+		}
+
+		private int grownSize(int size) {
+			if (size == Integer.MAX_VALUE - 8) throw new OutOfMemoryError("Command output is too large: " + describe());
+			return (int) Math.min(Math.max((long) size * 2, 1024), Integer.MAX_VALUE - 8);
+		}
+	}
+
 	public static class Config {
 		private static final int defaultBufferSize = 8192;
 		private static final File currentDirectory = null;
@@ -229,7 +477,7 @@ public class CommandLine {
 				defaultBufferSize,
 				defaultBufferSize,
 				Charset.defaultCharset(), false, defaultBufferSize,
-				newExecutor()
+				newExecutor(), false, false
 		);
 
 		private final File workingDir;
@@ -239,9 +487,23 @@ public class CommandLine {
 		private final boolean charsetAutoDetect;
 		private final int maxBufferForCharsetDetection;
 		private final AsyncExecutor asyncExecutor;
+		private final boolean redirectStderrToFile;
+		private final boolean detectBinaryOutput;
 
 		public Config(File workingDir, int stdoutBufferSize, int stderrBufferSize, Charset outputCharset,
 		              boolean charsetAutoDetect, int maxBufferForCharsetDetection, AsyncExecutor asyncExecutor) {
+			this(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, false);
+		}
+
+		public Config(File workingDir, int stdoutBufferSize, int stderrBufferSize, Charset outputCharset,
+		              boolean charsetAutoDetect, int maxBufferForCharsetDetection, AsyncExecutor asyncExecutor,
+		              boolean redirectStderrToFile) {
+			this(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile, false);
+		}
+
+		public Config(File workingDir, int stdoutBufferSize, int stderrBufferSize, Charset outputCharset,
+		              boolean charsetAutoDetect, int maxBufferForCharsetDetection, AsyncExecutor asyncExecutor,
+		              boolean redirectStderrToFile, boolean detectBinaryOutput) {
 			this.workingDir = workingDir;
 			this.stdoutBufferSize = stdoutBufferSize;
 			this.stderrBufferSize = stderrBufferSize;
@@ -249,39 +511,56 @@ public class CommandLine {
 			this.charsetAutoDetect = charsetAutoDetect;
 			this.maxBufferForCharsetDetection = maxBufferForCharsetDetection;
 			this.asyncExecutor = asyncExecutor;
+			this.redirectStderrToFile = redirectStderrToFile;
+			this.detectBinaryOutput = detectBinaryOutput;
 		}
 
 		public Config workingDir(File newWorkingDirectory) {
-			return new Config(newWorkingDirectory, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor);
+			return new Config(newWorkingDirectory, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile, detectBinaryOutput);
 		}
 
 		public Config charsetAutoDetect(boolean value) {
-			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, value, maxBufferForCharsetDetection, asyncExecutor);
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, value, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile, detectBinaryOutput);
 		}
 
 		public Config outputCharset(Charset charset) {
-			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, charset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor);
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, charset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile, detectBinaryOutput);
 		}
 
 		public Config asyncExecutor(AsyncExecutor newAsyncExecutor) {
-			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, newAsyncExecutor);
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, newAsyncExecutor, redirectStderrToFile, detectBinaryOutput);
+		}
+
+		public Config redirectStderrToFile(boolean value) {
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, value, detectBinaryOutput);
+		}
+
+		public Config detectBinaryOutput(boolean value) {
+			return new Config(workingDir, stdoutBufferSize, stderrBufferSize, outputCharset, charsetAutoDetect, maxBufferForCharsetDetection, asyncExecutor, redirectStderrToFile, value);
 		}
 
+		/**
+		 * Creates executor which reuses daemon threads between commands
+		 * (idle threads are stopped after timeout by {@link Executors#newCachedThreadPool()}).
+		 */
 		private static AsyncExecutor newExecutor() {
+			ExecutorService executorService = Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "vcs-reader stream reader");
+				thread.setDaemon(true);
+				return thread;
+			});
 			return new AsyncExecutor() {
 				@Override public <T> Future<T> submit(Callable<T> task, String taskName) {
-					FutureResult<T> futureResult = new FutureResult<>();
-					Runnable runnable = () -> {
+					return executorService.submit(() -> {
+						Thread thread = Thread.currentThread();
+						String threadName = thread.getName();
+						thread.setName(taskName);
 						try {
-							futureResult.set(task.call());
-						} catch (Exception e) {
-							futureResult.setException(e);
+							return task.call();
+						} finally {
+							thread.setName(threadName);
 						}
-					};
-					Thread thread = new Thread(null, runnable, taskName);
-					thread.setDaemon(true);
-					thread.start();
-					return futureResult;
+					});
 				}
 			};
 		}
@@ -0,0 +1,96 @@
+package org.vcsreader.lang;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Runs tasks concurrently using one pool of daemon threads shared by all commands
+ * (so that threads are reused between commands instead of creating thread pool for each of them).
+ * The number of tasks running at once is limited per call, so that the shared pool doesn't
+ * bypass parallelism configured for a command.
+ */
+public class ParallelTasks {
+	private static final ExecutorService sharedExecutor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "vcs-reader parallel task");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+
+	/**
+	 * Same as {@link ExecutorService#invokeAll(java.util.Collection)} but with at most {@code parallelism} tasks running at once.
+	 * If the calling thread is interrupted, tasks which haven't started yet are cancelled.
+	 *
+	 * @return completed futures in the same order as tasks
+	 */
+	public static <T> List<Future<T>> invokeAll(List<Callable<T>> tasks, int parallelism) throws InterruptedException {
+		Executor executor = limitedExecutor(Math.min(parallelism, tasks.size()));
+		List<FutureTask<T>> futures = new ArrayList<>();
+		for (Callable<T> task : tasks) {
+			FutureTask<T> future = new FutureTask<>(task);
+			futures.add(future);
+			executor.execute(future);
+		}
+
+		try {
+			for (Future<T> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException | CancellationException ignored) {
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<T> future : futures) {
+				future.cancel(false);
+			}
+			throw e;
+		}
+		return new ArrayList<>(futures);
+	}
+
+	/**
+	 * Executor which runs tasks in the shared pool with at most {@code parallelism} tasks running at once.
+	 * Tasks are started in the order they were submitted.
+	 * Tasks are expected to handle their own exceptions (e.g. be instances of {@link FutureTask}).
+	 */
+	public static Executor limitedExecutor(int parallelism) {
+		return new LimitedExecutor(Math.max(1, parallelism));
+	}
+
+
+	private static class LimitedExecutor implements Executor {
+		private final int parallelism;
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+		private int workerCount;
+
+		LimitedExecutor(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		@Override public void execute(Runnable task) {
+			synchronized (this) {
+				tasks.add(task);
+				if (workerCount >= parallelism) return;
+				workerCount++;
+			}
+			sharedExecutor.execute(this::runTasks);
+		}
+
+		private void runTasks() {
+			while (true) {
+				Runnable task;
+				synchronized (this) {
+					task = tasks.poll();
+					if (task == null) {
+						workerCount--;
+						return;
+					}
+				}
+				task.run();
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package org.vcsreader.lang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Parses input which consists of chunks (e.g. commits) with known separator so that
+ * reading input and parsing happen concurrently.
+ * The calling thread reads input and groups chunks into batches which are parsed in {@link ParallelTasks} thread pool.
+ * Batches are copied together with separators, i.e. each batch looks like a smaller version of the input
+ * and can be parsed by the same parser as the whole input.
+ * Results are returned in the same order as chunks in the input.
+ */
+public class PipelinedParser<T> {
+	private static final int defaultBatchSize = 256 * 1024;
+
+	private final byte[] separator;
+	private final int parallelism;
+	private final int batchSize;
+	private final Function<byte[], List<T>> batchParser;
+
+
+	/**
+	 * @param parallelism max number of threads parsing batches
+	 * @param batchParser parser of batches (it will be called from different threads)
+	 */
+	public PipelinedParser(byte[] separator, int parallelism, Function<byte[], List<T>> batchParser) {
+		this(separator, parallelism, defaultBatchSize, batchParser);
+	}
+
+	/**
+	 * @param batchSize approximate size of batches in bytes
+	 */
+	public PipelinedParser(byte[] separator, int parallelism, int batchSize, Function<byte[], List<T>> batchParser) {
+		this.separator = separator;
+		this.parallelism = parallelism;
+		this.batchSize = batchSize;
+		this.batchParser = batchParser;
+	}
+
+	public List<T> parse(InputStream inputStream) {
+		ByteStreamSplitter splitter = new ByteStreamSplitter(inputStream, separator);
+		List<T> result = new ArrayList<>();
+		Executor executor = ParallelTasks.limitedExecutor(parallelism);
+		ArrayDeque<Future<List<T>>> batches = new ArrayDeque<>();
+		try {
+			// limit number of batches in memory in case parsing is slower than reading
+			int maxBatchesInProgress = parallelism * 2;
+			ByteArrayOutputStream batch = new ByteArrayOutputStream(batchSize + separator.length);
+			while (splitter.next()) {
+				batch.write(separator, 0, separator.length);
+				batch.write(splitter.buffer(), splitter.valueStart(), splitter.valueEnd() - splitter.valueStart());
+				if (batch.size() < batchSize) continue;
+
+				if (batches.size() >= maxBatchesInProgress) {
+					result.addAll(get(batches.removeFirst()));
+				}
+				batches.add(submit(executor, batch.toByteArray()));
+				batch.reset();
+			}
+			if (batch.size() > 0) {
+				batches.add(submit(executor, batch.toByteArray()));
+			}
+			while (!batches.isEmpty()) {
+				result.addAll(get(batches.removeFirst()));
+			}
+			return result;
+		} finally {
+			for (Future<List<T>> future : batches) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private Future<List<T>> submit(Executor executor, byte[] bytes) {
+		FutureTask<List<T>> future = new FutureTask<>(() -> batchParser.apply(bytes));
+		executor.execute(future);
+		return future;
+	}
+
+	private static <T> List<T> get(Future<List<T>> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+}
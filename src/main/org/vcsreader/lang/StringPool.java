@@ -0,0 +1,26 @@
+package org.vcsreader.lang;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Similar to {@link String#intern()} but strings are only kept while the pool is referenced
+ * (e.g. by parser of a single log result), so that equal strings can share the same instance.
+ * The same instance can be used from different threads.
+ */
+public class StringPool {
+	private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+
+	public String intern(String s) {
+		String result = strings.putIfAbsent(s, s);
+		return result == null ? s : result;
+	}
+
+	public int size() {
+		return strings.size();
+	}
+
+	@Override public String toString() {
+		return "StringPool{size=" + strings.size() + '}';
+	}
+}
@@ -2,9 +2,13 @@ package org.vcsreader.lang;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 public class StringUtil {
 	public static List<String> split(String s, String separator) {
 		List<String> result = new ArrayList<>();
@@ -41,4 +45,20 @@ public class StringUtil {
 	@NotNull public static String shortened(@NotNull String s, int maxLength) {
 		return s.length() <= maxLength ? s : s.substring(0, maxLength) + "[...]";
 	}
+
+	/**
+	 * @return SHA-1 hash of UTF-8 bytes of the string in lowercase hex (e.g. to use arbitrary keys as file names)
+	 */
+	@NotNull public static String sha1Hex(@NotNull String s) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-1").digest(s.getBytes(UTF_8));
+			StringBuilder result = new StringBuilder();
+			for (byte b : hash) {
+				result.append(String.format("%02x", b));
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 }
@@ -1,7 +1,6 @@
 package org.vcsreader.vcs;
 
 import org.jetbrains.annotations.NotNull;
-import org.vcsreader.LogFileContentResult;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsRoot;
 
@@ -60,14 +59,12 @@ public class Change implements VcsChange, VcsChange.WithRootReference {
 
 	@NotNull @Override public FileContent fileContent() {
 		if (filePath.equals(noFilePath)) return FileContent.none;
-		LogFileContentResult logFileContentResult = vcsRoot.get().logFileContent(filePath, revision);
-		return logFileContentResult.isSuccessful() ? new FileContent(logFileContentResult.text()) : FileContent.failedToLoad;
+		return FileContent.from(vcsRoot.get().logFileContent(filePath, revision));
 	}
 
 	@NotNull @Override public FileContent fileContentBefore() {
 		if (filePathBefore.equals(noFilePath)) return FileContent.none;
-		LogFileContentResult logFileContentResult = vcsRoot.get().logFileContent(filePathBefore, revisionBefore);
-		return logFileContentResult.isSuccessful() ? new FileContent(logFileContentResult.text()) : FileContent.failedToLoad;
+		return FileContent.from(vcsRoot.get().logFileContent(filePathBefore, revisionBefore));
 	}
 
 	public Change withTypeAndPaths(Type type, String filePath, String filePathBefore) {
@@ -78,6 +75,10 @@ public class Change implements VcsChange, VcsChange.WithRootReference {
 		this.vcsRoot.set(vcsRoot);
 	}
 
+	VcsRoot vcsRoot() {
+		return vcsRoot.get();
+	}
+
 	@Override public String toString() {
 		return "Change(" + type + ',' + filePath + ',' + filePathBefore + ',' + revision + ',' + revisionBefore + ')';
 	}
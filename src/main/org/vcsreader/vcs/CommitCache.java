@@ -0,0 +1,247 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.lang.StringUtil.sha1Hex;
+
+/**
+ * Local storage of commits which is used by {@code VcsRoot}s to avoid reading the same history from VCS many times.
+ * Each {@code VcsRoot} asks VCS only for commits after the last cached revision
+ * and then selects commits within requested time range from cache.
+ * <p>
+ * Commits are stored in a binary file per root in the cache folder (new commits are appended to the file).
+ * The same instance can be shared by several roots and used from different threads.
+ */
+public class CommitCache {
+	private static final int fileFormatMarker = 0x56435352; // "VCSR"
+	private static final int fileFormatVersion = 1;
+
+	private final File folder;
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+
+	public CommitCache(@NotNull File folder) {
+		this.folder = folder;
+	}
+
+	/**
+	 * @param key      unique identifier of VCS root
+	 * @param timeRange time range of requested commits (applied to commit time)
+	 * @param source   provider of commits which are not in the cache yet
+	 */
+	public LogResult log(String key, TimeRange timeRange, Source source) {
+		Entry entry = entries.computeIfAbsent(key, it -> new Entry());
+		synchronized (entry) {
+			if (!entry.isLoaded) {
+				read(key, entry);
+			}
+
+			Update update = source.update(entry.headRevision);
+			if (update.headRevision != null) {
+				if (update.isFullHistory || entry.headRevision == null) {
+					entry.commits = sortedByTime(update.logResult.commits());
+					entry.headRevision = update.headRevision;
+					write(key, entry, update.headRevision, entry.commits, false);
+				} else if (!update.headRevision.equals(entry.headRevision)) {
+					List<VcsCommit> newCommits = update.logResult.commits();
+					entry.commits = LogResult.aggregate(asList(new LogResult(entry.commits), new LogResult(newCommits))).commits();
+					entry.headRevision = update.headRevision;
+					write(key, entry, update.headRevision, newCommits, true);
+				}
+			}
+
+			List<VcsCommit> commits = new ArrayList<>();
+			for (VcsCommit commit : entry.commits) {
+				if (isWithin(timeRange, commit.getDateTime())) commits.add(commit);
+			}
+			return new LogResult(commits, new ArrayList<>(update.logResult.exceptions()));
+		}
+	}
+
+	/**
+	 * Removes all cached commits for the specified root.
+	 */
+	public void clear(String key) {
+		Entry entry = entries.computeIfAbsent(key, it -> new Entry());
+		synchronized (entry) {
+			entry.isLoaded = true;
+			entry.headRevision = null;
+			entry.commits = new ArrayList<>();
+			//noinspection ResultOfMethodCallIgnored
+			fileFor(key).delete();
+		}
+	}
+
+	private static boolean isWithin(TimeRange timeRange, Instant instant) {
+		return !instant.isBefore(timeRange.from()) && instant.isBefore(timeRange.to());
+	}
+
+	private static List<VcsCommit> sortedByTime(List<VcsCommit> commits) {
+		return LogResult.aggregate(asList(new LogResult(commits))).commits();
+	}
+
+	private void read(String key, Entry entry) {
+		entry.isLoaded = true;
+		File file = fileFor(key);
+		if (!file.exists()) return;
+
+		List<LogResult> blocks = new ArrayList<>();
+		String headRevision = null;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (input.readInt() != fileFormatMarker || input.readInt() != fileFormatVersion || !readString(input).equals(key)) {
+				return;
+			}
+			while (input.read() == 1) {
+				String blockHeadRevision = readString(input);
+				int size = input.readInt();
+				List<VcsCommit> commits = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					commits.add(readCommit(input));
+				}
+				blocks.add(new LogResult(commits));
+				headRevision = blockHeadRevision;
+			}
+		} catch (IOException e) {
+			// Incomplete or corrupted file (e.g. if process was killed while writing to it).
+			// Ignore content of the file so that the whole history is requested and file is rewritten.
+			return;
+		}
+		entry.headRevision = headRevision;
+		entry.commits = LogResult.aggregate(blocks).commits();
+	}
+
+	private void write(String key, Entry entry, String headRevision, List<VcsCommit> commits, boolean append) {
+		File file = fileFor(key);
+		//noinspection ResultOfMethodCallIgnored
+		folder.mkdirs();
+		boolean appendToExistingFile = append && file.exists();
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, appendToExistingFile)))) {
+			if (!appendToExistingFile) {
+				output.writeInt(fileFormatMarker);
+				output.writeInt(fileFormatVersion);
+				writeString(output, key);
+			}
+			output.write(1);
+			writeString(output, headRevision);
+			output.writeInt(commits.size());
+			for (VcsCommit commit : commits) {
+				writeCommit(output, commit);
+			}
+		} catch (IOException e) {
+			// Cache is only an optimisation, so keep commits in memory and request history again next time.
+			entry.headRevision = null;
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	private File fileFor(String key) {
+		return new File(folder, sha1Hex(key) + ".commits");
+	}
+
+	private static void writeCommit(DataOutputStream output, VcsCommit commit) throws IOException {
+		writeString(output, commit.getRevision());
+		writeString(output, commit.getRevisionBefore());
+		output.writeLong(commit.getDateTime().getEpochSecond());
+		output.writeInt(commit.getDateTime().getNano());
+		writeString(output, commit.getAuthor());
+		writeString(output, commit.getMessage());
+		output.writeInt(commit.getChanges().size());
+		for (VcsChange change : commit.getChanges()) {
+			output.writeByte(change.getType().ordinal());
+			writeString(output, change.getFilePath());
+			writeString(output, change.getFilePathBefore());
+			writeString(output, change.getRevision());
+			writeString(output, change.getRevisionBefore());
+		}
+	}
+
+	private static VcsCommit readCommit(DataInputStream input) throws IOException {
+		String revision = readString(input);
+		String revisionBefore = readString(input);
+		Instant dateTime = Instant.ofEpochSecond(input.readLong(), input.readInt());
+		String author = readString(input);
+		String message = readString(input);
+		int size = input.readInt();
+		List<Change> changes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			VcsChange.Type type = VcsChange.Type.values()[input.readByte()];
+			changes.add(new Change(type, readString(input), readString(input), readString(input), readString(input)));
+		}
+		return new Commit(revision, revisionBefore, dateTime, author, message, changes);
+	}
+
+	/**
+	 * Unlike {@link DataOutputStream#writeUTF(String)} is not limited to 64Kb strings.
+	 */
+	private static void writeString(DataOutputStream output, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override public String toString() {
+		return "CommitCache{folder=" + folder + '}';
+	}
+
+
+	/**
+	 * VCS commands which request commits that are not in the cache yet.
+	 */
+	public interface Source {
+		/**
+		 * @param fromRevisionExclusive the last cached revision or null if there are no cached commits
+		 * @return commits after {@code fromRevisionExclusive} up to the current head revision
+		 */
+		Update update(@Nullable String fromRevisionExclusive);
+	}
+
+
+	public static class Update {
+		public static final ExceptionWrapper<Update> adapter = e -> new Update(null, new LogResult(e), false);
+
+		@Nullable public final String headRevision;
+		@NotNull public final LogResult logResult;
+		public final boolean isFullHistory;
+
+		/**
+		 * @param headRevision  current head revision or null if commits couldn't be read from VCS
+		 *                      (in which case cache is not updated)
+		 * @param logResult     commits after the last cached revision
+		 * @param isFullHistory true if {@code logResult} contains all commits up to head revision
+		 *                      (e.g. because cached revision is not part of the history anymore)
+		 */
+		public Update(@Nullable String headRevision, @NotNull LogResult logResult, boolean isFullHistory) {
+			this.headRevision = headRevision;
+			this.logResult = logResult;
+			this.isFullHistory = isFullHistory;
+		}
+	}
+
+
+	private static class Entry {
+		private boolean isLoaded;
+		private String headRevision;
+		private List<VcsCommit> commits = new ArrayList<>();
+	}
+}
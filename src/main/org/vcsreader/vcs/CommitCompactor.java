@@ -0,0 +1,49 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.VcsRoot;
+import org.vcsreader.lang.StringPool;
+
+/**
+ * Converts commits into {@link CompactCommit}s which use less memory for long histories.
+ * Authors and file paths are pooled, so that commits converted by the same compactor share equal strings
+ * (it's expected that one compactor is used for commits of one log result).
+ * The same instance can be used from different threads.
+ */
+public class CommitCompactor {
+	private final StringPool authors = new StringPool();
+	private final StringPool filePaths = new StringPool();
+
+
+	public VcsCommit compact(VcsCommit commit) {
+		if (commit instanceof CompactCommit) return commit;
+		CompactCommit result = new CompactCommit(
+				commit.getRevision(),
+				commit.getRevisionBefore(),
+				commit.getDateTime(),
+				authors.intern(commit.getAuthor()),
+				commit.getMessage(),
+				commit.getChanges(),
+				this
+		);
+		VcsRoot vcsRoot = vcsRootOf(commit);
+		if (vcsRoot != null) result.setVcsRoot(vcsRoot);
+		return result;
+	}
+
+	private static VcsRoot vcsRootOf(VcsCommit commit) {
+		for (VcsChange change : commit.getChanges()) {
+			if (change instanceof Change) return ((Change) change).vcsRoot();
+		}
+		return null;
+	}
+
+	String filePath(String filePath) {
+		return filePaths.intern(filePath);
+	}
+
+	@Override public String toString() {
+		return "CommitCompactor{authors=" + authors.size() + ", filePaths=" + filePaths.size() + '}';
+	}
+}
@@ -0,0 +1,110 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsRoot;
+
+/**
+ * Same as {@link Change} but revisions and {@link VcsRoot} are taken from {@link CompactCommit}
+ * (file paths can be shared between changes, see {@link CommitCompactor}).
+ * Revision before change is either the same as revision before commit or {@link #noRevision}.
+ */
+class CompactChange implements VcsChange {
+	@NotNull private final Type type;
+	@NotNull private final String filePath;
+	@NotNull private final String filePathBefore;
+	@NotNull private final CompactCommit commit;
+	private final boolean hasRevisionBefore;
+
+
+	private CompactChange(@NotNull Type type, @NotNull String filePath, @NotNull String filePathBefore,
+	                      @NotNull CompactCommit commit, boolean hasRevisionBefore) {
+		this.type = type;
+		this.filePath = filePath;
+		this.filePathBefore = filePathBefore;
+		this.commit = commit;
+		this.hasRevisionBefore = hasRevisionBefore;
+	}
+
+	/**
+	 * @param compactor if not null, file paths are pooled by compactor
+	 * @return compact change or copy of the change if its revisions are different from commit revisions
+	 */
+	static VcsChange compact(VcsChange change, CompactCommit commit, @Nullable CommitCompactor compactor) {
+		String revisionBefore = change.getRevisionBefore();
+		boolean hasRevisionBefore = !revisionBefore.equals(noRevision);
+		boolean canBeCompacted =
+				change.getRevision().equals(commit.getRevision()) &&
+				(!hasRevisionBefore || revisionBefore.equals(commit.getRevisionBefore()));
+		if (!canBeCompacted) {
+			return change instanceof Change ? new Change((Change) change) : change;
+		}
+		String filePath = change.getFilePath();
+		String filePathBefore = change.getFilePathBefore();
+		if (compactor != null) {
+			filePath = compactor.filePath(filePath);
+			filePathBefore = compactor.filePath(filePathBefore);
+		}
+		return new CompactChange(change.getType(), filePath, filePathBefore, commit, hasRevisionBefore);
+	}
+
+	@NotNull @Override public Type getType() {
+		return type;
+	}
+
+	@NotNull @Override public String getFilePath() {
+		return filePath;
+	}
+
+	@NotNull @Override public String getFilePathBefore() {
+		return filePathBefore;
+	}
+
+	@Override public String getRevision() {
+		return commit.getRevision();
+	}
+
+	@Override public String getRevisionBefore() {
+		return hasRevisionBefore ? commit.getRevisionBefore() : noRevision;
+	}
+
+	@NotNull @Override public FileContent fileContent() {
+		if (filePath.equals(noFilePath)) return FileContent.none;
+		return FileContent.from(commit.vcsRoot().logFileContent(filePath, getRevision()));
+	}
+
+	@NotNull @Override public FileContent fileContentBefore() {
+		if (filePathBefore.equals(noFilePath)) return FileContent.none;
+		return FileContent.from(commit.vcsRoot().logFileContent(filePathBefore, getRevisionBefore()));
+	}
+
+	@Override public String toString() {
+		return "Change(" + type + ',' + filePath + ',' + filePathBefore + ',' + getRevision() + ',' + getRevisionBefore() + ')';
+	}
+
+	@SuppressWarnings({"RedundantIfStatement"})
+	@Override public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		CompactChange change = (CompactChange) o;
+
+		if (type != change.type) return false;
+		if (!filePath.equals(change.filePath)) return false;
+		if (!filePathBefore.equals(change.filePathBefore)) return false;
+		if (!getRevision().equals(change.getRevision())) return false;
+		if (!getRevisionBefore().equals(change.getRevisionBefore())) return false;
+
+		return true;
+	}
+
+	@Override public int hashCode() {
+		int result = type.hashCode();
+		result = 31 * result + (filePath.hashCode());
+		result = 31 * result + (filePathBefore.hashCode());
+		result = 31 * result + (getRevision().hashCode());
+		result = 31 * result + (getRevisionBefore().hashCode());
+		return result;
+	}
+}
@@ -0,0 +1,172 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.VcsRoot;
+
+import java.time.Instant;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Same as {@link Commit} but with smaller memory footprint (see {@link CommitCompactor}).
+ * Hex revisions (e.g. git and hg hashes) are stored as packed bytes, time is stored without {@link Instant} object
+ * and changes refer to commit for revisions and {@link VcsRoot} instead of keeping their own copies.
+ * <p>
+ * This class is effectively immutable (even though some fields are modifiable).
+ */
+public class CompactCommit implements VcsCommit, VcsCommit.WithRootReference {
+	private static final char[] hexChars = "0123456789abcdef".toCharArray();
+
+	// revisions are either packed bytes (see packRevision()) or strings
+	@NotNull private final Object revision;
+	@NotNull private final Object revisionBefore;
+	private final long epochSecond;
+	private final int nano;
+	@NotNull private final String author;
+	@NotNull private final String message;
+	@NotNull private final VcsChange[] changes;
+	private volatile VcsRoot vcsRoot;
+
+
+	/**
+	 * Creates commit with changes which are compacted without pooling file paths.
+	 */
+	public CompactCommit(@NotNull String revision, @NotNull String revisionBefore, @NotNull Instant time,
+	                     @NotNull String author, @NotNull String message, @NotNull List<? extends VcsChange> changes) {
+		this(revision, revisionBefore, time, author, message, changes, null);
+	}
+
+	CompactCommit(@NotNull String revision, @NotNull String revisionBefore, @NotNull Instant time,
+	              @NotNull String author, @NotNull String message, @NotNull List<? extends VcsChange> changes,
+	              @Nullable CommitCompactor compactor) {
+		this.revision = packRevision(revision);
+		this.revisionBefore = packRevision(revisionBefore);
+		this.epochSecond = time.getEpochSecond();
+		this.nano = time.getNano();
+		this.author = author;
+		this.message = message;
+		this.changes = new VcsChange[changes.size()];
+		for (int i = 0; i < changes.size(); i++) {
+			this.changes[i] = CompactChange.compact(changes.get(i), this, compactor);
+		}
+	}
+
+	@Override public void setVcsRoot(VcsRoot vcsRoot) {
+		this.vcsRoot = vcsRoot;
+		for (VcsChange change : changes) {
+			if (change instanceof VcsChange.WithRootReference) {
+				((VcsChange.WithRootReference) change).setVcsRoot(vcsRoot);
+			}
+		}
+	}
+
+	VcsRoot vcsRoot() {
+		return vcsRoot;
+	}
+
+	@Override public CompactCommit withChanges(List<? extends VcsChange> newChanges) {
+		CompactCommit commit = new CompactCommit(getRevision(), getRevisionBefore(), getDateTime(), author, message, newChanges);
+		commit.setVcsRoot(vcsRoot);
+		return commit;
+	}
+
+	@Override @NotNull public String getRevision() {
+		return unpackRevision(revision);
+	}
+
+	@Override @NotNull public String getRevisionBefore() {
+		return unpackRevision(revisionBefore);
+	}
+
+	@Override @NotNull public Instant getDateTime() {
+		return Instant.ofEpochSecond(epochSecond, nano);
+	}
+
+	@Override @NotNull public String getAuthor() {
+		return author;
+	}
+
+	@Override @NotNull public String getMessage() {
+		return message;
+	}
+
+	@Override @NotNull public List<? extends VcsChange> getChanges() {
+		return unmodifiableList(asList(changes));
+	}
+
+	/**
+	 * @return lowercase hex string with even number of digits as bytes, otherwise the same string
+	 */
+	static Object packRevision(String revision) {
+		int length = revision.length();
+		if (length == 0 || length % 2 != 0) return revision;
+		byte[] bytes = new byte[length / 2];
+		for (int i = 0; i < length; i += 2) {
+			int high = hexDigit(revision.charAt(i));
+			int low = hexDigit(revision.charAt(i + 1));
+			if (high == -1 || low == -1) return revision;
+			bytes[i / 2] = (byte) ((high << 4) | low);
+		}
+		return bytes;
+	}
+
+	static String unpackRevision(Object revision) {
+		if (revision instanceof String) return (String) revision;
+		byte[] bytes = (byte[]) revision;
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = hexChars[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = hexChars[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') return c - '0';
+		if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+		return -1;
+	}
+
+	@Override public String toString() {
+		return "Commit(" +
+				getRevision() + ',' +
+				getRevisionBefore() + ',' +
+				getDateTime() + ',' +
+				author + ',' +
+				message + ',' +
+				asList(changes) +
+				')';
+	}
+
+	@SuppressWarnings("RedundantIfStatement")
+	@Override public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		CompactCommit commit = (CompactCommit) o;
+
+		if (epochSecond != commit.epochSecond || nano != commit.nano) return false;
+		if (!author.equals(commit.author)) return false;
+		if (!message.equals(commit.message)) return false;
+		if (!getRevision().equals(commit.getRevision())) return false;
+		if (!getRevisionBefore().equals(commit.getRevisionBefore())) return false;
+		if (!getChanges().equals(commit.getChanges())) return false;
+
+		return true;
+	}
+
+	@Override public int hashCode() {
+		int result = getRevision().hashCode();
+		result = 31 * result + (getRevisionBefore().hashCode());
+		result = 31 * result + (getDateTime().hashCode());
+		result = 31 * result + (author.hashCode());
+		result = 31 * result + (message.hashCode());
+		result = 31 * result + (getChanges().hashCode());
+		return result;
+	}
+}
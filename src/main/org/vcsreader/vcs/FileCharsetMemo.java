@@ -0,0 +1,39 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.lang.CharsetDetector;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Remembers charsets detected for file contents by file extension, so that contents of other files
+ * with the same extension can be decoded without running charset detector (see {@link CharsetDetector}).
+ * ASCII and UTF-8 are not remembered because they are recognized without running detector anyway.
+ * The same instance can be used from different threads.
+ */
+public class FileCharsetMemo {
+	private final ConcurrentHashMap<String, Charset> charsetByExtension = new ConcurrentHashMap<>();
+
+
+	@Nullable public Charset charsetOf(String filePath) {
+		return charsetByExtension.get(extensionOf(filePath));
+	}
+
+	public void update(String filePath, @Nullable Charset detectedCharset) {
+		if (detectedCharset == null || detectedCharset.equals(UTF_8)) return;
+		charsetByExtension.put(extensionOf(filePath), detectedCharset);
+	}
+
+	static String extensionOf(String filePath) {
+		int slashIndex = Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\'));
+		int dotIndex = filePath.lastIndexOf('.');
+		return dotIndex > slashIndex ? filePath.substring(dotIndex + 1).toLowerCase() : "";
+	}
+
+	@Override public String toString() {
+		return "FileCharsetMemo{charsetByExtension=" + charsetByExtension + '}';
+	}
+}
@@ -0,0 +1,204 @@
+package org.vcsreader.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.lang.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.vcsreader.lang.StringUtil.sha1Hex;
+
+/**
+ * Cache of file contents which is used by {@code VcsRoot}s to avoid running VCS command
+ * each time the same file revision is requested.
+ * <p>
+ * Contents are kept in memory up to the specified size (least recently used contents are evicted first).
+ * If spill folder is specified, evicted contents are written to disk and read from there on the next request.
+ * Only successful results for text files are cached. The same instance can be shared by several roots and used from different threads.
+ */
+public class FileContentCache {
+	private static final int bytesPerChar = 2;
+	private static final int entryOverheadInBytes = 64;
+
+	private final long maxSizeInBytes;
+	@Nullable private final File spillFolder;
+	private final LinkedHashMap<String, String> textByKey = new LinkedHashMap<>(16, 0.75f, true);
+	private long sizeInBytes;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+
+	public FileContentCache(long maxSizeInBytes) {
+		this(maxSizeInBytes, null);
+	}
+
+	/**
+	 * @param maxSizeInBytes approximate amount of memory which can be used by cached file contents
+	 * @param spillFolder    folder to store contents evicted from memory; if null, evicted contents are discarded
+	 */
+	public FileContentCache(long maxSizeInBytes, @Nullable File spillFolder) {
+		this.maxSizeInBytes = maxSizeInBytes;
+		this.spillFolder = spillFolder;
+	}
+
+	/**
+	 * @param rootKey unique identifier of VCS root (including settings which affect file content, e.g. charset)
+	 * @param loader  command which requests file content from VCS if it's not in the cache
+	 */
+	public LogFileContentResult logFileContent(String rootKey, String filePath, String revision,
+	                                           Supplier<LogFileContentResult> loader) {
+		String key = keyOf(rootKey, filePath, revision);
+		String text = get(key);
+		if (text != null) {
+			hitCount.incrementAndGet();
+			return new LogFileContentResult(text);
+		}
+		missCount.incrementAndGet();
+
+		LogFileContentResult result = loader.get();
+		if (result.isSuccessful() && !result.isBinary()) put(key, result.text());
+		return result;
+	}
+
+	/**
+	 * Same as {@link #logFileContent(String, String, String, Supplier)} but for several files,
+	 * so that all files which are not in the cache are requested with single call to loader.
+	 */
+	public List<LogFileContentResult> logFileContents(String rootKey, List<Pair<String, String>> filePathsAndRevisions,
+	                                                  Function<List<Pair<String, String>>, List<LogFileContentResult>> loader) {
+		List<LogFileContentResult> result = new ArrayList<>();
+		List<Pair<String, String>> notCached = new ArrayList<>();
+		for (Pair<String, String> filePathAndRevision : filePathsAndRevisions) {
+			String text = get(keyOf(rootKey, filePathAndRevision.first, filePathAndRevision.second));
+			if (text != null) {
+				hitCount.incrementAndGet();
+				result.add(new LogFileContentResult(text));
+			} else {
+				missCount.incrementAndGet();
+				result.add(null);
+				notCached.add(filePathAndRevision);
+			}
+		}
+		if (notCached.isEmpty()) return result;
+
+		Iterator<LogFileContentResult> loaded = loader.apply(notCached).iterator();
+		for (int i = 0; i < result.size(); i++) {
+			if (result.get(i) != null) continue;
+			LogFileContentResult loadedResult = loaded.next();
+			if (loadedResult.isSuccessful() && !loadedResult.isBinary()) {
+				Pair<String, String> filePathAndRevision = filePathsAndRevisions.get(i);
+				put(keyOf(rootKey, filePathAndRevision.first, filePathAndRevision.second), loadedResult.text());
+			}
+			result.set(i, loadedResult);
+		}
+		return result;
+	}
+
+	public long hitCount() {
+		return hitCount.get();
+	}
+
+	public long missCount() {
+		return missCount.get();
+	}
+
+	public synchronized long sizeInBytes() {
+		return sizeInBytes;
+	}
+
+	private static String keyOf(String rootKey, String filePath, String revision) {
+		return rootKey + "\n" + revision + "\n" + filePath;
+	}
+
+	@Nullable private String get(String key) {
+		synchronized (this) {
+			String text = textByKey.get(key);
+			if (text != null) return text;
+		}
+		String text = readFromDisk(key);
+		if (text != null) put(key, text);
+		return text;
+	}
+
+	private void put(String key, String text) {
+		long size = sizeOf(key, text);
+		if (size > maxSizeInBytes) {
+			writeToDisk(key, text);
+			return;
+		}
+		List<Map.Entry<String, String>> evicted = new ArrayList<>();
+		synchronized (this) {
+			String oldText = textByKey.put(key, text);
+			if (oldText != null) sizeInBytes -= sizeOf(key, oldText);
+			sizeInBytes += size;
+
+			Iterator<Map.Entry<String, String>> iterator = textByKey.entrySet().iterator();
+			while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+				Map.Entry<String, String> eldest = iterator.next();
+				evicted.add(new SimpleEntry<>(eldest));
+				iterator.remove();
+				sizeInBytes -= sizeOf(eldest.getKey(), eldest.getValue());
+			}
+		}
+		for (Map.Entry<String, String> entry : evicted) {
+			writeToDisk(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static long sizeOf(String key, String text) {
+		return (long) (key.length() + text.length()) * bytesPerChar + entryOverheadInBytes;
+	}
+
+	@Nullable private String readFromDisk(String key) {
+		if (spillFolder == null) return null;
+		File file = fileFor(key);
+		if (!file.exists()) return null;
+		try {
+			return new String(Files.readAllBytes(file.toPath()), UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void writeToDisk(String key, String text) {
+		if (spillFolder == null) return;
+		File file = fileFor(key);
+		if (file.exists()) return;
+		try {
+			//noinspection ResultOfMethodCallIgnored
+			spillFolder.mkdirs();
+			// write to temporary file first so that other threads never read partially written file
+			File tempFile = new File(spillFolder, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+			Files.write(tempFile.toPath(), text.getBytes(UTF_8));
+			if (!tempFile.renameTo(file)) {
+				//noinspection ResultOfMethodCallIgnored
+				tempFile.delete();
+			}
+		} catch (IOException ignored) {
+			// cache is only an optimisation, so it's ok to lose evicted content
+		}
+	}
+
+	@NotNull private File fileFor(String key) {
+		//noinspection ConstantConditions
+		return new File(spillFolder, sha1Hex(key));
+	}
+
+	@Override public String toString() {
+		return "FileContentCache{" +
+				"maxSizeInBytes=" + maxSizeInBytes +
+				", spillFolder=" + spillFolder +
+				", hitCount=" + hitCount +
+				", missCount=" + missCount +
+				'}';
+	}
+}
@@ -0,0 +1,69 @@
+package org.vcsreader.vcs;
+
+import org.vcsreader.FileContentStream;
+import org.vcsreader.lang.CommandLine;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Streaming version of commands which request file content (e.g. "git show", "hg cat" or "svn cat").
+ * The same class is used for all VCS because only command line and the way to check exit status are different.
+ */
+public class LogFileContentStream implements VcsCommand<FileContentStream> {
+	private final String filePath;
+	private final FileCharsetMemo charsetMemo;
+	private final Predicate<CommandLine> isSuccessful;
+	private final CommandLine commandLine;
+
+
+	/**
+	 * @param commandLine command which writes file content to stdout
+	 * @param isSuccessful checks exit code and stderr after command has finished
+	 */
+	public LogFileContentStream(CommandLine commandLine, String filePath, FileCharsetMemo charsetMemo,
+	                            Predicate<CommandLine> isSuccessful) {
+		this.filePath = filePath;
+		this.charsetMemo = charsetMemo;
+		this.isSuccessful = isSuccessful;
+		this.commandLine = commandLine.charsetGuess(charsetMemo.charsetOf(filePath));
+	}
+
+	@Override public FileContentStream execute() {
+		return new FileContentStream(commandLine.start(), new FileContentStream.Source() {
+			@Override public Charset charsetOf(byte[] bytes, int length) {
+				Charset charset = commandLine.charsetOf(bytes, length);
+				charsetMemo.update(filePath, commandLine.detectedCharset());
+				return charset;
+			}
+
+			@Override public List<Exception> finish() {
+				commandLine.waitFor();
+				return isSuccessful.test(commandLine) ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+			}
+
+			@Override public void cancel() {
+				LogFileContentStream.this.cancel();
+			}
+		});
+	}
+
+	@Override public String describe() {
+		return commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		return commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "LogFileContentStream{" +
+				"commandLine=" + commandLine.describe() +
+				", filePath='" + filePath + '\'' +
+				'}';
+	}
+}
@@ -1,5 +1,7 @@
 package org.vcsreader.vcs;
 
+import java.util.function.BiFunction;
+
 import static org.vcsreader.vcs.VcsCommand.Listener.executeWith;
 
 public interface VcsCommand<R> {
@@ -51,4 +53,36 @@ public interface VcsCommand<R> {
 			}
 		}
 	}
+
+	/**
+	 * Same as {@link #execute(VcsCommand, ExceptionWrapper, Listener, boolean)} for commands which return stream
+	 * while VCS process is still running. {@link Listener#afterCommand(VcsCommand)} and {@code afterCommand}
+	 * are called when the stream has finished (or immediately if command failed).
+	 *
+	 * @param whenFinished registers callback on the stream (e.g. {@link org.vcsreader.LogStream#whenFinished(Runnable)})
+	 */
+	static <T> T executeStream(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper, VcsCommand.Listener listener,
+	                           boolean isFailFast, BiFunction<T, Runnable, T> whenFinished, Runnable afterCommand) {
+		Runnable afterStream = () -> {
+			try {
+				listener.afterCommand(vcsCommand);
+			} finally {
+				afterCommand.run();
+			}
+		};
+		listener.beforeCommand(vcsCommand);
+		T stream = null;
+		try {
+			stream = vcsCommand.execute();
+		} catch (Exception e) {
+			if (isFailFast) {
+				throw e;
+			} else {
+				return exceptionWrapper.wrapAsResult(e);
+			}
+		} finally {
+			if (stream == null) afterStream.run();
+		}
+		return whenFinished.apply(stream, afterStream);
+	}
 }
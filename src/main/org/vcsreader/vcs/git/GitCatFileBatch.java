@@ -0,0 +1,173 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.FileCharsetMemo;
+import org.vcsreader.vcs.VcsError;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.vcsreader.lang.CharsetDetector.isBinary;
+import static org.vcsreader.lang.StringUtil.trimLastNewLine;
+
+/**
+ * Long-running "git cat-file --batch" process which reads file contents without starting new process for each file.
+ * Requests are written to stdin of the process in chunks so that git can process them while responses are read.
+ * If process fails, it's started again on the next request.
+ * <p>
+ * See https://git-scm.com/docs/git-cat-file
+ */
+class GitCatFileBatch implements Closeable {
+	/**
+	 * Max size of requests which are written before reading responses.
+	 * It must be smaller than OS pipe buffer to guarantee that writing to stdin doesn't block
+	 * while git is waiting for its stdout to be read.
+	 */
+	private static final int maxChunkSizeInBytes = 4096;
+
+	private final String gitPath;
+	private final String repoFolder;
+	private final Charset charset;
+	private final FileCharsetMemo charsetMemo;
+	private volatile CommandLine commandLine;
+	private InputStream stdout;
+	private OutputStream stdin;
+
+
+	GitCatFileBatch(String gitPath, String repoFolder, Charset charset, FileCharsetMemo charsetMemo) {
+		this.gitPath = gitPath;
+		this.repoFolder = repoFolder;
+		this.charset = charset;
+		this.charsetMemo = charsetMemo;
+	}
+
+	static CommandLine gitCatFileBatch(String gitPath, String repoFolder, Charset charset) {
+		return new CommandLine(gitPath, "cat-file", "--batch")
+				.workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true);
+	}
+
+	/**
+	 * @param filePaths and revisions of files (the lists must have the same size)
+	 * @return contents of files in the same order as requested
+	 */
+	public synchronized List<LogFileContentResult> logFileContents(List<String> filePaths, List<String> revisions) {
+		List<LogFileContentResult> result = new ArrayList<>(filePaths.size());
+		try {
+			if (this.commandLine == null) start();
+			CommandLine commandLine = this.commandLine;
+
+			int chunkStart = 0;
+			while (chunkStart < filePaths.size()) {
+				int chunkEnd = chunkStart;
+				ByteArrayOutputStream requests = new ByteArrayOutputStream();
+				do {
+					String objectName = revisions.get(chunkEnd) + ":" + filePaths.get(chunkEnd) + "\n";
+					requests.write(objectName.getBytes(UTF_8));
+					chunkEnd++;
+				} while (chunkEnd < filePaths.size() && requests.size() < maxChunkSizeInBytes);
+
+				requests.writeTo(stdin);
+				stdin.flush();
+				for (int i = chunkStart; i < chunkEnd; i++) {
+					result.add(readResponse(commandLine, filePaths.get(i)));
+				}
+				chunkStart = chunkEnd;
+			}
+		} catch (IOException | CommandLine.Failure e) {
+			close();
+			while (result.size() < filePaths.size()) {
+				result.add(new LogFileContentResult(e));
+			}
+		}
+		return result;
+	}
+
+	public LogFileContentResult logFileContent(String filePath, String revision) {
+		List<String> filePaths = new ArrayList<>();
+		filePaths.add(filePath);
+		List<String> revisions = new ArrayList<>();
+		revisions.add(revision);
+		return logFileContents(filePaths, revisions).get(0);
+	}
+
+	private void start() {
+		commandLine = gitCatFileBatch(gitPath, repoFolder, charset);
+		stdout = new BufferedInputStream(commandLine.start());
+		stdin = new BufferedOutputStream(commandLine.stdin());
+	}
+
+	/**
+	 * Response format is "<sha1> SP <type> SP <size> LF <contents> LF" or "<object> SP missing LF".
+	 */
+	private LogFileContentResult readResponse(CommandLine commandLine, String filePath) throws IOException {
+		String header = readLine();
+		String[] parts = header.split(" ");
+		boolean isFound = parts.length == 3 && !parts[2].isEmpty() && parts[2].chars().allMatch(Character::isDigit);
+		if (!isFound) {
+			return new LogFileContentResult(new VcsError("Failed to read file content: " + header));
+		}
+
+		byte[] bytes = new byte[Integer.parseInt(parts[2])];
+		readFully(bytes);
+		if (stdout.read() != '\n') throw new IOException("Unexpected output from git cat-file");
+
+		if (!parts[1].equals("blob")) {
+			return new LogFileContentResult(new VcsError("Expected file but was " + parts[1] + ": " + header));
+		}
+		if (isBinary(bytes, bytes.length)) return new LogFileContentResult(bytes);
+
+		String text = commandLine.decode(bytes, charsetMemo.charsetOf(filePath));
+		charsetMemo.update(filePath, commandLine.detectedCharset());
+		return new LogFileContentResult(trimLastNewLine(text));
+	}
+
+	private String readLine() throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = stdout.read()) != '\n') {
+			if (b == -1) throw new EOFException("git cat-file process has finished");
+			line.write(b);
+		}
+		return new String(line.toByteArray(), UTF_8);
+	}
+
+	private void readFully(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			int n = stdout.read(bytes, offset, bytes.length - offset);
+			if (n == -1) throw new EOFException("git cat-file process has finished");
+			offset += n;
+		}
+	}
+
+	public String describe() {
+		return gitCatFileBatch(gitPath, repoFolder, charset).describe();
+	}
+
+	/**
+	 * Stops git process (it will be started again on the next request).
+	 * Can be called from another thread to cancel running request.
+	 */
+	@Override public void close() {
+		CommandLine commandLine = this.commandLine;
+		if (commandLine == null) return;
+		commandLine.kill();
+		try {
+			commandLine.waitFor();
+		} catch (RuntimeException ignored) {
+		}
+		this.commandLine = null;
+	}
+
+	@Override public String toString() {
+		return "GitCatFileBatch{" +
+				"gitPath='" + gitPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", charset=" + charset +
+				'}';
+	}
+}
@@ -0,0 +1,246 @@
+package org.vcsreader.vcs.git;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.VcsChange;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.ByteStreamSplitter;
+import org.vcsreader.lang.PipelinedParser;
+import org.vcsreader.vcs.Change;
+import org.vcsreader.vcs.Commit;
+import org.vcsreader.vcs.CommitCompactor;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.vcsreader.VcsChange.Type.*;
+import static org.vcsreader.lang.ByteStreamSplitter.indexOf;
+
+/**
+ * Parses output of "git log" with {@link GitCommitParser#logFormat()} by scanning raw UTF-8 bytes,
+ * so that only final field values are converted to strings
+ * (unlike {@link GitCommitParser#parseListOfCommits(String)} which splits output into intermediate substrings).
+ * Separators consist of ASCII control characters, so they can't be found inside multi-byte UTF-8 sequences.
+ * <p>
+ * Merge commits are skipped in the same way as in {@link GitCommitParser}.
+ */
+class GitCommitBytesParser implements Iterator<VcsCommit> {
+	private static final byte[] commitStartSeparator = {0x15, 0x16, 0x17, 0x18, 0x19};
+	private static final byte[] commitFieldsSeparator = {0x19, 0x18, 0x17, 0x16, 0x15};
+	private static final int fieldsCount = 6;
+
+	private final ByteStreamSplitter commitsBytes;
+	private byte[] buffer;
+	private int commitStart;
+	private int commitEnd;
+	private final int[] fieldStarts = new int[fieldsCount];
+	private final int[] fieldEnds = new int[fieldsCount];
+	private VcsCommit nextCommit;
+
+
+	private GitCommitBytesParser(ByteStreamSplitter commitsBytes) {
+		this.commitsBytes = commitsBytes;
+	}
+
+	public static List<VcsCommit> parseListOfCommits(byte[] stdout) {
+		return toList(new GitCommitBytesParser(new ByteStreamSplitter(stdout, commitStartSeparator)));
+	}
+
+	public static List<VcsCommit> parseListOfCommits(InputStream stdout) {
+		return toList(parseCommits(stdout));
+	}
+
+	/**
+	 * @param parallelism if greater than 1, commits are parsed by several threads while output is read
+	 */
+	public static List<VcsCommit> parseListOfCommits(InputStream stdout, int parallelism) {
+		return parseListOfCommits(stdout, parallelism, null);
+	}
+
+	/**
+	 * @param compactor if not null, commits are converted to compact commits as soon as they are parsed
+	 */
+	public static List<VcsCommit> parseListOfCommits(InputStream stdout, int parallelism, @Nullable CommitCompactor compactor) {
+		if (parallelism <= 1) return toList(parseCommits(stdout), compactor);
+		return new PipelinedParser<>(commitStartSeparator, parallelism, bytes ->
+				toList(new GitCommitBytesParser(new ByteStreamSplitter(bytes, commitStartSeparator)), compactor)
+		).parse(stdout);
+	}
+
+	/**
+	 * Parses commits lazily one at a time, so that only the current commit is kept in memory.
+	 */
+	public static Iterator<VcsCommit> parseCommits(InputStream stdout) {
+		return new GitCommitBytesParser(new ByteStreamSplitter(stdout, commitStartSeparator));
+	}
+
+	private static List<VcsCommit> toList(Iterator<VcsCommit> iterator) {
+		return toList(iterator, null);
+	}
+
+	private static List<VcsCommit> toList(Iterator<VcsCommit> iterator, @Nullable CommitCompactor compactor) {
+		List<VcsCommit> commits = new ArrayList<>();
+		while (iterator.hasNext()) {
+			VcsCommit commit = iterator.next();
+			commits.add(compactor == null ? commit : compactor.compact(commit));
+		}
+		return commits;
+	}
+
+	@Override public boolean hasNext() {
+		while (nextCommit == null && nextCommitBytes()) {
+			nextCommit = parseCommit();
+		}
+		return nextCommit != null;
+	}
+
+	@Override public VcsCommit next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		VcsCommit result = nextCommit;
+		nextCommit = null;
+		return result;
+	}
+
+	/**
+	 * Finds bytes of the next commit and splits them into fields without copying.
+	 * Fields are stored as offsets in {@link #fieldStarts} and {@link #fieldEnds}.
+	 *
+	 * @return false if there are no more commits
+	 */
+	private boolean nextCommitBytes() {
+		if (!commitsBytes.next()) return false;
+		buffer = commitsBytes.buffer();
+		commitStart = commitsBytes.valueStart();
+		commitEnd = commitsBytes.valueEnd();
+
+		Arrays.fill(fieldStarts, -1);
+		int fieldStart = commitStart;
+		for (int i = 0; i < fieldsCount; i++) {
+			int separatorIndex = i == fieldsCount - 1 ? -1 : indexOf(buffer, commitFieldsSeparator, fieldStart, commitEnd);
+			fieldStarts[i] = fieldStart;
+			fieldEnds[i] = separatorIndex == -1 ? commitEnd : separatorIndex;
+			if (separatorIndex == -1) break;
+			fieldStart = separatorIndex + commitFieldsSeparator.length;
+		}
+		return true;
+	}
+
+	private VcsCommit parseCommit() {
+		if (fieldStarts[4] == -1) {
+			throw new IllegalStateException("Unexpected git log output: " + string(commitStart, commitEnd));
+		}
+		int parentsStart = fieldStarts[1];
+		int parentsEnd = fieldEnds[1];
+		int firstParentEnd = indexOf(buffer, (byte) ' ', parentsStart, parentsEnd);
+		boolean isFirstCommit = parentsStart == parentsEnd;
+		boolean isMergeCommit = firstParentEnd != -1 && firstParentEnd + 1 < parentsEnd;
+		if (isMergeCommit) return null;
+
+		String revision = string(fieldStarts[0], fieldEnds[0]);
+		String revisionBefore = isFirstCommit ? VcsChange.noRevision : string(parentsStart, firstParentEnd == -1 ? parentsEnd : firstParentEnd);
+		Instant dateTime = Instant.ofEpochSecond(parseLong(fieldStarts[2], fieldEnds[2]));
+		String author = string(fieldStarts[3], fieldEnds[3]);
+		String message = trimmedString(fieldStarts[4], fieldEnds[4]);
+
+		boolean hasNoChanges = fieldStarts[5] == -1; // e.g. for commits with --allow-empty flag
+		List<Change> changes = hasNoChanges ?
+				Collections.emptyList() :
+				parseListOfChanges(fieldStarts[5], fieldEnds[5], revision, revisionBefore);
+
+		return new Commit(revision, revisionBefore, dateTime, author, message, changes);
+	}
+
+	private List<Change> parseListOfChanges(int start, int end, String revision, String revisionBefore) {
+		List<Change> changes = new ArrayList<>();
+		int lineStart = start;
+		while (lineStart < end) {
+			int lineEnd = indexOf(buffer, (byte) '\n', lineStart, end);
+			if (lineEnd == -1) lineEnd = end;
+			Change change = parseChange(lineStart, lineEnd, revision, revisionBefore);
+			if (change != null) {
+				changes.add(change);
+			}
+			lineStart = lineEnd + 1;
+		}
+		return changes;
+	}
+
+	private Change parseChange(int start, int end, String revision, String revisionBefore) {
+		if (isBlank(start, end)) return null;
+
+		int firstTab = indexOf(buffer, (byte) '\t', start, end);
+		if (firstTab == -1) throw new IllegalStateException("Unexpected git change format: " + string(start, end));
+		int secondTab = indexOf(buffer, (byte) '\t', firstTab + 1, end);
+		VcsChange.Type changeType = parseChangeType(buffer[start], start, firstTab);
+
+		boolean hasRenames = secondTab != -1;
+		String filePath = unescapeQuotes(hasRenames ? string(secondTab + 1, end) : string(firstTab + 1, end));
+		String filePathBefore = hasRenames ? unescapeQuotes(string(firstTab + 1, secondTab)) : filePath;
+
+		if (changeType == Added) {
+			filePathBefore = VcsChange.noFilePath;
+			revisionBefore = VcsChange.noRevision;
+		} else if (changeType == Deleted) {
+			filePathBefore = filePath;
+			filePath = VcsChange.noFilePath;
+		}
+
+		return new Change(changeType, filePath, filePathBefore, revision, revisionBefore);
+	}
+
+	/**
+	 * Same as in {@link GitCommitParser}, see "--diff-filter" at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
+	 */
+	private VcsChange.Type parseChangeType(byte b, int start, int end) {
+		if (b == 'A' || b == 'C') {
+			return Added;
+		} else if (b == 'M' || b == 'T' || b == 'U' || b == 'X') {
+			return Modified;
+		} else if (b == 'D') {
+			return Deleted;
+		} else if (b == 'R') {
+			return Moved;
+		} else {
+			throw new IllegalStateException("Unknown git change type: " + string(start, end));
+		}
+	}
+
+	private static String unescapeQuotes(String filePath) {
+		String quote = "\"";
+		if (!filePath.startsWith(quote)) return filePath;
+		return filePath.substring(1, filePath.length() - 1).replace("\\\"", "\"");
+	}
+
+	private long parseLong(int start, int end) {
+		if (start == end) throw new NumberFormatException("Expected timestamp but was empty string");
+		long result = 0;
+		for (int i = start; i < end; i++) {
+			byte b = buffer[i];
+			if (b < '0' || b > '9') throw new NumberFormatException("Expected timestamp but was: " + string(start, end));
+			result = result * 10 + (b - '0');
+		}
+		return result;
+	}
+
+	private String string(int start, int end) {
+		return new String(buffer, start, end - start, UTF_8);
+	}
+
+	private String trimmedString(int start, int end) {
+		while (start < end && isWhitespace(buffer[start])) start++;
+		while (end > start && isWhitespace(buffer[end - 1])) end--;
+		return string(start, end);
+	}
+
+	private boolean isBlank(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!isWhitespace(buffer[i])) return false;
+		}
+		return true;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\r' || b == '\n' || b == '\t';
+	}
+}
@@ -6,9 +6,7 @@ import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 import static org.vcsreader.VcsChange.Type.*;
 import static org.vcsreader.lang.StringUtil.split;
@@ -55,6 +53,21 @@ class GitCommitParser {
 		return new Commit(revision, revisionBefore, dateTime, author, message, changes);
 	}
 
+	/**
+	 * Parses output of "git log" with {@link #revisionAndChangesLogFormat()}.
+	 *
+	 * @return map from revision to unparsed list of changes (see {@link #parseListOfChanges(String, String, String)})
+	 */
+	static Map<String, String> parseChangesByRevision(String stdout) {
+		Map<String, String> result = new HashMap<>();
+		for (String s : split(stdout, commitStartSeparator)) {
+			List<String> values = split(s, commitFieldsSeparator);
+			if (values.isEmpty()) continue;
+			result.put(values.get(0), values.size() < 2 ? "" : values.get(1));
+		}
+		return result;
+	}
+
 	static List<Change> parseListOfChanges(String changesAsString, String revision, String revisionBefore) {
 		List<Change> changes = new ArrayList<>();
 
@@ -127,6 +140,10 @@ class GitCommitParser {
 		return Instant.ofEpochMilli(Long.parseLong(s) * 1000);
 	}
 
+	public static String revisionAndChangesLogFormat() {
+		return "--pretty=format:" + commitStartSeparatorFormat + "%H" + commitFieldSeparatorFormat;
+	}
+
 	public static String logFormat() {
 		// see "PRETTY FORMATS" at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
 		String commitHash = "%H";
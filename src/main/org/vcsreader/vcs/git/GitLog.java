@@ -1,5 +1,7 @@
 package org.vcsreader.vcs.git;
 
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogFilter;
 import org.vcsreader.LogResult;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsCommit;
@@ -7,12 +9,15 @@ import org.vcsreader.lang.CommandLine;
 import org.vcsreader.lang.TimeRange;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
+import org.vcsreader.vcs.CommitCompactor;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsError;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
@@ -30,16 +35,50 @@ class GitLog implements VcsCommand<LogResult> {
 	private final String gitPath;
 	private final String repoFolder;
 	private final TimeRange timeRange;
+	private final LogFilter filter;
+	private final int parseParallelism;
+	@Nullable private final CommitCompactor compactor;
 
 	private final CommandLine commandLine;
 	private final List<CommandLine> externalSubCommands = new ArrayList<>();
 
 
 	public GitLog(String gitPath, String repoFolder, TimeRange timeRange) {
+		this(gitPath, repoFolder, timeRange, 1);
+	}
+
+	/**
+	 * @param parseParallelism number of threads which parse commits while "git log" output is read
+	 */
+	public GitLog(String gitPath, String repoFolder, TimeRange timeRange, int parseParallelism) {
+		this(gitPath, repoFolder, timeRange, LogFilter.all, parseParallelism, null);
+	}
+
+	/**
+	 * @param filter is passed to "git log"
+	 * @param compactor if not null, commits are converted to compact commits while they are parsed
+	 */
+	public GitLog(String gitPath, String repoFolder, TimeRange timeRange, LogFilter filter,
+	              int parseParallelism, @Nullable CommitCompactor compactor) {
+		this(gitPath, repoFolder, timeRange, filter, parseParallelism, compactor, gitLog(gitPath, repoFolder, timeRange, filter));
+	}
+
+	/**
+	 * @param fromRevisionExclusive if null, all commits up to {@code toRevision} are requested
+	 */
+	public GitLog(String gitPath, String repoFolder, @Nullable String fromRevisionExclusive, String toRevision) {
+		this(gitPath, repoFolder, TimeRange.all, LogFilter.all, 1, null, gitLog(gitPath, repoFolder, fromRevisionExclusive, toRevision));
+	}
+
+	private GitLog(String gitPath, String repoFolder, TimeRange timeRange, LogFilter filter, int parseParallelism,
+	               @Nullable CommitCompactor compactor, CommandLine commandLine) {
 		this.gitPath = gitPath;
 		this.repoFolder = repoFolder;
 		this.timeRange = timeRange;
-		this.commandLine = gitLog(gitPath, repoFolder, timeRange);
+		this.filter = filter;
+		this.parseParallelism = parseParallelism;
+		this.compactor = compactor;
+		this.commandLine = commandLine;
 	}
 
 	@Override public LogResult execute() {
@@ -47,24 +86,78 @@ class GitLog implements VcsCommand<LogResult> {
 			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
 		}
 
-		commandLine.execute();
+		InputStream stdout = commandLine.start();
+		List<VcsCommit> commits;
+		try {
+			commits = GitCommitBytesParser.parseListOfCommits(stdout, parseParallelism, compactor);
+		} catch (RuntimeException e) {
+			// kill process because it can be blocked writing to stdout which is not read anymore
+			commandLine.kill();
+			throw e;
+		} finally {
+			commandLine.waitFor();
+		}
 
 		if (isSuccessful(commandLine)) {
-			List<VcsCommit> commits = parseListOfCommits(commandLine.stdout());
 			commits = handleFileRenamesIn(commits);
 
 			List<Exception> errors = (commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr())));
-			return new LogResult(commits, errors);
+			return filter.apply(new LogResult(commits, errors));
 		} else {
 			return new LogResult(new VcsError(commandLine.stderr()));
 		}
 	}
 
 	static CommandLine gitLog(String gitPath, String repoFolder, TimeRange timeRange) {
-		String showFileStatus = "--name-status"; // see --diff-filter at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
-		String forceUTF8ForCommitMessages = "--encoding=" + UTF_8.name();
+		return gitLog(gitPath, repoFolder, timeRangeArguments(timeRange));
+	}
 
-		List<String> arguments = new ArrayList<>(asList(gitPath, "log"));
+	static CommandLine gitLog(String gitPath, String repoFolder, TimeRange timeRange, LogFilter filter) {
+		List<String> arguments = timeRangeArguments(timeRange);
+		arguments.addAll(authorAndMessageArguments(filter));
+		arguments.addAll(pathArguments(filter));
+		return gitLog(gitPath, repoFolder, arguments);
+	}
+
+	/**
+	 * Multiple "--author" or "--grep" options match any of the values, "--author" and "--grep" together match both
+	 * (see "Commit Limiting" at https://git-scm.com/docs/git-log).
+	 */
+	static List<String> authorAndMessageArguments(LogFilter filter) {
+		if (!filter.hasAuthorsOrMessageKeywords()) return new ArrayList<>();
+
+		List<String> arguments = new ArrayList<>(asList("--fixed-strings"));
+		for (String author : filter.authors()) {
+			arguments.add("--author=" + author);
+		}
+		for (String keyword : filter.messageKeywords()) {
+			arguments.add("--grep=" + keyword);
+		}
+		return arguments;
+	}
+
+	/**
+	 * See https://git-scm.com/docs/gitglossary#Documentation/gitglossary.txt-aiddefpathspecapathspec
+	 * ("exclude" magic requires git 1.9 or later).
+	 */
+	static List<String> pathArguments(LogFilter filter) {
+		if (!filter.hasPaths()) return new ArrayList<>();
+
+		List<String> arguments = new ArrayList<>(asList("--"));
+		if (filter.includedPaths().isEmpty()) {
+			arguments.add(".");
+		}
+		for (String path : filter.includedPaths()) {
+			arguments.add(path.isEmpty() ? "." : path);
+		}
+		for (String path : filter.excludedPaths()) {
+			arguments.add(":(exclude)" + (path.isEmpty() ? "." : path));
+		}
+		return arguments;
+	}
+
+	static List<String> timeRangeArguments(TimeRange timeRange) {
+		List<String> arguments = new ArrayList<>();
 		// MIN timestamp is not handled correctly by git and must be excluded from command line.
 		if (timeRange.from() != Instant.MIN) {
 			arguments.add("--after=" + Long.toString(timeRange.from().getEpochSecond()));
@@ -72,37 +165,87 @@ class GitLog implements VcsCommand<LogResult> {
 		if (timeRange.to() != Instant.MAX) {
 			arguments.add("--before=" + Long.toString(timeRange.to().getEpochSecond() - 1));
 		}
+		return arguments;
+	}
+
+	static CommandLine gitLog(String gitPath, String repoFolder, @Nullable String fromRevisionExclusive, String toRevision) {
+		String revisionRange = fromRevisionExclusive == null ? toRevision : fromRevisionExclusive + ".." + toRevision;
+		return gitLog(gitPath, repoFolder, asList(revisionRange, "--"));
+	}
+
+	private static CommandLine gitLog(String gitPath, String repoFolder, List<String> filterArguments) {
+		String showFileStatus = "--name-status"; // see --diff-filter at https://www.kernel.org/pub/software/scm/git/docs/git-log.html
+		String forceUTF8ForCommitMessages = "--encoding=" + UTF_8.name();
+
+		List<String> arguments = new ArrayList<>(asList(gitPath, "log"));
 		arguments.addAll(asList(
 				showFileStatus,
 				forceUTF8ForCommitMessages,
 				logFormat()
 		));
+		arguments.addAll(filterArguments);
 		return new CommandLine(arguments).workingDir(repoFolder).outputCharset(UTF_8);
 	}
 
+	/**
+	 * Same as {@link #gitLogRenames(String, String, String)} but for several revisions
+	 * which are passed to git via stdin.
+	 */
+	static CommandLine gitLogRenames(String gitPath, String folder, List<String> revisions) {
+		return new CommandLine(
+				gitPath, "log", "--no-walk=unsorted", "--stdin",
+				"-M", "--name-status", revisionAndChangesLogFormat()
+		).workingDir(folder).input(String.join("\n", revisions) + "\n");
+	}
+
 	static CommandLine gitLogRenames(String gitPath, String folder, String revision) {
 		// based on git4idea.history.GitHistoryUtils#getFirstCommitRenamePath
 		return new CommandLine(gitPath, "show", "-M", "--pretty=format:", "--name-status", revision).workingDir(folder);
 	}
 
+	/**
+	 * Requests renames for all commits with potential renames using single git command
+	 * (as opposed to running "git show" for each commit).
+	 */
 	private List<VcsCommit> handleFileRenamesIn(List<VcsCommit> commits) {
+		List<String> revisions = new ArrayList<>();
+		for (VcsCommit commit : commits) {
+			if (hasPotentialRenames(commit)) revisions.add(commit.getRevision());
+		}
+		if (revisions.isEmpty()) return commits;
+
+		CommandLine commandLine = gitLogRenames(gitPath, repoFolder, revisions);
+		externalSubCommands.add(commandLine);
+		commandLine.execute();
+		if (!isSuccessful(commandLine)) return commits;
+
+		Map<String, String> changesByRevision = parseChangesByRevision(commandLine.stdout());
 		List<VcsCommit> result = new ArrayList<>();
 		for (VcsCommit commit : commits) {
-			if (hasPotentialRenames(commit)) {
-				CommandLine commandLine = gitLogRenames(gitPath, repoFolder, commit.getRevision());
-				externalSubCommands.add(commandLine);
-				commandLine.execute();
-
-				if (isSuccessful(commandLine)) {
-					List<Change> updatedChanges = parseListOfChanges(commandLine.stdout(), commit.getRevision(), commit.getRevisionBefore());
-					commit = new Commit(commit.getRevision(), commit.getRevisionBefore(), commit.getDateTime(), commit.getAuthor(), commit.getMessage(), updatedChanges);
-				}
+			String changes = changesByRevision.get(commit.getRevision());
+			if (changes != null) {
+				List<Change> updatedChanges = parseListOfChanges(changes, commit.getRevision(), commit.getRevisionBefore());
+				commit = commit.withChanges(updatedChanges);
 			}
 			result.add(commit);
 		}
 		return result;
 	}
 
+	static VcsCommit handleFileRenamesIn(VcsCommit commit, String gitPath, String repoFolder, List<CommandLine> externalSubCommands) {
+		if (!hasPotentialRenames(commit)) return commit;
+
+		CommandLine commandLine = gitLogRenames(gitPath, repoFolder, commit.getRevision());
+		externalSubCommands.add(commandLine);
+		commandLine.execute();
+
+		if (isSuccessful(commandLine)) {
+			List<Change> updatedChanges = parseListOfChanges(commandLine.stdout(), commit.getRevision(), commit.getRevisionBefore());
+			commit = new Commit(commit.getRevision(), commit.getRevisionBefore(), commit.getDateTime(), commit.getAuthor(), commit.getMessage(), updatedChanges);
+		}
+		return commit;
+	}
+
 	private static boolean hasPotentialRenames(VcsCommit commit) {
 		boolean hasDeletions = false;
 		boolean hasAdditions = false;
@@ -113,6 +256,14 @@ class GitLog implements VcsCommand<LogResult> {
 		return hasDeletions && hasAdditions;
 	}
 
+	/**
+	 * Unlike {@link LogResult#isSuccessful()}, doesn't depend on warnings which git might print to stderr.
+	 * Should be called after {@link #execute()}.
+	 */
+	boolean isCommandSuccessful() {
+		return isSuccessful(commandLine);
+	}
+
 	@Override public String describe() {
 		String result = commandLine.describe();
 		for (CommandLine commandLine : externalSubCommands) {
@@ -139,6 +290,7 @@ class GitLog implements VcsCommand<LogResult> {
 		if (gitPath != null ? !gitPath.equals(gitLog.gitPath) : gitLog.gitPath != null) return false;
 		if (repoFolder != null ? !repoFolder.equals(gitLog.repoFolder) : gitLog.repoFolder != null) return false;
 		if (timeRange != null ? !timeRange.equals(gitLog.timeRange) : gitLog.timeRange != null) return false;
+		if (filter != null ? !filter.equals(gitLog.filter) : gitLog.filter != null) return false;
 		if (commandLine != null ? !commandLine.equals(gitLog.commandLine) : gitLog.commandLine != null) return false;
 		return externalSubCommands != null ? externalSubCommands.equals(gitLog.externalSubCommands) : gitLog.externalSubCommands == null;
 	}
@@ -147,6 +299,7 @@ class GitLog implements VcsCommand<LogResult> {
 		int result = gitPath != null ? gitPath.hashCode() : 0;
 		result = 31 * result + (repoFolder != null ? repoFolder.hashCode() : 0);
 		result = 31 * result + (timeRange != null ? timeRange.hashCode() : 0);
+		result = 31 * result + (filter != null ? filter.hashCode() : 0);
 		result = 31 * result + (commandLine != null ? commandLine.hashCode() : 0);
 		result = 31 * result + (externalSubCommands != null ? externalSubCommands.hashCode() : 0);
 		return result;
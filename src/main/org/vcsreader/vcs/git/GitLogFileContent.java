@@ -2,6 +2,7 @@ package org.vcsreader.vcs.git;
 
 import org.vcsreader.LogFileContentResult;
 import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.FileCharsetMemo;
 import org.vcsreader.vcs.VcsCommand;
 
 import java.nio.charset.Charset;
@@ -23,26 +24,34 @@ class GitLogFileContent implements VcsCommand<LogFileContentResult> {
 	private final String filePath;
 	private final String revision;
 	private final Charset charset;
+	private final FileCharsetMemo charsetMemo;
 	private final CommandLine commandLine;
 
-	GitLogFileContent(String gitPath, String repoFolder, String filePath, String revision, Charset charset) {
+	GitLogFileContent(String gitPath, String repoFolder, String filePath, String revision, Charset charset, FileCharsetMemo charsetMemo) {
 		this.gitPath = gitPath;
 		this.repoFolder = repoFolder;
 		this.filePath = filePath;
 		this.revision = revision;
 		this.charset = charset;
-		this.commandLine = gitLogFileContent(gitPath, repoFolder, filePath, revision, charset);
+		this.charsetMemo = charsetMemo;
+		this.commandLine = gitLogFileContent(gitPath, repoFolder, filePath, revision, charset)
+				.charsetGuess(charsetMemo.charsetOf(filePath));
 	}
 
 	static CommandLine gitLogFileContent(String pathToGit, String repoFolder, String filePath, String revision, Charset charset) {
 		CommandLine commandLine = new CommandLine(pathToGit, "show", revision + ":" + filePath);
-		return commandLine.workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true);
+		return commandLine.workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true).detectBinaryOutput(true);
 	}
 
 	@Override public LogFileContentResult execute() {
 		commandLine.execute();
 		if (isSuccessful(commandLine)) {
-			return new LogFileContentResult(trimLastNewLine(commandLine.stdout()));
+			byte[] binaryContent = commandLine.binaryStdout();
+			if (binaryContent != null) return new LogFileContentResult(binaryContent);
+
+			String text = commandLine.stdout();
+			charsetMemo.update(filePath, commandLine.detectedCharset());
+			return new LogFileContentResult(trimLastNewLine(text));
 		} else {
 			return new LogFileContentResult(commandLine.stderr(), commandLine.exitCode());
 		}
@@ -0,0 +1,41 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.vcs.VcsCommand;
+
+/**
+ * Same as {@link GitLogFileContent} but uses long-running {@link GitCatFileBatch} process.
+ */
+class GitLogFileContentFromBatch implements VcsCommand<LogFileContentResult> {
+	private final GitCatFileBatch catFileBatch;
+	private final String filePath;
+	private final String revision;
+
+
+	GitLogFileContentFromBatch(GitCatFileBatch catFileBatch, String filePath, String revision) {
+		this.catFileBatch = catFileBatch;
+		this.filePath = filePath;
+		this.revision = revision;
+	}
+
+	@Override public LogFileContentResult execute() {
+		return catFileBatch.logFileContent(filePath, revision);
+	}
+
+	@Override public String describe() {
+		return catFileBatch.describe() + ": " + revision + ":" + filePath;
+	}
+
+	@Override public boolean cancel() {
+		catFileBatch.close();
+		return true;
+	}
+
+	@Override public String toString() {
+		return "GitLogFileContentFromBatch{" +
+				"catFileBatch=" + catFileBatch +
+				", filePath='" + filePath + '\'' +
+				", revision='" + revision + '\'' +
+				'}';
+	}
+}
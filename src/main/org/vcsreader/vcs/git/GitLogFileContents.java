@@ -0,0 +1,48 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.lang.Pair;
+import org.vcsreader.vcs.VcsCommand;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads contents of several files using {@link GitCatFileBatch}.
+ */
+class GitLogFileContents implements VcsCommand<List<LogFileContentResult>> {
+	private final GitCatFileBatch catFileBatch;
+	private final List<Pair<String, String>> filePathsAndRevisions;
+
+
+	GitLogFileContents(GitCatFileBatch catFileBatch, List<Pair<String, String>> filePathsAndRevisions) {
+		this.catFileBatch = catFileBatch;
+		this.filePathsAndRevisions = filePathsAndRevisions;
+	}
+
+	@Override public List<LogFileContentResult> execute() {
+		List<String> filePaths = new ArrayList<>();
+		List<String> revisions = new ArrayList<>();
+		for (Pair<String, String> filePathAndRevision : filePathsAndRevisions) {
+			filePaths.add(filePathAndRevision.first);
+			revisions.add(filePathAndRevision.second);
+		}
+		return catFileBatch.logFileContents(filePaths, revisions);
+	}
+
+	@Override public String describe() {
+		return catFileBatch.describe() + ": " + filePathsAndRevisions.size() + " files";
+	}
+
+	@Override public boolean cancel() {
+		catFileBatch.close();
+		return true;
+	}
+
+	@Override public String toString() {
+		return "GitLogFileContents{" +
+				"catFileBatch=" + catFileBatch +
+				", filePathsAndRevisions=" + filePathsAndRevisions.size() +
+				'}';
+	}
+}
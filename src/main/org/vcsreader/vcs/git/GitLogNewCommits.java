@@ -0,0 +1,88 @@
+package org.vcsreader.vcs.git;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogResult;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import static org.vcsreader.vcs.git.GitUtil.containsGitRepo;
+import static org.vcsreader.vcs.git.GitUtil.isSuccessful;
+
+/**
+ * Requests commits which are not in {@link CommitCache} yet,
+ * i.e. commits reachable from HEAD but not from the last cached revision.
+ */
+class GitLogNewCommits implements VcsCommand<CommitCache.Update> {
+	private final String gitPath;
+	private final String repoFolder;
+	@Nullable private final String fromRevisionExclusive;
+	private final CommandLine commandLine;
+	private volatile CommandLine isAncestorCommandLine;
+	private volatile GitLog gitLog;
+
+
+	public GitLogNewCommits(String gitPath, String repoFolder, @Nullable String fromRevisionExclusive) {
+		this.gitPath = gitPath;
+		this.repoFolder = repoFolder;
+		this.fromRevisionExclusive = fromRevisionExclusive;
+		this.commandLine = gitHeadRevision(gitPath, repoFolder);
+	}
+
+	@Override public CommitCache.Update execute() {
+		if (!containsGitRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
+		}
+
+		commandLine.execute();
+		if (!isSuccessful(commandLine)) {
+			return new CommitCache.Update(null, new LogResult(new VcsError(commandLine.stderr())), false);
+		}
+		String headRevision = commandLine.stdout().trim();
+		if (headRevision.equals(fromRevisionExclusive)) {
+			return new CommitCache.Update(headRevision, new LogResult(), false);
+		}
+
+		String fromRevision = fromRevisionExclusive;
+		if (fromRevision != null) {
+			// Cached revision can disappear from history (e.g. after force push), in which case all commits are requested again.
+			isAncestorCommandLine = gitIsAncestor(gitPath, repoFolder, fromRevision, headRevision);
+			if (!isSuccessful(isAncestorCommandLine.execute())) fromRevision = null;
+		}
+
+		gitLog = new GitLog(gitPath, repoFolder, fromRevision, headRevision);
+		LogResult logResult = gitLog.execute();
+		return new CommitCache.Update(gitLog.isCommandSuccessful() ? headRevision : null, logResult, fromRevision == null);
+	}
+
+	static CommandLine gitHeadRevision(String gitPath, String repoFolder) {
+		return new CommandLine(gitPath, "rev-parse", "--verify", "HEAD").workingDir(repoFolder);
+	}
+
+	static CommandLine gitIsAncestor(String gitPath, String repoFolder, String revision, String descendantRevision) {
+		return new CommandLine(gitPath, "merge-base", "--is-ancestor", revision, descendantRevision).workingDir(repoFolder);
+	}
+
+	@Override public String describe() {
+		String result = commandLine.describe();
+		if (isAncestorCommandLine != null) result += "\n" + isAncestorCommandLine.describe();
+		if (gitLog != null) result += "\n" + gitLog.describe();
+		return result;
+	}
+
+	@Override public boolean cancel() {
+		boolean notRunning = commandLine.kill();
+		if (isAncestorCommandLine != null) notRunning &= isAncestorCommandLine.kill();
+		if (gitLog != null) notRunning &= gitLog.cancel();
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "GitLogNewCommits{" +
+				"gitPath='" + gitPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", fromRevisionExclusive='" + fromRevisionExclusive + '\'' +
+				'}';
+	}
+}
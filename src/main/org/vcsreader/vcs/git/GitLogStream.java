@@ -0,0 +1,98 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.git.GitLog.gitLog;
+import static org.vcsreader.vcs.git.GitLog.handleFileRenamesIn;
+import static org.vcsreader.vcs.git.GitUtil.containsGitRepo;
+import static org.vcsreader.vcs.git.GitUtil.isSuccessful;
+
+/**
+ * Streaming version of {@link GitLog}.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to GitLog
+class GitLogStream implements VcsCommand<LogStream> {
+	private final String gitPath;
+	private final String repoFolder;
+	private final TimeRange timeRange;
+
+	private final CommandLine commandLine;
+	private final List<CommandLine> externalSubCommands = new ArrayList<>();
+
+
+	public GitLogStream(String gitPath, String repoFolder, TimeRange timeRange) {
+		this.gitPath = gitPath;
+		this.repoFolder = repoFolder;
+		this.timeRange = timeRange;
+		this.commandLine = gitLog(gitPath, repoFolder, timeRange);
+	}
+
+	@Override public LogStream execute() {
+		if (!containsGitRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
+		}
+
+		Iterator<VcsCommit> commits = GitCommitBytesParser.parseCommits(commandLine.start());
+
+		Iterator<VcsCommit> commitsWithRenames = new Iterator<VcsCommit>() {
+			@Override public boolean hasNext() {
+				return commits.hasNext();
+			}
+
+			@Override public VcsCommit next() {
+				// keep only the last sub-command so that memory usage doesn't grow with the number of commits
+				externalSubCommands.clear();
+				return handleFileRenamesIn(commits.next(), gitPath, repoFolder, externalSubCommands);
+			}
+		};
+
+		return new LogStream(commitsWithRenames, new LogStream.Source() {
+			@Override public List<Exception> finish() {
+				commandLine.waitFor();
+				if (isSuccessful(commandLine)) {
+					return commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+				} else {
+					return asList(new VcsError(commandLine.stderr()));
+				}
+			}
+
+			@Override public void cancel() {
+				GitLogStream.this.cancel();
+			}
+		});
+	}
+
+	@Override public String describe() {
+		String result = commandLine.describe();
+		for (CommandLine commandLine : externalSubCommands) {
+			result += "\n" + commandLine.describe();
+		}
+		return result;
+	}
+
+	@Override public boolean cancel() {
+		boolean notRunning = commandLine.kill();
+		for (CommandLine command : externalSubCommands) {
+			notRunning &= command.kill();
+		}
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "GitLogStream{" +
+				"gitPath='" + gitPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", timeRange=" + timeRange +
+				'}';
+	}
+}
@@ -0,0 +1,175 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.ParallelTasks;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.git.GitUtil.containsGitRepo;
+import static org.vcsreader.vcs.git.GitUtil.isSuccessful;
+
+/**
+ * Splits time range into several sub-ranges with approximately the same number of commits
+ * and runs {@link GitLog} for each of them concurrently (i.e. both "git log" processes and parsing run in parallel).
+ * Commits are returned in the same order as from single {@link GitLog}, i.e. starting with the latest sub-range.
+ * <p>
+ * Sub-ranges are based on commit times requested with "git log --format=%ct" which is much cheaper than
+ * full log because it doesn't need to diff commits (and is fast if repository has commit-graph).
+ * Commit time (as opposed to author time) is used because this is how git filters by date.
+ */
+class GitParallelLog implements VcsCommand<LogResult> {
+	static final int defaultMinCommitsPerSlice = 1000;
+
+	private final String gitPath;
+	private final String repoFolder;
+	private final TimeRange timeRange;
+	private final int parallelism;
+	private final int minCommitsPerSlice;
+	private final List<VcsCommand<?>> commands = new CopyOnWriteArrayList<>();
+	private final CommandLine commitTimesCommand;
+	private volatile boolean isCancelled;
+
+
+	public GitParallelLog(String gitPath, String repoFolder, TimeRange timeRange, int parallelism) {
+		this(gitPath, repoFolder, timeRange, parallelism, defaultMinCommitsPerSlice);
+	}
+
+	/**
+	 * @param minCommitsPerSlice time range is not split if sub-ranges would have fewer commits than this
+	 *                           (because starting git processes has overhead)
+	 */
+	public GitParallelLog(String gitPath, String repoFolder, TimeRange timeRange, int parallelism, int minCommitsPerSlice) {
+		this.gitPath = gitPath;
+		this.repoFolder = repoFolder;
+		this.timeRange = timeRange;
+		this.parallelism = parallelism;
+		this.minCommitsPerSlice = minCommitsPerSlice;
+		this.commitTimesCommand = gitLogCommitTimes(gitPath, repoFolder, timeRange);
+	}
+
+	@Override public LogResult execute() {
+		if (!containsGitRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
+		}
+
+		commitTimesCommand.execute();
+		if (!isSuccessful(commitTimesCommand)) return new LogResult(new VcsError(commitTimesCommand.stderr()));
+
+		List<TimeRange> slices = slice(timeRange, parseCommitTimes(commitTimesCommand.stdout()), parallelism, minCommitsPerSlice);
+		List<Callable<LogResult>> tasks = new ArrayList<>();
+		for (int i = slices.size() - 1; i >= 0; i--) {
+			GitLog gitLog = new GitLog(gitPath, repoFolder, slices.get(i));
+			tasks.add(() -> {
+				if (isCancelled) return new LogResult();
+				commands.add(gitLog);
+				return gitLog.execute();
+			});
+		}
+		return execute(tasks);
+	}
+
+	private LogResult execute(List<Callable<LogResult>> tasks) {
+		if (tasks.size() == 1) {
+			try {
+				return tasks.get(0).call();
+			} catch (Exception e) {
+				return new LogResult(e);
+			}
+		}
+		try {
+			List<VcsCommit> commits = new ArrayList<>();
+			List<Exception> exceptions = new ArrayList<>();
+			for (Future<LogResult> future : ParallelTasks.invokeAll(tasks, tasks.size())) {
+				try {
+					LogResult logResult = future.get();
+					commits.addAll(logResult.commits());
+					exceptions.addAll(logResult.exceptions());
+				} catch (ExecutionException e) {
+					exceptions.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+				}
+			}
+			return new LogResult(commits, exceptions);
+		} catch (InterruptedException e) {
+			cancel();
+			Thread.currentThread().interrupt();
+			return new LogResult(e);
+		}
+	}
+
+	static CommandLine gitLogCommitTimes(String gitPath, String repoFolder, TimeRange timeRange) {
+		List<String> arguments = new ArrayList<>(asList(gitPath, "log", "--format=%ct"));
+		arguments.addAll(GitLog.timeRangeArguments(timeRange));
+		return new CommandLine(arguments).workingDir(repoFolder);
+	}
+
+	static long[] parseCommitTimes(String stdout) {
+		String[] lines = stdout.split("\n");
+		long[] result = new long[lines.length];
+		int count = 0;
+		for (String line : lines) {
+			line = line.trim();
+			if (!line.isEmpty()) result[count++] = Long.parseLong(line);
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * @param commitTimes commit times in seconds (in any order)
+	 * @return consecutive sub-ranges which cover the whole time range
+	 */
+	static List<TimeRange> slice(TimeRange timeRange, long[] commitTimes, int maxSlices, int minCommitsPerSlice) {
+		int sliceCount = Math.min(maxSlices, commitTimes.length / Math.max(1, minCommitsPerSlice));
+		if (sliceCount <= 1) return asList(timeRange);
+
+		long[] sortedTimes = commitTimes.clone();
+		Arrays.sort(sortedTimes);
+
+		List<TimeRange> result = new ArrayList<>();
+		Instant from = timeRange.from();
+		for (int i = 1; i < sliceCount; i++) {
+			Instant to = Instant.ofEpochSecond(sortedTimes[i * sortedTimes.length / sliceCount]);
+			// there can be many commits with the same time, so some slices might be merged
+			if (!to.isAfter(from) || !to.isBefore(timeRange.to())) continue;
+			result.add(new TimeRange(from, to));
+			from = to;
+		}
+		result.add(new TimeRange(from, timeRange.to()));
+		return result;
+	}
+
+	@Override public String describe() {
+		StringBuilder result = new StringBuilder(commitTimesCommand.describe());
+		for (VcsCommand<?> command : commands) {
+			result.append("\n").append(command.describe());
+		}
+		return result.toString();
+	}
+
+	@Override public boolean cancel() {
+		isCancelled = true;
+		boolean notRunning = commitTimesCommand.kill();
+		for (VcsCommand<?> command : commands) {
+			notRunning &= command.cancel();
+		}
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "GitParallelLog{" +
+				"gitPath='" + gitPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", timeRange=" + timeRange +
+				", parallelism=" + parallelism +
+				'}';
+	}
+}
@@ -1,6 +1,10 @@
 package org.vcsreader.vcs.git;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.CompactCommit;
+import org.vcsreader.vcs.FileContentCache;
 
 import java.nio.charset.Charset;
 
@@ -10,6 +14,12 @@ public class GitSettings {
 	private final String gitPath;
 	private final Charset defaultFileCharset;
 	private final boolean failFast;
+	@Nullable private final CommitCache commitCache;
+	@Nullable private final FileContentCache fileContentCache;
+	private final boolean useCatFileBatch;
+	private final int logParallelism;
+	private final int logParseParallelism;
+	private final boolean compactCommits;
 
 	/**
 	 * @param gitPath            path to git executable
@@ -19,9 +29,21 @@ public class GitSettings {
 	 *                           otherwise will aggregate all exceptions/errors into result object
 	 */
 	public GitSettings(@NotNull String gitPath, @NotNull Charset defaultFileCharset, boolean failFast) {
+		this(gitPath, defaultFileCharset, failFast, null, null, false, 1, 1, false);
+	}
+
+	private GitSettings(@NotNull String gitPath, @NotNull Charset defaultFileCharset, boolean failFast,
+	                    @Nullable CommitCache commitCache, @Nullable FileContentCache fileContentCache, boolean useCatFileBatch,
+	                    int logParallelism, int logParseParallelism, boolean compactCommits) {
 		this.gitPath = gitPath;
 		this.defaultFileCharset = defaultFileCharset;
 		this.failFast = failFast;
+		this.commitCache = commitCache;
+		this.fileContentCache = fileContentCache;
+		this.useCatFileBatch = useCatFileBatch;
+		this.logParallelism = logParallelism;
+		this.logParseParallelism = logParseParallelism;
+		this.compactCommits = compactCommits;
 	}
 
 	public static GitSettings defaults() {
@@ -29,15 +51,57 @@ public class GitSettings {
 	}
 
 	public GitSettings withGitPath(String value) {
-		return new GitSettings(value, defaultFileCharset, failFast);
+		return new GitSettings(value, defaultFileCharset, failFast, commitCache, fileContentCache, useCatFileBatch, logParallelism, logParseParallelism, compactCommits);
 	}
 
 	public GitSettings withDefaultFileCharset(Charset value) {
-		return new GitSettings(gitPath, value, failFast);
+		return new GitSettings(gitPath, value, failFast, commitCache, fileContentCache, useCatFileBatch, logParallelism, logParseParallelism, compactCommits);
 	}
 
 	public GitSettings withFailFast(boolean value) {
-		return new GitSettings(gitPath, defaultFileCharset, value);
+		return new GitSettings(gitPath, defaultFileCharset, value, commitCache, fileContentCache, useCatFileBatch, logParallelism, logParseParallelism, compactCommits);
+	}
+
+	public GitSettings withCommitCache(@Nullable CommitCache value) {
+		return new GitSettings(gitPath, defaultFileCharset, failFast, value, fileContentCache, useCatFileBatch, logParallelism, logParseParallelism, compactCommits);
+	}
+
+	public GitSettings withFileContentCache(@Nullable FileContentCache value) {
+		return new GitSettings(gitPath, defaultFileCharset, failFast, commitCache, value, useCatFileBatch, logParallelism, logParseParallelism, compactCommits);
+	}
+
+	/**
+	 * @param value if true, file contents will be read by long-running "git cat-file --batch" process
+	 *              instead of starting "git show" for each file
+	 */
+	public GitSettings withCatFileBatch(boolean value) {
+		return new GitSettings(gitPath, defaultFileCharset, failFast, commitCache, fileContentCache, value, logParallelism, logParseParallelism, compactCommits);
+	}
+
+	/**
+	 * @param value max number of "git log" commands which can run concurrently for different parts of time range
+	 *              (time range is split only if it has enough commits)
+	 */
+	public GitSettings withLogParallelism(int value) {
+		if (value < 1) throw new IllegalArgumentException("Parallelism must be positive: " + value);
+		return new GitSettings(gitPath, defaultFileCharset, failFast, commitCache, fileContentCache, useCatFileBatch, value, logParseParallelism, compactCommits);
+	}
+
+	/**
+	 * @param value number of threads which parse commits while log command output is read
+	 *              (if 1, commits are parsed by the thread which reads the output)
+	 */
+	public GitSettings withLogParseParallelism(int value) {
+		if (value < 1) throw new IllegalArgumentException("Parallelism must be positive: " + value);
+		return new GitSettings(gitPath, defaultFileCharset, failFast, commitCache, fileContentCache, useCatFileBatch, logParallelism, value, compactCommits);
+	}
+
+	/**
+	 * @param value if true, log results will contain {@link CompactCommit}s which use less memory than default commits
+	 *              (e.g. for histories with millions of changes)
+	 */
+	public GitSettings withCompactCommits(boolean value) {
+		return new GitSettings(gitPath, defaultFileCharset, failFast, commitCache, fileContentCache, useCatFileBatch, logParallelism, logParseParallelism, value);
 	}
 
 	@NotNull public String gitPath() {
@@ -52,6 +116,30 @@ public class GitSettings {
 		return failFast;
 	}
 
+	@Nullable public CommitCache commitCache() {
+		return commitCache;
+	}
+
+	@Nullable public FileContentCache fileContentCache() {
+		return fileContentCache;
+	}
+
+	public boolean useCatFileBatch() {
+		return useCatFileBatch;
+	}
+
+	public int logParallelism() {
+		return logParallelism;
+	}
+
+	public int logParseParallelism() {
+		return logParseParallelism;
+	}
+
+	public boolean compactCommits() {
+		return compactCommits;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -59,14 +147,26 @@ public class GitSettings {
 		GitSettings that = (GitSettings) o;
 
 		return failFast == that.failFast &&
+				useCatFileBatch == that.useCatFileBatch &&
+				logParallelism == that.logParallelism &&
+				logParseParallelism == that.logParseParallelism &&
+				compactCommits == that.compactCommits &&
 				gitPath.equals(that.gitPath) &&
-				defaultFileCharset.equals(that.defaultFileCharset);
+				defaultFileCharset.equals(that.defaultFileCharset) &&
+				(commitCache != null ? commitCache.equals(that.commitCache) : that.commitCache == null) &&
+				(fileContentCache != null ? fileContentCache.equals(that.fileContentCache) : that.fileContentCache == null);
 	}
 
 	@Override public int hashCode() {
 		int result = gitPath.hashCode();
 		result = 31 * result + defaultFileCharset.hashCode();
 		result = 31 * result + (failFast ? 1 : 0);
+		result = 31 * result + (commitCache != null ? commitCache.hashCode() : 0);
+		result = 31 * result + (fileContentCache != null ? fileContentCache.hashCode() : 0);
+		result = 31 * result + (useCatFileBatch ? 1 : 0);
+		result = 31 * result + logParallelism;
+		result = 31 * result + logParseParallelism;
+		result = 31 * result + (compactCommits ? 1 : 0);
 		return result;
 	}
 
@@ -75,6 +175,12 @@ public class GitSettings {
 				"gitPath='" + gitPath + '\'' +
 				", defaultFileCharset=" + defaultFileCharset +
 				", failFast=" + failFast +
+				", commitCache=" + commitCache +
+				", fileContentCache=" + fileContentCache +
+				", useCatFileBatch=" + useCatFileBatch +
+				", logParallelism=" + logParallelism +
+				", logParseParallelism=" + logParseParallelism +
+				", compactCommits=" + compactCommits +
 				'}';
 	}
 }
@@ -3,15 +3,33 @@ package org.vcsreader.vcs.git;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.vcsreader.*;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.Pair;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.CommitCompactor;
+import org.vcsreader.vcs.FileCharsetMemo;
+import org.vcsreader.vcs.FileContentCache;
+import org.vcsreader.vcs.LogFileContentStream;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
-public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.vcsreader.vcs.git.GitLogFileContent.gitLogFileContent;
+
+public class GitVcsRoot implements VcsRoot, VcsCommand.Observer, Closeable {
 	@NotNull private final String repoFolder;
 	@Nullable private final String repoUrl;
 	@NotNull private final GitSettings settings;
 	private final VcsCommand.Listener listener;
+	@Nullable private final GitCatFileBatch catFileBatch;
+	private final FileCharsetMemo charsetMemo;
 	private volatile VcsCommand lastCommand;
 
 
@@ -20,7 +38,7 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 	}
 
 	public GitVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl) {
-		this(repoFolder, repoUrl, GitSettings.defaults(), VcsCommand.Listener.none);
+		this(repoFolder, repoUrl, GitSettings.defaults());
 	}
 
 	/**
@@ -30,19 +48,27 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 	 * @param settings   settings which will be used by VCS commands executed on this root
 	 */
 	public GitVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl, GitSettings settings) {
-		this(repoFolder, repoUrl, settings, VcsCommand.Listener.none);
+		this(repoFolder, repoUrl, settings, VcsCommand.Listener.none, new FileCharsetMemo());
 	}
 
 	private GitVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl,
-	                   @NotNull GitSettings settings, VcsCommand.Listener listener) {
+	                   @NotNull GitSettings settings, VcsCommand.Listener listener, FileCharsetMemo charsetMemo) {
+		this(repoFolder, repoUrl, settings, listener, charsetMemo,
+				settings.useCatFileBatch() ? new GitCatFileBatch(settings.gitPath(), repoFolder, settings.defaultFileCharset(), charsetMemo) : null);
+	}
+
+	private GitVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl, @NotNull GitSettings settings,
+	                   VcsCommand.Listener listener, FileCharsetMemo charsetMemo, @Nullable GitCatFileBatch catFileBatch) {
 		this.repoFolder = repoFolder;
 		this.repoUrl = repoUrl;
 		this.settings = settings;
 		this.listener = listener;
+		this.charsetMemo = charsetMemo;
+		this.catFileBatch = catFileBatch;
 	}
 
 	@Override public GitVcsRoot withListener(VcsCommand.Listener listener) {
-		return new GitVcsRoot(repoFolder, repoUrl, settings, listener);
+		return new GitVcsRoot(repoFolder, repoUrl, settings, listener, charsetMemo, catFileBatch);
 	}
 
 	@Override public CloneResult cloneIt() {
@@ -57,14 +83,99 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 	}
 
 	@Override public LogResult log(TimeRange timeRange) {
-		return execute(new GitLog(settings.gitPath(), repoFolder, timeRange), LogResult.adapter);
+		return log(timeRange, LogFilter.all);
+	}
+
+	/**
+	 * Filter is passed to "git log" unless commit cache or parallel log is used.
+	 */
+	@Override public LogResult log(TimeRange timeRange, LogFilter filter) {
+		CommitCache commitCache = settings.commitCache();
+		if (commitCache == null) {
+			if (settings.logParallelism() > 1) {
+				LogResult logResult = execute(new GitParallelLog(settings.gitPath(), repoFolder, timeRange, settings.logParallelism()), LogResult.adapter);
+				logResult = filter.apply(logResult);
+				return settings.compactCommits() ? logResult.compact() : logResult;
+			}
+			CommitCompactor compactor = settings.compactCommits() ? new CommitCompactor() : null;
+			GitLog gitLog = new GitLog(settings.gitPath(), repoFolder, timeRange, filter, settings.logParseParallelism(), compactor);
+			return execute(gitLog, LogResult.adapter);
+		}
+		LogResult logResult = commitCache.log(cacheKey(), timeRange, fromRevision ->
+				execute(new GitLogNewCommits(settings.gitPath(), repoFolder, fromRevision), CommitCache.Update.adapter)
+		);
+		logResult = filter.apply(logResult);
+		return settings.compactCommits() ? logResult.compact() : logResult;
+	}
+
+	/**
+	 * Runs "git log fromRevision..toRevision", i.e. requests commits reachable from {@code toRevision}
+	 * but not from {@code fromRevisionExclusive}. Commit cache is not used.
+	 */
+	@Override public LogResult log(@Nullable String fromRevisionExclusive, String toRevision) {
+		LogResult logResult = execute(new GitLog(settings.gitPath(), repoFolder, fromRevisionExclusive, toRevision), LogResult.adapter);
+		return settings.compactCommits() ? logResult.compact() : logResult;
+	}
+
+	@Override public LogStream logStream(TimeRange timeRange) {
+		return executeStream(new GitLogStream(settings.gitPath(), repoFolder, timeRange), LogStream.adapter, LogStream::whenFinished);
 	}
 
 	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
-		GitLogFileContent logFileContent = new GitLogFileContent(settings.gitPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
+		FileContentCache fileContentCache = settings.fileContentCache();
+		if (fileContentCache == null) {
+			return logFileContentFromVcs(filePath, revision);
+		}
+		String rootKey = cacheKey() + ":" + settings.defaultFileCharset();
+		return fileContentCache.logFileContent(rootKey, filePath, revision, () -> logFileContentFromVcs(filePath, revision));
+	}
+
+	/**
+	 * Content is always requested from VCS, i.e. it's not looked up in {@link FileContentCache}.
+	 */
+	@Override public FileContentStream logFileContentStream(String filePath, String revision) {
+		CommandLine commandLine = gitLogFileContent(settings.gitPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
+		LogFileContentStream logFileContentStream = new LogFileContentStream(commandLine, filePath, charsetMemo, GitUtil::isSuccessful);
+		return executeStream(logFileContentStream, FileContentStream.adapter, FileContentStream::whenClosed);
+	}
+
+	/**
+	 * Reads all files with "git cat-file --batch" process (see also {@link GitSettings#withCatFileBatch(boolean)}).
+	 */
+	@Override public List<LogFileContentResult> logFileContents(List<Pair<String, String>> filePathsAndRevisions) {
+		FileContentCache fileContentCache = settings.fileContentCache();
+		if (fileContentCache == null) {
+			return logFileContentsFromVcs(filePathsAndRevisions);
+		}
+		String rootKey = cacheKey() + ":" + settings.defaultFileCharset();
+		return fileContentCache.logFileContents(rootKey, filePathsAndRevisions, this::logFileContentsFromVcs);
+	}
+
+	private List<LogFileContentResult> logFileContentsFromVcs(List<Pair<String, String>> filePathsAndRevisions) {
+		GitCatFileBatch batch = catFileBatch != null ? catFileBatch :
+				new GitCatFileBatch(settings.gitPath(), repoFolder, settings.defaultFileCharset(), charsetMemo);
+		try {
+			return execute(
+					new GitLogFileContents(batch, filePathsAndRevisions),
+					e -> new ArrayList<>(Collections.nCopies(filePathsAndRevisions.size(), new LogFileContentResult(e)))
+			);
+		} finally {
+			if (batch != catFileBatch) batch.close();
+		}
+	}
+
+	private LogFileContentResult logFileContentFromVcs(String filePath, String revision) {
+		if (catFileBatch != null) {
+			return execute(new GitLogFileContentFromBatch(catFileBatch, filePath, revision), LogFileContentResult.adapter);
+		}
+		GitLogFileContent logFileContent = new GitLogFileContent(settings.gitPath(), repoFolder, filePath, revision, settings.defaultFileCharset(), charsetMemo);
 		return execute(logFileContent, LogFileContentResult.adapter);
 	}
 
+	private String cacheKey() {
+		return "git:" + new File(repoFolder).getAbsolutePath();
+	}
+
 	private <T> T execute(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper) {
 		try {
 			lastCommand = vcsCommand;
@@ -74,6 +185,14 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 		}
 	}
 
+	private <T> T executeStream(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper, BiFunction<T, Runnable, T> whenFinished) {
+		// command is still running after the stream was returned, so it's unregistered when the stream has finished
+		lastCommand = vcsCommand;
+		return VcsCommand.executeStream(vcsCommand, exceptionWrapper, listener, settings.failFast(), whenFinished, () -> {
+			if (lastCommand == vcsCommand) lastCommand = null;
+		});
+	}
+
 	@Override @NotNull public String repoFolder() {
 		return repoFolder;
 	}
@@ -87,6 +206,13 @@ public class GitVcsRoot implements VcsRoot, VcsCommand.Observer {
 		return command == null || command.cancel();
 	}
 
+	/**
+	 * Stops "git cat-file" process if it was started (see {@link GitSettings#withCatFileBatch(boolean)}).
+	 */
+	@Override public void close() {
+		if (catFileBatch != null) catFileBatch.close();
+	}
+
 	@SuppressWarnings("RedundantIfStatement")
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
@@ -1,112 +1,180 @@
 package org.vcsreader.vcs.hg;
 
 import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.ByteStreamSplitter;
 import org.vcsreader.lang.DateTimeUtil;
+import org.vcsreader.lang.PipelinedParser;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.ZoneOffset.UTC;
 import static org.vcsreader.VcsChange.Type.*;
+import static org.vcsreader.lang.ByteStreamSplitter.indexOf;
 import static org.vcsreader.lang.DateTimeUtil.dateTimeFormatter;
-import static org.vcsreader.lang.StringUtil.split;
 import static org.vcsreader.vcs.Change.noFilePath;
 import static org.vcsreader.vcs.Change.noRevision;
 
-class HgCommitParser {
+/**
+ * Parses output of "hg log" with {@link #logTemplate()} by scanning raw UTF-8 bytes,
+ * so that only final field values are converted to strings.
+ * Added and deleted files are matched with copied files using hash lookups,
+ * so that parsing commits with many changes doesn't take quadratic time.
+ */
+class HgCommitParser implements Iterator<VcsCommit> {
 	private static final String commitStartSeparatorFormat = "\\x15\\x16\\x17\\x18\\x19";
 	private static final String commitFieldSeparatorFormat = "\\x19\\x18\\x17\\x16\\x15";
 	private static final String fileSeparatorFormat = "\\x17\\x16\\x15\\x19\\x18";
-	private static final String commitStartSeparator = "\u0015\u0016\u0017\u0018\u0019";
-	private static final String commitFieldsSeparator = "\u0019\u0018\u0017\u0016\u0015";
-	private static final String fileSeparator = "\u0017\u0016\u0015\u0019\u0018";
+	private static final byte[] commitStartSeparator = {0x15, 0x16, 0x17, 0x18, 0x19};
+	private static final byte[] commitFieldsSeparator = {0x19, 0x18, 0x17, 0x16, 0x15};
+	private static final byte[] fileSeparator = {0x17, 0x16, 0x15, 0x19, 0x18};
 	private static final String hgNoRevision = "0000000000000000000000000000000000000000";
 	private static final DateTimeFormatter dateTimeFormatter = dateTimeFormatter("yyyy-MM-dd HH:mm:ss Z", UTC);
+	private static final int fieldsCount = 9;
 
-	public static List<VcsCommit> parseListOfCommits(String stdout) {
-		ArrayList<VcsCommit> commits = new ArrayList<>();
-		List<String> commitsAsString = split(stdout, commitStartSeparator);
+	private final ByteStreamSplitter commitsBytes;
+	private byte[] buffer;
+	private final int[] fieldStarts = new int[fieldsCount];
+	private final int[] fieldEnds = new int[fieldsCount];
+	private boolean hasNextCommitBytes;
 
-		for (String s : commitsAsString) {
-			commits.add(parseCommit(s, commitFieldsSeparator));
+
+	private HgCommitParser(ByteStreamSplitter commitsBytes) {
+		this.commitsBytes = commitsBytes;
+	}
+
+	public static List<VcsCommit> parseListOfCommits(byte[] stdout) {
+		return toList(new HgCommitParser(new ByteStreamSplitter(stdout, commitStartSeparator)));
+	}
+
+	public static List<VcsCommit> parseListOfCommits(InputStream stdout) {
+		return toList(parseCommits(stdout));
+	}
+
+	/**
+	 * @param parallelism if greater than 1, commits are parsed by several threads while output is read
+	 */
+	public static List<VcsCommit> parseListOfCommits(InputStream stdout, int parallelism) {
+		if (parallelism <= 1) return parseListOfCommits(stdout);
+		return new PipelinedParser<>(commitStartSeparator, parallelism, HgCommitParser::parseListOfCommits).parse(stdout);
+	}
+
+	/**
+	 * Parses commits lazily one at a time, so that only the current commit is kept in memory.
+	 */
+	public static Iterator<VcsCommit> parseCommits(InputStream stdout) {
+		return new HgCommitParser(new ByteStreamSplitter(stdout, commitStartSeparator));
+	}
+
+	private static List<VcsCommit> toList(Iterator<VcsCommit> iterator) {
+		List<VcsCommit> commits = new ArrayList<>();
+		while (iterator.hasNext()) {
+			commits.add(iterator.next());
 		}
 		return commits;
 	}
 
-	private static VcsCommit parseCommit(String s, String fieldsSeparator) {
-		List<String> values = split(s, fieldsSeparator);
+	@Override public boolean hasNext() {
+		if (!hasNextCommitBytes) hasNextCommitBytes = commitsBytes.next();
+		return hasNextCommitBytes;
+	}
 
-		String revision = values.get(0);
-		String revisionBefore = values.get(1);
+	@Override public VcsCommit next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		hasNextCommitBytes = false;
+		buffer = commitsBytes.buffer();
+		splitIntoFields(commitsBytes.valueStart(), commitsBytes.valueEnd());
+		return parseCommit();
+	}
+
+	private void splitIntoFields(int commitStart, int commitEnd) {
+		int fieldStart = commitStart;
+		for (int i = 0; i < fieldsCount; i++) {
+			int separatorIndex = indexOf(buffer, commitFieldsSeparator, fieldStart, commitEnd);
+			if (separatorIndex == -1) {
+				throw new IllegalStateException("Unexpected hg log output: " + string(commitStart, commitEnd));
+			}
+			fieldStarts[i] = fieldStart;
+			fieldEnds[i] = separatorIndex;
+			fieldStart = separatorIndex + commitFieldsSeparator.length;
+		}
+	}
+
+	private VcsCommit parseCommit() {
+		String revision = field(0);
+		String revisionBefore = field(1);
 		if (revisionBefore.equals(hgNoRevision)) {
 			revisionBefore = noRevision;
 		}
-		Instant dateTime = dateTimeFormatter.parse(values.get(2), DateTimeUtil::asInstant);
-		String author = values.get(3);
-		String comment = values.get(4);
-
-		List<Change> filesAdded = new ArrayList<>();
-		for (String filePath : values.get(5).split(fileSeparator)) {
-			if (filePath.isEmpty()) continue;
-			filesAdded.add(new Change(Added, filePath, revision));
+		Instant dateTime = dateTimeFormatter.parse(field(2), DateTimeUtil::asInstant);
+		String author = field(3);
+		String comment = field(4);
+
+		Map<String, Change> filesAdded = new LinkedHashMap<>();
+		for (String filePath : filePaths(5)) {
+			filesAdded.put(filePath, new Change(Added, filePath, revision));
 		}
-		List<Change> filesDeleted = new ArrayList<>();
-		for (String filePath : values.get(6).split(fileSeparator)) {
-			if (filePath.isEmpty()) continue;
-			filesDeleted.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
+		Map<String, Change> filesDeleted = new LinkedHashMap<>();
+		for (String filePath : filePaths(6)) {
+			filesDeleted.put(filePath, new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
 		}
 		List<Change> filesMoved = new ArrayList<>();
-		for (String newAndOldFilePath : values.get(7).split(fileSeparator)) {
-			if (newAndOldFilePath.isEmpty()) continue;
-			String[] parts = newAndOldFilePath.split("\\s+\\(");
+		for (String newAndOldFilePath : filePaths(7)) {
+			// format is "new/path (old/path)", see "file_copies" in 'hg help templates'
+			int index = newAndOldFilePath.lastIndexOf(" (");
 			String filePath;
 			String filePathBefore;
-			if (parts.length == 2) {
-				filePath = parts[0];
-				filePathBefore = parts[1].substring(0, parts[1].length() - 1);
+			if (index != -1 && newAndOldFilePath.endsWith(")")) {
+				filePath = newAndOldFilePath.substring(0, index);
+				filePathBefore = newAndOldFilePath.substring(index + 2, newAndOldFilePath.length() - 1);
 			} else {
 				filePath = newAndOldFilePath;
 				filePathBefore = noFilePath;
 			}
 			filesMoved.add(new Change(Moved, filePath, filePathBefore, revision, revisionBefore));
-
-			Iterator<Change> addedIterator = filesAdded.iterator();
-			while (addedIterator.hasNext()) {
-				Change change = addedIterator.next();
-				if (change.getFilePath().equals(filePath)) {
-					addedIterator.remove();
-					break;
-				}
-			}
-			Iterator<Change> deletedIterator = filesDeleted.iterator();
-			while (deletedIterator.hasNext()) {
-				Change change = deletedIterator.next();
-				if (change.getFilePathBefore().equals(filePathBefore)) {
-					deletedIterator.remove();
-					break;
-				}
-			}
+			filesAdded.remove(filePath);
+			filesDeleted.remove(filePathBefore);
 		}
 		List<Change> filesModified = new ArrayList<>();
-		for (String filePath : values.get(8).split(fileSeparator)) {
-			if (filePath.isEmpty()) continue;
+		for (String filePath : filePaths(8)) {
 			filesModified.add(new Change(Modified, filePath, filePath, revision, revisionBefore));
 		}
 
-		List<Change> changes = new ArrayList<>();
-		changes.addAll(filesAdded);
-		changes.addAll(filesDeleted);
+		List<Change> changes = new ArrayList<>(filesAdded.size() + filesDeleted.size() + filesMoved.size() + filesModified.size());
+		changes.addAll(filesAdded.values());
+		changes.addAll(filesDeleted.values());
 		changes.addAll(filesMoved);
 		changes.addAll(filesModified);
 
 		return new Commit(revision, revisionBefore, dateTime, author, comment, changes);
 	}
 
+	private List<String> filePaths(int fieldIndex) {
+		List<String> result = new ArrayList<>();
+		int start = fieldStarts[fieldIndex];
+		int end = fieldEnds[fieldIndex];
+		while (start < end) {
+			int separatorIndex = indexOf(buffer, fileSeparator, start, end);
+			int filePathEnd = separatorIndex == -1 ? end : separatorIndex;
+			if (start < filePathEnd) result.add(string(start, filePathEnd));
+			start = filePathEnd + fileSeparator.length;
+		}
+		return result;
+	}
+
+	private String field(int index) {
+		return string(fieldStarts[index], fieldEnds[index]);
+	}
+
+	private String string(int start, int end) {
+		return new String(buffer, start, end - start, UTF_8);
+	}
+
 	public static String logTemplate() {
 		// see https://www.selenic.com/mercurial/hg.1.html#templates
 		String commitNode = "{node}";
@@ -1,5 +1,7 @@
 package org.vcsreader.vcs.hg;
 
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogFilter;
 import org.vcsreader.LogResult;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.lang.CommandLine;
@@ -7,6 +9,7 @@ import org.vcsreader.lang.TimeRange;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsError;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,14 +27,43 @@ class HgLog implements VcsCommand<LogResult> {
 	private final String hgPath;
 	private final String repoFolder;
 	private final TimeRange timeRange;
+	private final LogFilter filter;
+	private final int parseParallelism;
 	private final CommandLine commandLine;
 
 
 	public HgLog(String hgPath, String repoFolder, TimeRange timeRange) {
+		this(hgPath, repoFolder, timeRange, 1);
+	}
+
+	/**
+	 * @param parseParallelism number of threads which parse commits while "hg log" output is read
+	 */
+	public HgLog(String hgPath, String repoFolder, TimeRange timeRange, int parseParallelism) {
+		this(hgPath, repoFolder, timeRange, LogFilter.all, parseParallelism);
+	}
+
+	/**
+	 * @param filter is passed to "hg log"
+	 */
+	public HgLog(String hgPath, String repoFolder, TimeRange timeRange, LogFilter filter, int parseParallelism) {
+		this(hgPath, repoFolder, timeRange, filter, parseParallelism, hgLog(hgPath, repoFolder, timeRange, filter));
+	}
+
+	/**
+	 * @param fromRevisionExclusive if null, all commits up to {@code toRevision} are requested
+	 */
+	public HgLog(String hgPath, String repoFolder, @Nullable String fromRevisionExclusive, String toRevision) {
+		this(hgPath, repoFolder, TimeRange.all, LogFilter.all, 1, hgLog(hgPath, repoFolder, fromRevisionExclusive, toRevision));
+	}
+
+	private HgLog(String hgPath, String repoFolder, TimeRange timeRange, LogFilter filter, int parseParallelism, CommandLine commandLine) {
 		this.hgPath = hgPath;
 		this.repoFolder = repoFolder;
 		this.timeRange = timeRange;
-		this.commandLine = hgLog(hgPath, repoFolder, timeRange);
+		this.filter = filter;
+		this.parseParallelism = parseParallelism;
+		this.commandLine = commandLine;
 	}
 
 	@Override public LogResult execute() {
@@ -39,17 +71,36 @@ class HgLog implements VcsCommand<LogResult> {
 			throw new VcsError("Folder doesn't contain git repository: '" + repoFolder + "'.");
 		}
 
-		commandLine.execute();
+		InputStream stdout = commandLine.start();
+		List<VcsCommit> commits;
+		try {
+			commits = HgCommitParser.parseListOfCommits(stdout, parseParallelism);
+		} catch (RuntimeException e) {
+			// kill process because it can be blocked writing to stdout which is not read anymore
+			commandLine.kill();
+			throw e;
+		} finally {
+			commandLine.waitFor();
+		}
 
 		if (isSuccessful(commandLine)) {
-			List<VcsCommit> commits = HgCommitParser.parseListOfCommits(commandLine.stdout());
 			List<Exception> errors = (commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr())));
-			return new LogResult(commits, errors);
+			// "hg log" template lists all files of commit and hg matches authors and keywords ignoring case,
+			// so commits are filtered even if filter was passed to hg
+			return filter.apply(new LogResult(commits, errors));
 		} else {
 			return new LogResult(new VcsError(commandLine.stderr()));
 		}
 	}
 
+	/**
+	 * Unlike {@link LogResult#isSuccessful()}, doesn't depend on warnings which hg might print to stderr.
+	 * Should be called after {@link #execute()}.
+	 */
+	boolean isCommandSuccessful() {
+		return isSuccessful(commandLine);
+	}
+
 	@Override public String describe() {
 		return commandLine.describe();
 	}
@@ -59,13 +110,68 @@ class HgLog implements VcsCommand<LogResult> {
 	}
 
 	static CommandLine hgLog(String hgPath, String repoFolder, TimeRange timeRange) {
-		CommandLine commandLine = new CommandLine(
+		return hgLog(hgPath, repoFolder, timeRange, LogFilter.all);
+	}
+
+	static CommandLine hgLog(String hgPath, String repoFolder, TimeRange timeRange, LogFilter filter) {
+		String revisions = "date(\"" + asHgInstant(timeRange.from()) + " to " + asHgInstant(timeRange.to()) + "\")";
+		List<String> filterArguments = authorAndMessageArguments(filter);
+		filterArguments.addAll(pathArguments(filter));
+		return hgLog(hgPath, repoFolder, revisions, filterArguments);
+	}
+
+	/**
+	 * Hg matches "-u" and "-k" ignoring case and "-k" also matches file names,
+	 * so commits are filtered again after parsing (see {@link LogFilter#apply(LogResult)}).
+	 */
+	static List<String> authorAndMessageArguments(LogFilter filter) {
+		List<String> arguments = new ArrayList<>();
+		for (String author : filter.authors()) {
+			arguments.add("-u");
+			arguments.add(author);
+		}
+		for (String keyword : filter.messageKeywords()) {
+			arguments.add("-k");
+			arguments.add(keyword);
+		}
+		return arguments;
+	}
+
+	/**
+	 * See 'hg help patterns'.
+	 */
+	static List<String> pathArguments(LogFilter filter) {
+		List<String> arguments = new ArrayList<>();
+		for (String path : filter.includedPaths()) {
+			arguments.add("-I");
+			arguments.add("path:" + (path.isEmpty() ? "." : path));
+		}
+		for (String path : filter.excludedPaths()) {
+			arguments.add("-X");
+			arguments.add("path:" + (path.isEmpty() ? "." : path));
+		}
+		return arguments;
+	}
+
+	static CommandLine hgLog(String hgPath, String repoFolder, @Nullable String fromRevisionExclusive, String toRevision) {
+		// Use range of local revision numbers (rather than ancestors) to include all branches like date-based log does.
+		// Range is intersected with "from:tip" because if "from" has greater number than "to",
+		// "from:to" is a backward range of older revisions. See 'hg help revsets'.
+		String revisions = fromRevisionExclusive == null ?
+				":" + toRevision :
+				"((" + fromRevisionExclusive + ":" + toRevision + ") and (" + fromRevisionExclusive + ":tip)) - " + fromRevisionExclusive;
+		return hgLog(hgPath, repoFolder, revisions, new ArrayList<>());
+	}
+
+	private static CommandLine hgLog(String hgPath, String repoFolder, String revisions, List<String> pathArguments) {
+		List<String> arguments = new ArrayList<>(asList(
 				hgPath, "log",
 				"--encoding", UTF_8.name(),
-				"-r", "date(\"" + asHgInstant(timeRange.from()) + " to " + asHgInstant(timeRange.to()) + "\")",
+				"-r", revisions,
 				"--template", HgCommitParser.logTemplate()
-		);
-		return commandLine.workingDir(repoFolder).outputCharset(UTF_8);
+		));
+		arguments.addAll(pathArguments);
+		return new CommandLine(arguments).workingDir(repoFolder).outputCharset(UTF_8);
 	}
 
 	private static String asHgInstant(Instant instant) {
@@ -87,6 +193,7 @@ class HgLog implements VcsCommand<LogResult> {
 		if (hgPath != null ? !hgPath.equals(hgLog.hgPath) : hgLog.hgPath != null) return false;
 		if (repoFolder != null ? !repoFolder.equals(hgLog.repoFolder) : hgLog.repoFolder != null) return false;
 		if (timeRange != null ? !timeRange.equals(hgLog.timeRange) : hgLog.timeRange != null) return false;
+		if (filter != null ? !filter.equals(hgLog.filter) : hgLog.filter != null) return false;
 		return commandLine != null ? commandLine.equals(hgLog.commandLine) : hgLog.commandLine == null;
 	}
 
@@ -94,6 +201,7 @@ class HgLog implements VcsCommand<LogResult> {
 		int result = hgPath != null ? hgPath.hashCode() : 0;
 		result = 31 * result + (repoFolder != null ? repoFolder.hashCode() : 0);
 		result = 31 * result + (timeRange != null ? timeRange.hashCode() : 0);
+		result = 31 * result + (filter != null ? filter.hashCode() : 0);
 		result = 31 * result + (commandLine != null ? commandLine.hashCode() : 0);
 		return result;
 	}
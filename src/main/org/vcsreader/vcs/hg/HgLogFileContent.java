@@ -2,6 +2,7 @@ package org.vcsreader.vcs.hg;
 
 import org.vcsreader.LogFileContentResult;
 import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.FileCharsetMemo;
 import org.vcsreader.vcs.VcsCommand;
 
 import java.nio.charset.Charset;
@@ -20,21 +21,29 @@ class HgLogFileContent implements VcsCommand<LogFileContentResult> {
 	private final String filePath;
 	private final String revision;
 	private final Charset charset;
+	private final FileCharsetMemo charsetMemo;
 	private final CommandLine commandLine;
 
-	public HgLogFileContent(String pathToHg, String repoFolder, String filePath, String revision, Charset charset) {
+	public HgLogFileContent(String pathToHg, String repoFolder, String filePath, String revision, Charset charset, FileCharsetMemo charsetMemo) {
 		this.pathToHg = pathToHg;
 		this.repoFolder = repoFolder;
 		this.filePath = filePath;
 		this.revision = revision;
 		this.charset = charset;
-		this.commandLine = hgLogFileContent(pathToHg, repoFolder, filePath, revision, charset);
+		this.charsetMemo = charsetMemo;
+		this.commandLine = hgLogFileContent(pathToHg, repoFolder, filePath, revision, charset)
+				.charsetGuess(charsetMemo.charsetOf(filePath));
 	}
 
 	@Override public LogFileContentResult execute() {
 		commandLine.execute();
 		if (isSuccessful(commandLine)) {
-			return new LogFileContentResult(trimLastNewLine(commandLine.stdout()));
+			byte[] binaryContent = commandLine.binaryStdout();
+			if (binaryContent != null) return new LogFileContentResult(binaryContent);
+
+			String text = commandLine.stdout();
+			charsetMemo.update(filePath, commandLine.detectedCharset());
+			return new LogFileContentResult(trimLastNewLine(text));
 		} else {
 			return new LogFileContentResult(commandLine.stderr(), commandLine.exitCode());
 		}
@@ -50,7 +59,7 @@ class HgLogFileContent implements VcsCommand<LogFileContentResult> {
 
 	static CommandLine hgLogFileContent(String pathToHg, String repoFolder, String filePath, String revision, Charset charset) {
 		CommandLine commandLine = new CommandLine(pathToHg, "cat", "-r " + revision, filePath);
-		return commandLine.workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true);
+		return commandLine.workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true).detectBinaryOutput(true);
 	}
 
 	@SuppressWarnings("SimplifiableIfStatement")
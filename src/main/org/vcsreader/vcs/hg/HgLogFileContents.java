@@ -0,0 +1,141 @@
+package org.vcsreader.vcs.hg;
+
+import org.vcsreader.LogFileContentResult;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.Pair;
+import org.vcsreader.vcs.FileCharsetMemo;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.lang.CharsetDetector.isBinary;
+import static org.vcsreader.lang.StringUtil.trimLastNewLine;
+
+/**
+ * Reads contents of several files with one "hg cat" command per revision.
+ * Files are written by hg into temporary folder (using "--output" option) and then read from there.
+ * <p>
+ * See https://selenic.com/hg/help/cat
+ */
+class HgLogFileContents implements VcsCommand<List<LogFileContentResult>> {
+	private final String pathToHg;
+	private final String repoFolder;
+	private final List<Pair<String, String>> filePathsAndRevisions;
+	private final Charset charset;
+	private final FileCharsetMemo charsetMemo;
+	private volatile CommandLine commandLine;
+
+
+	public HgLogFileContents(String pathToHg, String repoFolder, List<Pair<String, String>> filePathsAndRevisions, Charset charset,
+	                         FileCharsetMemo charsetMemo) {
+		this.pathToHg = pathToHg;
+		this.repoFolder = repoFolder;
+		this.filePathsAndRevisions = filePathsAndRevisions;
+		this.charset = charset;
+		this.charsetMemo = charsetMemo;
+	}
+
+	@Override public List<LogFileContentResult> execute() {
+		Map<String, List<Integer>> indicesByRevision = new LinkedHashMap<>();
+		for (int i = 0; i < filePathsAndRevisions.size(); i++) {
+			indicesByRevision.computeIfAbsent(filePathsAndRevisions.get(i).second, it -> new ArrayList<>()).add(i);
+		}
+
+		LogFileContentResult[] result = new LogFileContentResult[filePathsAndRevisions.size()];
+		for (Map.Entry<String, List<Integer>> entry : indicesByRevision.entrySet()) {
+			File outputFolder = createTempFolder();
+			try {
+				List<String> filePaths = new ArrayList<>();
+				for (int i : entry.getValue()) {
+					filePaths.add(filePathsAndRevisions.get(i).first);
+				}
+				commandLine = hgLogFileContents(pathToHg, repoFolder, entry.getKey(), filePaths, outputFolder, charset);
+				commandLine.execute();
+
+				for (int i : entry.getValue()) {
+					String filePath = filePathsAndRevisions.get(i).first;
+					File file = new File(outputFolder, filePath);
+					if (!file.isFile()) {
+						result[i] = new LogFileContentResult(new VcsError(commandLine.stderr()));
+						continue;
+					}
+					byte[] bytes = readBytes(file);
+					if (isBinary(bytes, bytes.length)) {
+						result[i] = new LogFileContentResult(bytes);
+					} else {
+						String text = commandLine.decode(bytes, charsetMemo.charsetOf(filePath));
+						charsetMemo.update(filePath, commandLine.detectedCharset());
+						result[i] = new LogFileContentResult(trimLastNewLine(text));
+					}
+				}
+			} finally {
+				delete(outputFolder);
+			}
+		}
+		return asList(result);
+	}
+
+	static CommandLine hgLogFileContents(String pathToHg, String repoFolder, String revision, List<String> filePaths,
+	                                     File outputFolder, Charset charset) {
+		List<String> arguments = new ArrayList<>(asList(
+				pathToHg, "cat",
+				"-r", revision,
+				"--output", outputFolder.getAbsolutePath() + File.separator + "%p"
+		));
+		arguments.addAll(filePaths);
+		return new CommandLine(arguments).workingDir(repoFolder).outputCharset(charset).charsetAutoDetect(true);
+	}
+
+	private static File createTempFolder() {
+		try {
+			return Files.createTempDirectory("hg-cat-").toFile();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static byte[] readBytes(File file) {
+		try {
+			return Files.readAllBytes(file.toPath());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		//noinspection ResultOfMethodCallIgnored
+		file.delete();
+	}
+
+	@Override public String describe() {
+		CommandLine commandLine = this.commandLine;
+		return commandLine == null ? "hg cat (" + filePathsAndRevisions.size() + " files)" : commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		CommandLine commandLine = this.commandLine;
+		return commandLine == null || commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "HgLogFileContents{" +
+				"pathToHg='" + pathToHg + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", filePathsAndRevisions=" + filePathsAndRevisions.size() +
+				", charset=" + charset +
+				'}';
+	}
+}
@@ -0,0 +1,86 @@
+package org.vcsreader.vcs.hg;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogResult;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import static org.vcsreader.vcs.hg.HgUtil.containsHgRepo;
+import static org.vcsreader.vcs.hg.HgUtil.isSuccessful;
+
+/**
+ * Requests commits which are not in {@link CommitCache} yet,
+ * i.e. commits added to local repository after the last cached revision.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to GitLogNewCommits
+class HgLogNewCommits implements VcsCommand<CommitCache.Update> {
+	private static final String nullRevision = "0000000000000000000000000000000000000000";
+
+	private final String hgPath;
+	private final String repoFolder;
+	@Nullable private final String fromRevisionExclusive;
+	private final CommandLine commandLine;
+	private volatile HgLog hgLog;
+
+
+	public HgLogNewCommits(String hgPath, String repoFolder, @Nullable String fromRevisionExclusive) {
+		this.hgPath = hgPath;
+		this.repoFolder = repoFolder;
+		this.fromRevisionExclusive = fromRevisionExclusive;
+		this.commandLine = hgHeadRevision(hgPath, repoFolder);
+	}
+
+	@Override public CommitCache.Update execute() {
+		if (!containsHgRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain hg repository: '" + repoFolder + "'.");
+		}
+
+		commandLine.execute();
+		if (!isSuccessful(commandLine)) {
+			return new CommitCache.Update(null, new LogResult(new VcsError(commandLine.stderr())), false);
+		}
+		String headRevision = commandLine.stdout().trim();
+		if (headRevision.equals(fromRevisionExclusive)) {
+			return new CommitCache.Update(headRevision, new LogResult(), false);
+		}
+		if (headRevision.equals(nullRevision)) {
+			return new CommitCache.Update(headRevision, new LogResult(), true);
+		}
+
+		hgLog = new HgLog(hgPath, repoFolder, fromRevisionExclusive, headRevision);
+		LogResult logResult = hgLog.execute();
+		if (!hgLog.isCommandSuccessful() && fromRevisionExclusive != null) {
+			// Cached revision can disappear from repository (e.g. after "hg strip"), in which case all commits are requested again.
+			hgLog = new HgLog(hgPath, repoFolder, null, headRevision);
+			logResult = hgLog.execute();
+			return new CommitCache.Update(hgLog.isCommandSuccessful() ? headRevision : null, logResult, true);
+		}
+		return new CommitCache.Update(hgLog.isCommandSuccessful() ? headRevision : null, logResult, fromRevisionExclusive == null);
+	}
+
+	static CommandLine hgHeadRevision(String hgPath, String repoFolder) {
+		return new CommandLine(hgPath, "log", "-r", "tip", "--template", "{node}").workingDir(repoFolder);
+	}
+
+	@Override public String describe() {
+		String result = commandLine.describe();
+		if (hgLog != null) result += "\n" + hgLog.describe();
+		return result;
+	}
+
+	@Override public boolean cancel() {
+		boolean notRunning = commandLine.kill();
+		if (hgLog != null) notRunning &= hgLog.cancel();
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "HgLogNewCommits{" +
+				"hgPath='" + hgPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", fromRevisionExclusive='" + fromRevisionExclusive + '\'' +
+				'}';
+	}
+}
@@ -0,0 +1,72 @@
+package org.vcsreader.vcs.hg;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.hg.HgCommitParser.parseCommits;
+import static org.vcsreader.vcs.hg.HgLog.hgLog;
+import static org.vcsreader.vcs.hg.HgUtil.containsHgRepo;
+import static org.vcsreader.vcs.hg.HgUtil.isSuccessful;
+
+/**
+ * Streaming version of {@link HgLog}.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to HgLog
+class HgLogStream implements VcsCommand<LogStream> {
+	private final String hgPath;
+	private final String repoFolder;
+	private final TimeRange timeRange;
+	private final CommandLine commandLine;
+
+
+	public HgLogStream(String hgPath, String repoFolder, TimeRange timeRange) {
+		this.hgPath = hgPath;
+		this.repoFolder = repoFolder;
+		this.timeRange = timeRange;
+		this.commandLine = hgLog(hgPath, repoFolder, timeRange);
+	}
+
+	@Override public LogStream execute() {
+		if (!containsHgRepo(repoFolder)) {
+			throw new VcsError("Folder doesn't contain hg repository: '" + repoFolder + "'.");
+		}
+
+		return new LogStream(parseCommits(commandLine.start()), new LogStream.Source() {
+			@Override public List<Exception> finish() {
+				commandLine.waitFor();
+				if (isSuccessful(commandLine)) {
+					return commandLine.stderr().trim().isEmpty() ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+				} else {
+					return asList(new VcsError(commandLine.stderr()));
+				}
+			}
+
+			@Override public void cancel() {
+				commandLine.kill();
+			}
+		});
+	}
+
+	@Override public String describe() {
+		return commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		return commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "HgLogStream{" +
+				"hgPath='" + hgPath + '\'' +
+				", repoFolder='" + repoFolder + '\'' +
+				", timeRange=" + timeRange +
+				'}';
+	}
+}
@@ -1,6 +1,9 @@
 package org.vcsreader.vcs.hg;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.FileContentCache;
 
 import java.nio.charset.Charset;
 
@@ -10,6 +13,9 @@ public class HgSettings {
 	private final String hgPath;
 	private final Charset defaultFileCharset;
 	private final boolean failFast;
+	@Nullable private final CommitCache commitCache;
+	@Nullable private final FileContentCache fileContentCache;
+	private final int logParseParallelism;
 
 
 	/**
@@ -20,9 +26,17 @@ public class HgSettings {
 	 *                           otherwise will aggregate all exceptions/errors into result object
 	 */
 	public HgSettings(@NotNull String hgPath, @NotNull Charset defaultFileCharset, boolean failFast) {
+		this(hgPath, defaultFileCharset, failFast, null, null, 1);
+	}
+
+	private HgSettings(@NotNull String hgPath, @NotNull Charset defaultFileCharset, boolean failFast,
+	                   @Nullable CommitCache commitCache, @Nullable FileContentCache fileContentCache, int logParseParallelism) {
 		this.hgPath = hgPath;
 		this.defaultFileCharset = defaultFileCharset;
 		this.failFast = failFast;
+		this.commitCache = commitCache;
+		this.fileContentCache = fileContentCache;
+		this.logParseParallelism = logParseParallelism;
 	}
 
 	public static HgSettings defaults() {
@@ -30,15 +44,32 @@ public class HgSettings {
 	}
 
 	public HgSettings withHgPath(String value) {
-		return new HgSettings(value, defaultFileCharset, failFast);
+		return new HgSettings(value, defaultFileCharset, failFast, commitCache, fileContentCache, logParseParallelism);
 	}
 
 	public HgSettings withDefaultFileCharset(Charset value) {
-		return new HgSettings(hgPath, value, failFast);
+		return new HgSettings(hgPath, value, failFast, commitCache, fileContentCache, logParseParallelism);
 	}
 
 	public HgSettings withFailFast(boolean value) {
-		return new HgSettings(hgPath, defaultFileCharset, value);
+		return new HgSettings(hgPath, defaultFileCharset, value, commitCache, fileContentCache, logParseParallelism);
+	}
+
+	public HgSettings withCommitCache(@Nullable CommitCache value) {
+		return new HgSettings(hgPath, defaultFileCharset, failFast, value, fileContentCache, logParseParallelism);
+	}
+
+	public HgSettings withFileContentCache(@Nullable FileContentCache value) {
+		return new HgSettings(hgPath, defaultFileCharset, failFast, commitCache, value, logParseParallelism);
+	}
+
+	/**
+	 * @param value number of threads which parse commits while log command output is read
+	 *              (if 1, commits are parsed by the thread which reads the output)
+	 */
+	public HgSettings withLogParseParallelism(int value) {
+		if (value < 1) throw new IllegalArgumentException("Parallelism must be positive: " + value);
+		return new HgSettings(hgPath, defaultFileCharset, failFast, commitCache, fileContentCache, value);
 	}
 
 	@NotNull public String hgPath() {
@@ -53,6 +84,18 @@ public class HgSettings {
 		return failFast;
 	}
 
+	@Nullable public CommitCache commitCache() {
+		return commitCache;
+	}
+
+	@Nullable public FileContentCache fileContentCache() {
+		return fileContentCache;
+	}
+
+	public int logParseParallelism() {
+		return logParseParallelism;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -60,14 +103,20 @@ public class HgSettings {
 		HgSettings that = (HgSettings) o;
 
 		return failFast == that.failFast &&
+				logParseParallelism == that.logParseParallelism &&
 				hgPath.equals(that.hgPath) &&
-				defaultFileCharset.equals(that.defaultFileCharset);
+				defaultFileCharset.equals(that.defaultFileCharset) &&
+				(commitCache != null ? commitCache.equals(that.commitCache) : that.commitCache == null) &&
+				(fileContentCache != null ? fileContentCache.equals(that.fileContentCache) : that.fileContentCache == null);
 	}
 
 	@Override public int hashCode() {
 		int result = hgPath.hashCode();
 		result = 31 * result + defaultFileCharset.hashCode();
 		result = 31 * result + (failFast ? 1 : 0);
+		result = 31 * result + (commitCache != null ? commitCache.hashCode() : 0);
+		result = 31 * result + (fileContentCache != null ? fileContentCache.hashCode() : 0);
+		result = 31 * result + logParseParallelism;
 		return result;
 	}
 
@@ -76,6 +125,9 @@ public class HgSettings {
 				"hgPath='" + hgPath + '\'' +
 				", defaultFileCharset=" + defaultFileCharset +
 				", failFast=" + failFast +
+				", commitCache=" + commitCache +
+				", fileContentCache=" + fileContentCache +
+				", logParseParallelism=" + logParseParallelism +
 				'}';
 	}
 }
@@ -3,19 +3,37 @@ package org.vcsreader.vcs.hg;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.vcsreader.CloneResult;
+import org.vcsreader.LogFilter;
+import org.vcsreader.FileContentStream;
 import org.vcsreader.LogFileContentResult;
 import org.vcsreader.LogResult;
+import org.vcsreader.LogStream;
 import org.vcsreader.UpdateResult;
 import org.vcsreader.VcsRoot;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.Pair;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.FileCharsetMemo;
+import org.vcsreader.vcs.FileContentCache;
+import org.vcsreader.vcs.LogFileContentStream;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.vcsreader.vcs.hg.HgLogFileContent.hgLogFileContent;
+
 public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 	@NotNull private final String repoFolder;
 	@Nullable private final String repoUrl;
 	@NotNull private final HgSettings settings;
 	private final VcsCommand.Listener listener;
+	private final FileCharsetMemo charsetMemo;
 	private volatile VcsCommand lastCommand;
 
 
@@ -24,7 +42,7 @@ public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 	}
 
 	public HgVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl) {
-		this(repoFolder, repoUrl, HgSettings.defaults(), VcsCommand.Listener.none);
+		this(repoFolder, repoUrl, HgSettings.defaults());
 	}
 
 	/**
@@ -34,19 +52,20 @@ public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 	 * @param settings   settings which will be used by VCS commands executed on this root
 	 */
 	public HgVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl, @NotNull HgSettings settings) {
-		this(repoFolder, repoUrl, settings, VcsCommand.Listener.none);
+		this(repoFolder, repoUrl, settings, VcsCommand.Listener.none, new FileCharsetMemo());
 	}
 
 	private HgVcsRoot(@NotNull String repoFolder, @Nullable String repoUrl,
-	                  @NotNull HgSettings settings, VcsCommand.Listener listener) {
+	                  @NotNull HgSettings settings, VcsCommand.Listener listener, FileCharsetMemo charsetMemo) {
 		this.repoFolder = repoFolder;
 		this.repoUrl = repoUrl;
 		this.settings = settings;
 		this.listener = listener;
+		this.charsetMemo = charsetMemo;
 	}
 
 	@Override public HgVcsRoot withListener(VcsCommand.Listener listener) {
-		return new HgVcsRoot(repoFolder, repoUrl, settings, listener);
+		return new HgVcsRoot(repoFolder, repoUrl, settings, listener, charsetMemo);
 	}
 
 	@Override public CloneResult cloneIt() {
@@ -58,14 +77,81 @@ public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 	}
 
 	@Override public LogResult log(TimeRange timeRange) {
-		return execute(new HgLog(settings.hgPath(), repoFolder, timeRange), LogResult.adapter);
+		return log(timeRange, LogFilter.all);
+	}
+
+	/**
+	 * Filter is passed to "hg log" unless commit cache is used.
+	 */
+	@Override public LogResult log(TimeRange timeRange, LogFilter filter) {
+		CommitCache commitCache = settings.commitCache();
+		if (commitCache == null) {
+			return execute(new HgLog(settings.hgPath(), repoFolder, timeRange, filter, settings.logParseParallelism()), LogResult.adapter);
+		}
+		return filter.apply(commitCache.log(cacheKey(), timeRange, fromRevision ->
+				execute(new HgLogNewCommits(settings.hgPath(), repoFolder, fromRevision), CommitCache.Update.adapter)
+		));
+	}
+
+	/**
+	 * Requests range of local revision numbers (rather than ancestors of {@code toRevision}),
+	 * i.e. commits from all branches which were added to local repository after {@code fromRevisionExclusive}.
+	 * Commit cache is not used.
+	 */
+	@Override public LogResult log(@Nullable String fromRevisionExclusive, String toRevision) {
+		return execute(new HgLog(settings.hgPath(), repoFolder, fromRevisionExclusive, toRevision), LogResult.adapter);
+	}
+
+	@Override public LogStream logStream(TimeRange timeRange) {
+		return executeStream(new HgLogStream(settings.hgPath(), repoFolder, timeRange), LogStream.adapter, LogStream::whenFinished);
 	}
 
 	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
-		HgLogFileContent logFileContent = new HgLogFileContent(settings.hgPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
+		FileContentCache fileContentCache = settings.fileContentCache();
+		if (fileContentCache == null) {
+			return logFileContentFromVcs(filePath, revision);
+		}
+		String rootKey = cacheKey() + ":" + settings.defaultFileCharset();
+		return fileContentCache.logFileContent(rootKey, filePath, revision, () -> logFileContentFromVcs(filePath, revision));
+	}
+
+	/**
+	 * Content is always requested from VCS, i.e. it's not looked up in {@link FileContentCache}.
+	 */
+	@Override public FileContentStream logFileContentStream(String filePath, String revision) {
+		CommandLine commandLine = hgLogFileContent(settings.hgPath(), repoFolder, filePath, revision, settings.defaultFileCharset());
+		LogFileContentStream logFileContentStream = new LogFileContentStream(commandLine, filePath, charsetMemo, HgUtil::isSuccessful);
+		return executeStream(logFileContentStream, FileContentStream.adapter, FileContentStream::whenClosed);
+	}
+
+	/**
+	 * Reads files with one "hg cat" command per revision.
+	 */
+	@Override public List<LogFileContentResult> logFileContents(List<Pair<String, String>> filePathsAndRevisions) {
+		FileContentCache fileContentCache = settings.fileContentCache();
+		if (fileContentCache == null) {
+			return logFileContentsFromVcs(filePathsAndRevisions);
+		}
+		String rootKey = cacheKey() + ":" + settings.defaultFileCharset();
+		return fileContentCache.logFileContents(rootKey, filePathsAndRevisions, this::logFileContentsFromVcs);
+	}
+
+	private List<LogFileContentResult> logFileContentsFromVcs(List<Pair<String, String>> filePathsAndRevisions) {
+		return execute(
+				new HgLogFileContents(settings.hgPath(), repoFolder, filePathsAndRevisions, settings.defaultFileCharset(), charsetMemo),
+				e -> new ArrayList<>(Collections.nCopies(filePathsAndRevisions.size(), new LogFileContentResult(e)))
+		);
+	}
+
+	private LogFileContentResult logFileContentFromVcs(String filePath, String revision) {
+		HgLogFileContent logFileContent = new HgLogFileContent(settings.hgPath(), repoFolder, filePath, revision, settings.defaultFileCharset(), charsetMemo);
 		return execute(logFileContent, LogFileContentResult.adapter);
 	}
 
+	private String cacheKey() {
+		return "hg:" + new File(repoFolder).getAbsolutePath();
+	}
+
 	private <T> T execute(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper) {
 		try {
 			lastCommand = vcsCommand;
@@ -75,6 +161,14 @@ public class HgVcsRoot implements VcsRoot, VcsCommand.Observer {
 		}
 	}
 
+	private <T> T executeStream(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper, BiFunction<T, Runnable, T> whenFinished) {
+		// command is still running after the stream was returned, so it's unregistered when the stream has finished
+		lastCommand = vcsCommand;
+		return VcsCommand.executeStream(vcsCommand, exceptionWrapper, listener, settings.failFast(), whenFinished, () -> {
+			if (lastCommand == vcsCommand) lastCommand = null;
+		});
+	}
+
 	@Override @NotNull public String repoFolder() {
 		return repoFolder;
 	}
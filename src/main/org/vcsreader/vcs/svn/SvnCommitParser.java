@@ -1,194 +1,215 @@
 package org.vcsreader.vcs.svn;
 
-import org.jetbrains.annotations.NotNull;
 import org.vcsreader.VcsCommit;
 import org.vcsreader.lang.DateTimeUtil;
 import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.Commit;
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.DefaultHandler;
-
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParserFactory;
-import java.io.IOException;
-import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import static java.lang.Boolean.parseBoolean;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.xml.stream.XMLStreamConstants.*;
 import static org.vcsreader.VcsChange.Type.*;
 import static org.vcsreader.VcsChange.noFilePath;
 import static org.vcsreader.VcsChange.noRevision;
 
-class SvnCommitParser {
-	static List<VcsCommit> parseCommits(String xml) {
-		try {
-			CommitReadingHandler commitReadingHandler = new CommitReadingHandler();
-
-			SAXParserFactory parserFactory = SAXParserFactory.newInstance();
-			XMLReader xmlReader = parserFactory.newSAXParser().getXMLReader();
-			xmlReader.setContentHandler(commitReadingHandler);
-			xmlReader.parse(new InputSource(new StringReader(xml)));
-
-			return commitReadingHandler.commits;
-		} catch (SAXException e) {
-			throw new RuntimeException("Failed to parse xml: " + xml, e);
-		} catch (ParserConfigurationException | IOException e) {
-			throw new RuntimeException(e);
-		}
-	}
+/**
+ * Parses output of "svn log --xml" one "logentry" element at a time using StAX,
+ * so that xml can be read directly from svn process without keeping the whole output in memory.
+ */
+class SvnCommitParser implements Iterator<VcsCommit> {
+	private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 
-	private static class CommitReadingHandler extends DefaultHandler {
-		private final List<VcsCommit> commits = new ArrayList<>();
+	private final XMLStreamReader xmlReader;
+	private final StringBuilder text = new StringBuilder();
+	private final List<Change> changes = new ArrayList<>();
+	private final Set<String> movedPaths = new HashSet<>();
+	private VcsCommit nextCommit;
 
-		private String revision;
-		private String revisionBefore;
-		private String author;
-		private Instant dateTime;
-		private String commitDateString;
-		private String comment;
-		private List<Change> changes = new ArrayList<>();
 
-		private String filePath;
-		private SvnChangeType changeType;
+	private SvnCommitParser(XMLStreamReader xmlReader) {
+		this.xmlReader = xmlReader;
+	}
 
-		private boolean expectAuthor;
-		private boolean expectDate;
-		private boolean expectComment;
-		private boolean expectFileName;
-		private boolean isFileChange;
-		private boolean isTextModification;
-		private boolean isCopy;
-		private String copyFromFilePath;
-		private String copyFromRevision;
-		private final Set<String> movedPaths = new HashSet<>();
+	static List<VcsCommit> parseCommits(String xml) {
+		List<VcsCommit> commits = new ArrayList<>();
+		Iterator<VcsCommit> iterator = parseCommits(new ByteArrayInputStream(xml.getBytes(UTF_8)));
+		while (iterator.hasNext()) {
+			commits.add(iterator.next());
+		}
+		return commits;
+	}
 
-		private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+	/**
+	 * Parses commits lazily one at a time.
+	 * Empty input is parsed as no commits (e.g. if svn command failed before writing any output).
+	 */
+	static Iterator<VcsCommit> parseCommits(InputStream xml) {
+		try {
+			BufferedInputStream inputStream = new BufferedInputStream(xml);
+			inputStream.mark(1);
+			if (inputStream.read() == -1) return Collections.emptyIterator();
+			inputStream.reset();
+			// create factory for each command because XMLInputFactory is not guaranteed to be thread-safe
+			return new SvnCommitParser(newXmlInputFactory().createXMLStreamReader(inputStream));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (XMLStreamException e) {
+			throw new RuntimeException("Failed to parse xml", e);
+		}
+	}
+
+	@Override public boolean hasNext() {
+		if (nextCommit == null) {
+			try {
+				nextCommit = readNextCommit();
+			} catch (XMLStreamException e) {
+				throw new RuntimeException("Failed to parse xml", e);
+			}
+		}
+		return nextCommit != null;
+	}
 
+	@Override public VcsCommit next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		VcsCommit result = nextCommit;
+		nextCommit = null;
+		return result;
+	}
 
-		private CommitReadingHandler() {
+	private VcsCommit readNextCommit() throws XMLStreamException {
+		while (xmlReader.hasNext()) {
+			if (xmlReader.next() == START_ELEMENT && xmlReader.getLocalName().equals("logentry")) {
+				return readLogEntry();
+			}
 		}
+		xmlReader.close();
+		return null;
+	}
 
-		@Override public void startElement(@NotNull String uri, @NotNull String localName,
-		                                   @NotNull String name, @NotNull Attributes attributes) throws SAXException {
-			if (name.equals("logentry")) {
-				revision = attributes.getValue("revision");
-				revisionBefore = previous(revision);
-			} else if (name.equals("author")) {
-				expectAuthor = true;
-				author = "";
+	private VcsCommit readLogEntry() throws XMLStreamException {
+		String revision = xmlReader.getAttributeValue(null, "revision");
+		String revisionBefore = previous(revision);
+		// author and message are missing for anonymous commits or if svn doesn't allow to read them
+		String author = "";
+		Instant dateTime = null;
+		String comment = "";
+		changes.clear();
+		movedPaths.clear();
+
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == END_ELEMENT && xmlReader.getLocalName().equals("logentry")) break;
+			if (event != START_ELEMENT) continue;
+
+			String name = xmlReader.getLocalName();
+			if (name.equals("author")) {
+				author = readText();
 			} else if (name.equals("date")) {
-				expectDate = true;
-				commitDateString = "";
+				dateTime = dateTimeFormatter.parse(readText(), DateTimeUtil::asInstant);
 			} else if (name.equals("msg")) {
-				expectComment = true;
-				comment = "";
+				comment = readText();
 			} else if (name.equals("path")) {
-				changeType = asChangeType(attributes.getValue("action"));
-				String kind = attributes.getValue("kind");
-				isFileChange = (kind == null || kind.isEmpty() || "file".equals(kind));
-				isCopy = attributes.getValue("copyfrom-path") != null;
-				copyFromFilePath = trimPath(attributes.getValue("copyfrom-path"));
-				copyFromRevision = attributes.getValue("copyfrom-rev");
-				filePath = "";
-				expectFileName = true;
-
-				boolean isPropertiesModification = parseBoolean(attributes.getValue("prop-mods"));
-				isTextModification =
-						(attributes.getValue("text-mods") == null && !isPropertiesModification) ||
-								parseBoolean(attributes.getValue("text-mods"));
+				readPath(revision, revisionBefore);
 			}
 		}
+		changes.removeIf(it -> it.getType() == Deleted && movedPaths.contains(it.getFilePathBefore()));
 
-		@Override public void characters(char[] ch, int start, int length) throws SAXException {
-			if (expectAuthor) {
-				author += String.valueOf(ch, start, length);
-			} else if (expectDate) {
-				commitDateString += String.valueOf(ch, start, length);
-			} else if (expectComment) {
-				comment += String.valueOf(ch, start, length);
-			} else if (expectFileName) {
-				filePath += trimPath(String.valueOf(ch, start, length));
-			}
-		}
+		return new Commit(revision, revisionBefore, dateTime, author, comment, new ArrayList<>(changes));
+	}
 
-		private static String trimPath(String path) {
-			if (path == null || path.length() < 1) return null;
-			return path.charAt(0) == '/' ? path.substring(1) : null;
+	private void readPath(String revision, String revisionBefore) throws XMLStreamException {
+		SvnChangeType changeType = asChangeType(xmlReader.getAttributeValue(null, "action"));
+		String kind = xmlReader.getAttributeValue(null, "kind");
+		boolean isFileChange = (kind == null || kind.isEmpty() || "file".equals(kind));
+		boolean isCopy = xmlReader.getAttributeValue(null, "copyfrom-path") != null;
+		String copyFromFilePath = trimPath(xmlReader.getAttributeValue(null, "copyfrom-path"));
+		String copyFromRevision = xmlReader.getAttributeValue(null, "copyfrom-rev");
+		boolean isPropertiesModification = parseBoolean(xmlReader.getAttributeValue(null, "prop-mods"));
+		String textModifications = xmlReader.getAttributeValue(null, "text-mods");
+		boolean isTextModification = (textModifications == null && !isPropertiesModification) || parseBoolean(textModifications);
+		String filePath = trimPath(readText());
+
+		if (!isFileChange) return;
+		if (isCopy) {
+			changes.add(new Change(Moved, filePath, copyFromFilePath, revision, copyFromRevision));
+			movedPaths.add(copyFromFilePath);
+
+		} else if (changeType == SvnChangeType.Added) {
+			changes.add(new Change(Added, filePath, revision));
+
+		} else if (changeType == SvnChangeType.Delete) {
+			changes.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
+
+		} else if (changeType == SvnChangeType.Replaced) {
+			changes.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
+			changes.add(new Change(Added, filePath, revision));
+
+		} else {
+			// check for text modification because there can also be svn properties modifications
+			if (isTextModification) {
+				changes.add(new Change(Modified, filePath, filePath, revision, revisionBefore));
+			}
 		}
+	}
 
-		@Override
-		public void endElement(String uri, @NotNull String localName, @NotNull String name) throws SAXException {
-			if (name.equals("logentry")) {
-				changes.removeIf(it -> it.getType() == Deleted && movedPaths.contains(it.getFilePathBefore()));
-
-				commits.add(new Commit(revision, revisionBefore, dateTime, author, comment, new ArrayList<>(changes)));
-				changes.clear();
-				movedPaths.clear();
-
-			} else if (name.equals("path")) {
-				expectFileName = false;
-				if (isFileChange) {
-					if (isCopy) {
-						changes.add(new Change(Moved, filePath, copyFromFilePath, revision, copyFromRevision));
-						movedPaths.add(copyFromFilePath);
-
-					} else if (changeType == SvnChangeType.Added) {
-						changes.add(new Change(Added, filePath, revision));
-
-					} else if (changeType == SvnChangeType.Delete) {
-						changes.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
-
-					} else if (changeType == SvnChangeType.Replaced) {
-						changes.add(new Change(Deleted, noFilePath, filePath, revision, revisionBefore));
-						changes.add(new Change(Added, filePath, revision));
-
-					} else {
-						// check for text modification because there can also be svn properties modifications
-						if (isTextModification) {
-							changes.add(new Change(Modified, filePath, filePath, revision, revisionBefore));
-						}
-					}
-				}
-			} else if (name.equals("path")) {
-				expectFileName = false;
-			} else if (name.equals("author")) {
-				expectAuthor = false;
-			} else if (name.equals("msg")) {
-				expectComment = false;
-			} else if (name.equals("date")) {
-				expectDate = false;
-				dateTime = dateTimeFormatter.parse(commitDateString, DateTimeUtil::asInstant);
+	/**
+	 * Reads text of the current element (which can be reported by parser in several chunks).
+	 */
+	private String readText() throws XMLStreamException {
+		text.setLength(0);
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == CHARACTERS || event == CDATA || event == SPACE || event == ENTITY_REFERENCE) {
+				text.append(xmlReader.getTextCharacters(), xmlReader.getTextStart(), xmlReader.getTextLength());
+			} else if (event == END_ELEMENT) {
+				break;
 			}
 		}
+		return text.toString();
+	}
 
-		private static SvnChangeType asChangeType(String action) {
-			if (action.equals("A")) return SvnChangeType.Added;
-			else if (action.equals("D")) return SvnChangeType.Delete;
-			else if (action.equals("M")) return SvnChangeType.Modified;
-			else if (action.equals("R")) return SvnChangeType.Replaced;
-			else throw new IllegalStateException("Unknown svn action: " + action);
-		}
+	private static String trimPath(String path) {
+		if (path == null || path.length() < 1) return null;
+		return path.charAt(0) == '/' ? path.substring(1) : null;
+	}
 
-		private static String previous(String revision) {
-			try {
-				Integer i = Integer.valueOf(revision);
-				return i == 1 ? noRevision : String.valueOf(i - 1);
-			} catch (NumberFormatException e) {
-				return "";
-			}
-		}
+	private static SvnChangeType asChangeType(String action) {
+		if (action.equals("A")) return SvnChangeType.Added;
+		else if (action.equals("D")) return SvnChangeType.Delete;
+		else if (action.equals("M")) return SvnChangeType.Modified;
+		else if (action.equals("R")) return SvnChangeType.Replaced;
+		else throw new IllegalStateException("Unknown svn action: " + action);
+	}
 
-		private enum SvnChangeType {
-			Added,
-			Delete,
-			Replaced,
-			Modified
+	private static String previous(String revision) {
+		try {
+			Integer i = Integer.valueOf(revision);
+			return i == 1 ? noRevision : String.valueOf(i - 1);
+		} catch (NumberFormatException e) {
+			return "";
 		}
 	}
 
+	private static XMLInputFactory newXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	private enum SvnChangeType {
+		Added,
+		Delete,
+		Replaced,
+		Modified
+	}
 }
@@ -13,12 +13,22 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 	public static ExceptionWrapper<Result> adapter = Result::new;
 	private final String svnPath;
 	private final String repoUrl;
+	@Nullable private final String revision;
 	private final CommandLine commandLine;
 
 	public SvnInfo(String svnPath, String repoUrl) {
+		this(svnPath, repoUrl, null);
+	}
+
+	/**
+	 * @param revision any revision supported by svn (e.g. "{2014-08-10T15:00:00Z}" to find the latest revision before date);
+	 *                 if null, HEAD revision is used
+	 */
+	public SvnInfo(String svnPath, String repoUrl, @Nullable String revision) {
 		this.svnPath = svnPath;
 		this.repoUrl = repoUrl;
-		this.commandLine = svnInfo(svnPath, repoUrl);
+		this.revision = revision;
+		this.commandLine = revision == null ? svnInfo(svnPath, repoUrl) : svnInfo(svnPath, repoUrl, revision);
 	}
 
 	@Override public SvnInfo.Result execute() {
@@ -26,11 +36,17 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 
 		if (!isSuccessful(commandLine)) return new Result(new VcsError(commandLine.stdout()));
 
-		String repoRoot = parse(commandLine.stdout());
+		String repoRoot = parse("Repository Root:", commandLine.stdout());
 		if (repoRoot == null) {
 			return new Result(new VcsError("Didn't find svn root in output for " + repoUrl));
 		} else {
-			return new Result(repoRoot);
+			String headRevision = parse("Revision:", commandLine.stdout());
+			String repoUuid = parse("Repository UUID:", commandLine.stdout());
+			return new Result(
+					repoRoot,
+					headRevision == null ? Result.unknownRevision : headRevision,
+					repoUuid == null ? Result.unknownUuid : repoUuid
+			);
 		}
 	}
 
@@ -38,11 +54,15 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 		return newExternalCommand(svnPath, "info", repoUrl);
 	}
 
-	@Nullable private static String parse(String stdout) {
+	static CommandLine svnInfo(String svnPath, String repoUrl, String revision) {
+		return newExternalCommand(svnPath, "info", "-r", revision, repoUrl);
+	}
+
+	@Nullable private static String parse(String fieldName, String stdout) {
 		String[] lines = stdout.split("\n");
 		for (String line : lines) {
-			if (line.contains("Repository Root:")) {
-				return line.replace("Repository Root:", "").trim();
+			if (line.startsWith(fieldName)) {
+				return line.replace(fieldName, "").trim();
 			}
 		}
 		return null;
@@ -65,6 +85,7 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 
 		if (repoUrl != null ? !repoUrl.equals(svnInfo.repoUrl) : svnInfo.repoUrl != null) return false;
 		if (svnPath != null ? !svnPath.equals(svnInfo.svnPath) : svnInfo.svnPath != null) return false;
+		if (revision != null ? !revision.equals(svnInfo.revision) : svnInfo.revision != null) return false;
 
 		return true;
 	}
@@ -72,6 +93,7 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 	@Override public int hashCode() {
 		int result = svnPath != null ? svnPath.hashCode() : 0;
 		result = 31 * result + (repoUrl != null ? repoUrl.hashCode() : 0);
+		result = 31 * result + (revision != null ? revision.hashCode() : 0);
 		return result;
 	}
 
@@ -79,27 +101,45 @@ class SvnInfo implements VcsCommand<SvnInfo.Result> {
 		return "SvnInfo{" +
 				"svnPath='" + svnPath + '\'' +
 				", repoUrl='" + repoUrl + '\'' +
+				", revision='" + revision + '\'' +
 				'}';
 	}
 
 
 	public static class Result {
 		public static final String unknownRoot = "";
+		public static final String unknownRevision = "";
+		public static final String unknownUuid = "";
 
 		public final String repoRoot;
+		/**
+		 * The latest revision in repository (or the revision requested by {@link SvnInfo}).
+		 */
+		public final String headRevision;
+		public final String repoUuid;
 		public final Exception exception;
 
 
 		public Result(String repoRoot) {
-			this(repoRoot, null);
+			this(repoRoot, unknownRevision, unknownUuid, null);
+		}
+
+		public Result(String repoRoot, String headRevision) {
+			this(repoRoot, headRevision, unknownUuid, null);
+		}
+
+		public Result(String repoRoot, String headRevision, String repoUuid) {
+			this(repoRoot, headRevision, repoUuid, null);
 		}
 
 		public Result(Exception exception) {
-			this(unknownRoot, exception);
+			this(unknownRoot, unknownRevision, unknownUuid, exception);
 		}
 
-		private Result(String repoRoot, Exception exception) {
+		private Result(String repoRoot, String headRevision, String repoUuid, Exception exception) {
 			this.repoRoot = repoRoot;
+			this.headRevision = headRevision;
+			this.repoUuid = repoUuid;
 			this.exception = exception;
 		}
 
@@ -1,5 +1,7 @@
 package org.vcsreader.vcs.svn;
 
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogFilter;
 import org.vcsreader.LogResult;
 import org.vcsreader.VcsChange;
 import org.vcsreader.VcsCommit;
@@ -9,13 +11,17 @@ import org.vcsreader.vcs.Change;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsError;
 
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
 import static java.time.ZoneOffset.UTC;
 import static org.vcsreader.vcs.svn.SvnUtil.isSuccessful;
 import static org.vcsreader.vcs.svn.SvnUtil.newExternalCommand;
@@ -31,6 +37,7 @@ class SvnLog implements VcsCommand<LogResult> {
 	private final String repoUrl;
 	private final String repoRoot;
 	private final TimeRange timeRange;
+	private final LogFilter filter;
 	private final boolean useMergeHistory;
 	private final boolean quoteDateRange;
 	private final CommandLine commandLine;
@@ -38,21 +45,62 @@ class SvnLog implements VcsCommand<LogResult> {
 
 	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, TimeRange timeRange,
 	              boolean useMergeHistory, boolean quoteDateRange) {
+		this(pathToSvn, repoUrl, repoRoot, timeRange, LogFilter.all, useMergeHistory, quoteDateRange);
+	}
+
+	/**
+	 * @param filter included paths are passed to "svn log" as target paths relative to repository URL
+	 *               (note that svn reports an error if any of these paths doesn't exist in HEAD revision)
+	 */
+	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, TimeRange timeRange, LogFilter filter,
+	              boolean useMergeHistory, boolean quoteDateRange) {
+		this(pathToSvn, repoUrl, repoRoot, timeRange, filter, useMergeHistory, quoteDateRange,
+				svnLog(pathToSvn, repoUrl, timeRange, filter, useMergeHistory, quoteDateRange));
+	}
+
+	/**
+	 * @param fromRevisionExclusive revision number; if null, all commits up to {@code toRevision} are requested
+	 */
+	public SvnLog(String pathToSvn, String repoUrl, String repoRoot, @Nullable String fromRevisionExclusive,
+	              String toRevision, boolean useMergeHistory) {
+		this(pathToSvn, repoUrl, repoRoot, TimeRange.all, LogFilter.all, useMergeHistory, false,
+				svnLog(pathToSvn, repoUrl, svnRevisionRange(fromRevisionExclusive, toRevision), new ArrayList<>(), useMergeHistory));
+	}
+
+	private SvnLog(String pathToSvn, String repoUrl, String repoRoot, TimeRange timeRange, LogFilter filter,
+	               boolean useMergeHistory, boolean quoteDateRange, CommandLine commandLine) {
 		this.pathToSvn = pathToSvn;
 		this.repoUrl = repoUrl;
 		this.repoRoot = repoRoot;
 		this.timeRange = timeRange;
+		this.filter = filter;
 		this.useMergeHistory = useMergeHistory;
 		this.quoteDateRange = quoteDateRange;
-		this.commandLine = svnLog(pathToSvn, repoUrl, timeRange, useMergeHistory, quoteDateRange);
+		this.commandLine = commandLine;
 	}
 
 	@Override public LogResult execute() {
-		commandLine.execute();
+		InputStream stdout = commandLine.start();
+		List<VcsCommit> commits = new ArrayList<>();
+		RuntimeException parseException = null;
+		try {
+			Iterator<VcsCommit> iterator = subPathCommits(SvnCommitParser.parseCommits(stdout), timeRange, repoUrl, repoRoot);
+			while (iterator.hasNext()) {
+				// excluded paths, authors and message keywords are not supported by svn,
+				// so commits are filtered while they are parsed
+				VcsCommit commit = filter.apply(iterator.next());
+				if (commit != null) commits.add(commit);
+			}
+		} catch (RuntimeException e) {
+			// most likely output is incomplete because svn failed, so the exception is only reported if svn succeeded
+			parseException = e;
+			commandLine.kill();
+		} finally {
+			commandLine.waitFor();
+		}
 
 		if (isSuccessful(commandLine)) {
-			List<VcsCommit> allCommits = SvnCommitParser.parseCommits(commandLine.stdout());
-			List<VcsCommit> commits = transformToSubPathCommits(deleteCommitsBefore(timeRange.from(), allCommits));
+			if (parseException != null) throw parseException;
 			return new LogResult(commits);
 		} else {
 			return new LogResult(new VcsError(commandLine.stderr()));
@@ -61,6 +109,28 @@ class SvnLog implements VcsCommand<LogResult> {
 
 	static CommandLine svnLog(String pathToSvn, String repoUrl, TimeRange timeRange,
 	                          boolean useMergeHistory, boolean quoteDateRange) {
+		return svnLog(pathToSvn, repoUrl, timeRange, LogFilter.all, useMergeHistory, quoteDateRange);
+	}
+
+	static CommandLine svnLog(String pathToSvn, String repoUrl, TimeRange timeRange, LogFilter filter,
+	                          boolean useMergeHistory, boolean quoteDateRange) {
+		return svnLog(pathToSvn, repoUrl, svnDateRange(timeRange, quoteDateRange), pathArguments(filter), useMergeHistory);
+	}
+
+	/**
+	 * See "svn help log" (PATH arguments after URL).
+	 */
+	static List<String> pathArguments(LogFilter filter) {
+		List<String> arguments = new ArrayList<>();
+		for (String path : filter.includedPaths()) {
+			if (path.isEmpty()) return new ArrayList<>();
+			arguments.add(path);
+		}
+		return arguments;
+	}
+
+	private static CommandLine svnLog(String pathToSvn, String repoUrl, String revisionRange,
+	                                  List<String> pathArguments, boolean useMergeHistory) {
 		// see http://svnbook.red-bean.com/en/1.8/svn.branchmerge.advanced.html
 		// see http://stackoverflow.com/questions/987337/preserving-history-when-merging-subversion-branches
 		String mergeHistory = (useMergeHistory ? "--use-merge-history" : "");
@@ -69,14 +139,23 @@ class SvnLog implements VcsCommand<LogResult> {
 		@SuppressWarnings("UnnecessaryLocalVariable")
 		Charset svnXmlCharset = UTF_8;
 
-		return newExternalCommand(
-				pathToSvn, "log",
-				repoUrl,
-				"-r", svnDateRange(timeRange, quoteDateRange),
+		List<String> arguments = new ArrayList<>(asList(
+				"log",
+				repoUrl
+		));
+		arguments.addAll(pathArguments);
+		arguments.addAll(asList(
+				"-r", revisionRange,
 				mergeHistory,
 				"--verbose",
 				"--xml"
-		).outputCharset(svnXmlCharset);
+		));
+		return newExternalCommand(pathToSvn, arguments.toArray(new String[0])).outputCharset(svnXmlCharset);
+	}
+
+	private static String svnRevisionRange(@Nullable String fromRevisionExclusive, String toRevision) {
+		String from = fromRevisionExclusive == null ? "1" : Long.toString(Long.parseLong(fromRevisionExclusive) + 1);
+		return from + ":" + toRevision;
 	}
 
 	private static String svnDateRange(TimeRange timeRange, boolean quoteDateRange) {
@@ -93,52 +172,58 @@ class SvnLog implements VcsCommand<LogResult> {
 	}
 
 	/**
-	 * Delete commits because "Subversion will find the most recent revision of the repository as of the date you give".
+	 * Lazily converts commits so that their changes are relative to repository URL (which can be subfolder of repository root).
+	 * Commits before the start of time range are skipped because "Subversion will find the most recent revision
+	 * of the repository as of the date you give".
 	 * See http://svnbook.red-bean.com/en/1.8/svn.tour.revs.specifiers.html#svn.tour.revs.keywords
 	 */
-	private static List<VcsCommit> deleteCommitsBefore(Instant instant, List<VcsCommit> commits) {
-		commits.removeIf(it -> instant != Instant.MIN && it.getDateTime().isBefore(instant));
-		return commits;
-	}
-
-	private List<VcsCommit> transformToSubPathCommits(List<VcsCommit> commits) {
+	static Iterator<VcsCommit> subPathCommits(Iterator<VcsCommit> commits, TimeRange timeRange, String repoUrl, String repoRoot) {
 		String subPath = subPathOf(repoUrl, repoRoot);
-		commits = removeChangesNotIn(subPath, commits);
-		commits = modifyChanges(subPath, commits);
-		return commits;
-	}
-
-	private static List<VcsCommit> modifyChanges(String subPath, List<VcsCommit> commits) {
-		List<VcsCommit> result = new ArrayList<>();
-		for (VcsCommit commit : commits) {
-			List<Change> modifiedChanges = new ArrayList<>();
-			for (VcsChange vcsChange : commit.getChanges()) {
-				Change change = (Change) vcsChange;
-				modifiedChanges.add(change.withTypeAndPaths(
-						changeTypeConsideringSubPath(subPath, change),
-						useSubPathAsRoot(subPath, change.getFilePath()),
-						useSubPathAsRoot(subPath, change.getFilePathBefore())
-				));
+		Instant from = timeRange.from();
+		return new Iterator<VcsCommit>() {
+			private VcsCommit nextCommit;
+
+			@Override public boolean hasNext() {
+				while (nextCommit == null && commits.hasNext()) {
+					VcsCommit commit = commits.next();
+					if (from != Instant.MIN && commit.getDateTime().isBefore(from)) continue;
+					nextCommit = modifyChanges(subPath, removeChangesNotIn(subPath, commit));
+				}
+				return nextCommit != null;
 			}
-			result.add(commit.withChanges(modifiedChanges));
-		}
-		return result;
+
+			@Override public VcsCommit next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				VcsCommit result = nextCommit;
+				nextCommit = null;
+				return result;
+			}
+		};
 	}
 
-	private static List<VcsCommit> removeChangesNotIn(String subPath, List<VcsCommit> commits) {
-		List<VcsCommit> result = new ArrayList<>();
-		for (VcsCommit commit : commits) {
-			List<VcsChange> filteredChanges = new ArrayList<>();
-			for (VcsChange change : commit.getChanges()) {
+	private static VcsCommit modifyChanges(String subPath, VcsCommit commit) {
+		List<Change> modifiedChanges = new ArrayList<>();
+		for (VcsChange vcsChange : commit.getChanges()) {
+			Change change = (Change) vcsChange;
+			modifiedChanges.add(change.withTypeAndPaths(
+					changeTypeConsideringSubPath(subPath, change),
+					useSubPathAsRoot(subPath, change.getFilePath()),
+					useSubPathAsRoot(subPath, change.getFilePathBefore())
+			));
+		}
+		return commit.withChanges(modifiedChanges);
+	}
 
-				if (change.getFilePath().startsWith(subPath) || change.getFilePathBefore().startsWith(subPath)) {
-					filteredChanges.add(change);
-				}
+	private static VcsCommit removeChangesNotIn(String subPath, VcsCommit commit) {
+		List<VcsChange> filteredChanges = new ArrayList<>();
+		for (VcsChange change : commit.getChanges()) {
 
+			if (change.getFilePath().startsWith(subPath) || change.getFilePathBefore().startsWith(subPath)) {
+				filteredChanges.add(change);
 			}
-			result.add(commit.withChanges(filteredChanges));
+
 		}
-		return result;
+		return commit.withChanges(filteredChanges);
 	}
 
 	private static String subPathOf(String repoUrl, String repoRoot) {
@@ -161,6 +246,14 @@ class SvnLog implements VcsCommand<LogResult> {
 		else return filePath.substring(subPath.length());
 	}
 
+	/**
+	 * Checks "svn log" process in the same way as git and hg log commands (see {@link SvnUtil#isSuccessful(CommandLine)}).
+	 * Should be called after {@link #execute()}.
+	 */
+	boolean isCommandSuccessful() {
+		return isSuccessful(commandLine);
+	}
+
 	@Override public String describe() {
 		return commandLine.describe();
 	}
@@ -184,6 +277,7 @@ class SvnLog implements VcsCommand<LogResult> {
 		if (repoRoot != null ? !repoRoot.equals(svnLog.repoRoot) : svnLog.repoRoot != null)
 			return false;
 		if (timeRange != null ? !timeRange.equals(svnLog.timeRange) : svnLog.timeRange != null) return false;
+		if (filter != null ? !filter.equals(svnLog.filter) : svnLog.filter != null) return false;
 		return commandLine != null ? commandLine.equals(svnLog.commandLine) : svnLog.commandLine == null;
 
 	}
@@ -193,6 +287,7 @@ class SvnLog implements VcsCommand<LogResult> {
 		result = 31 * result + (repoUrl != null ? repoUrl.hashCode() : 0);
 		result = 31 * result + (repoRoot != null ? repoRoot.hashCode() : 0);
 		result = 31 * result + (timeRange != null ? timeRange.hashCode() : 0);
+		result = 31 * result + (filter != null ? filter.hashCode() : 0);
 		result = 31 * result + (useMergeHistory ? 1 : 0);
 		result = 31 * result + (quoteDateRange ? 1 : 0);
 		result = 31 * result + (commandLine != null ? commandLine.hashCode() : 0);
@@ -3,6 +3,7 @@ package org.vcsreader.vcs.svn;
 import org.jetbrains.annotations.NotNull;
 import org.vcsreader.LogFileContentResult;
 import org.vcsreader.lang.CommandLine;
+import org.vcsreader.vcs.FileCharsetMemo;
 import org.vcsreader.vcs.VcsCommand;
 
 import java.nio.charset.Charset;
@@ -19,20 +20,23 @@ class SvnLogFileContent implements VcsCommand<LogFileContentResult> {
 	private final String filePath;
 	private final String revision;
 	private final Charset charset;
+	private final FileCharsetMemo charsetMemo;
 	private final CommandLine commandLine;
 
-	SvnLogFileContent(String svnPath, String repoRoot, String filePath, String revision, Charset charset) {
+	SvnLogFileContent(String svnPath, String repoRoot, String filePath, String revision, Charset charset, FileCharsetMemo charsetMemo) {
 		this.svnPath = svnPath;
 		this.repoRoot = repoRoot;
 		this.filePath = filePath;
 		this.revision = revision;
 		this.charset = charset;
-		this.commandLine = svnLogFileContent(svnPath, repoRoot, filePath, revision, charset);
+		this.charsetMemo = charsetMemo;
+		this.commandLine = svnLogFileContent(svnPath, repoRoot, filePath, revision, charset)
+				.charsetGuess(charsetMemo.charsetOf(filePath));
 	}
 
 	static CommandLine svnLogFileContent(String pathToSvn, String repoRoot, String filePath, String revision, Charset charset) {
 		String fileRevisionUrl = repoRoot + "/" + filePath + "@" + revision;
-		return newExternalCommand(pathToSvn, "cat", fileRevisionUrl).outputCharset(charset).charsetAutoDetect(true);
+		return newExternalCommand(pathToSvn, "cat", fileRevisionUrl).outputCharset(charset).charsetAutoDetect(true).detectBinaryOutput(true);
 	}
 
 	@NotNull private static String trimLastNewLine(String s) {
@@ -43,7 +47,12 @@ class SvnLogFileContent implements VcsCommand<LogFileContentResult> {
 	@Override public LogFileContentResult execute() {
 		commandLine.execute();
 		if (isSuccessful(commandLine)) {
-			return new LogFileContentResult(trimLastNewLine(commandLine.stdout()));
+			byte[] binaryContent = commandLine.binaryStdout();
+			if (binaryContent != null) return new LogFileContentResult(binaryContent);
+
+			String text = commandLine.stdout();
+			charsetMemo.update(filePath, commandLine.detectedCharset());
+			return new LogFileContentResult(trimLastNewLine(text));
 		} else {
 			return new LogFileContentResult(commandLine.stderr(), commandLine.exitCode());
 		}
@@ -0,0 +1,67 @@
+package org.vcsreader.vcs.svn;
+
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.LogResult;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.VcsCommand;
+
+/**
+ * Requests commits which are not in {@link CommitCache} yet,
+ * i.e. commits after the last cached revision up to the latest revision in repository.
+ */
+class SvnLogNewCommits implements VcsCommand<CommitCache.Update> {
+	private final String svnPath;
+	private final String repoUrl;
+	@Nullable private final String fromRevisionExclusive;
+	private final boolean useMergeHistory;
+	private final SvnInfo svnInfo;
+	private volatile SvnLog svnLog;
+
+
+	public SvnLogNewCommits(String svnPath, String repoUrl, @Nullable String fromRevisionExclusive, boolean useMergeHistory) {
+		this.svnPath = svnPath;
+		this.repoUrl = repoUrl;
+		this.fromRevisionExclusive = fromRevisionExclusive;
+		this.useMergeHistory = useMergeHistory;
+		this.svnInfo = new SvnInfo(svnPath, repoUrl);
+	}
+
+	@Override public CommitCache.Update execute() {
+		SvnInfo.Result infoResult = svnInfo.execute();
+		if (!infoResult.isSuccessful()) {
+			return new CommitCache.Update(null, new LogResult(infoResult.exception), false);
+		}
+		String headRevision = infoResult.headRevision;
+		if (headRevision.equals(fromRevisionExclusive)) {
+			return new CommitCache.Update(headRevision, new LogResult(), false);
+		}
+		if (headRevision.equals("0")) {
+			return new CommitCache.Update(headRevision, new LogResult(), true);
+		}
+
+		svnLog = new SvnLog(svnPath, repoUrl, infoResult.repoRoot, fromRevisionExclusive, headRevision, useMergeHistory);
+		LogResult logResult = svnLog.execute();
+		return new CommitCache.Update(svnLog.isCommandSuccessful() ? headRevision : null, logResult, fromRevisionExclusive == null);
+	}
+
+	@Override public String describe() {
+		String result = svnInfo.describe();
+		if (svnLog != null) result += "\n" + svnLog.describe();
+		return result;
+	}
+
+	@Override public boolean cancel() {
+		boolean notRunning = svnInfo.cancel();
+		if (svnLog != null) notRunning &= svnLog.cancel();
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "SvnLogNewCommits{" +
+				"svnPath='" + svnPath + '\'' +
+				", repoUrl='" + repoUrl + '\'' +
+				", fromRevisionExclusive='" + fromRevisionExclusive + '\'' +
+				", useMergeHistory=" + useMergeHistory +
+				'}';
+	}
+}
@@ -0,0 +1,69 @@
+package org.vcsreader.vcs.svn;
+
+import org.vcsreader.LogStream;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.CommandLine;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.vcsreader.vcs.svn.SvnLog.subPathCommits;
+import static org.vcsreader.vcs.svn.SvnLog.svnLog;
+import static org.vcsreader.vcs.svn.SvnUtil.isSuccessful;
+
+/**
+ * Streaming version of {@link SvnLog}.
+ */
+@SuppressWarnings("Duplicates") // because it's similar to HgLogStream
+class SvnLogStream implements VcsCommand<LogStream> {
+	private final String pathToSvn;
+	private final String repoUrl;
+	private final String repoRoot;
+	private final TimeRange timeRange;
+	private final CommandLine commandLine;
+
+
+	public SvnLogStream(String pathToSvn, String repoUrl, String repoRoot, TimeRange timeRange,
+	                    boolean useMergeHistory, boolean quoteDateRange) {
+		this.pathToSvn = pathToSvn;
+		this.repoUrl = repoUrl;
+		this.repoRoot = repoRoot;
+		this.timeRange = timeRange;
+		this.commandLine = svnLog(pathToSvn, repoUrl, timeRange, useMergeHistory, quoteDateRange);
+	}
+
+	@Override public LogStream execute() {
+		Iterator<VcsCommit> commits = SvnCommitParser.parseCommits(commandLine.start());
+		return new LogStream(subPathCommits(commits, timeRange, repoUrl, repoRoot), new LogStream.Source() {
+			@Override public List<Exception> finish() {
+				commandLine.waitFor();
+				return isSuccessful(commandLine) ? new ArrayList<>() : asList(new VcsError(commandLine.stderr()));
+			}
+
+			@Override public void cancel() {
+				commandLine.kill();
+			}
+		});
+	}
+
+	@Override public String describe() {
+		return commandLine.describe();
+	}
+
+	@Override public boolean cancel() {
+		return commandLine.kill();
+	}
+
+	@Override public String toString() {
+		return "SvnLogStream{" +
+				"pathToSvn='" + pathToSvn + '\'' +
+				", repoUrl='" + repoUrl + '\'' +
+				", timeRange=" + timeRange +
+				'}';
+	}
+}
@@ -0,0 +1,169 @@
+package org.vcsreader.vcs.svn;
+
+import org.vcsreader.LogResult;
+import org.vcsreader.VcsCommit;
+import org.vcsreader.lang.ParallelTasks;
+import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.VcsCommand;
+import org.vcsreader.vcs.VcsError;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.time.ZoneOffset.UTC;
+
+/**
+ * Requests commits with several "svn log" commands, each for a window of {@code pageSize} revisions
+ * (as opposed to {@link SvnLog} which requests the whole time range with one command).
+ * Pages can be requested concurrently (see {@link ParallelTasks}). If page request fails, it is retried once;
+ * commits from successful pages are returned even if some of the pages failed.
+ * <p>
+ * Time range is converted to revision range using "svn info" on repository root
+ * (svn resolves date to the latest revision before the date).
+ * Recently requested HEAD revision is reused from {@link SvnRepoInfoCache}.
+ */
+class SvnPagedLog implements VcsCommand<LogResult> {
+	private final String svnPath;
+	private final String repoUrl;
+	private final String repoRoot;
+	private final TimeRange timeRange;
+	private final boolean useMergeHistory;
+	private final boolean quoteDateRange;
+	private final int pageSize;
+	private final int parallelism;
+	private final SvnRepoInfoCache repoInfoCache;
+	private final List<VcsCommand<?>> commands = new CopyOnWriteArrayList<>();
+	private volatile boolean isCancelled;
+
+
+	/**
+	 * @param quoteDateRange if true, dates in "svn info" revision argument are quoted (see {@link SvnLog})
+	 */
+	public SvnPagedLog(String svnPath, String repoUrl, String repoRoot, TimeRange timeRange, boolean useMergeHistory,
+	                   boolean quoteDateRange, int pageSize, int parallelism, SvnRepoInfoCache repoInfoCache) {
+		this.svnPath = svnPath;
+		this.repoUrl = repoUrl;
+		this.repoRoot = repoRoot;
+		this.timeRange = timeRange;
+		this.useMergeHistory = useMergeHistory;
+		this.quoteDateRange = quoteDateRange;
+		this.pageSize = pageSize;
+		this.parallelism = parallelism;
+		this.repoInfoCache = repoInfoCache;
+	}
+
+	@Override public LogResult execute() {
+		SvnInfo.Result fromInfo = timeRange.from() == Instant.MIN ? null : revisionAt(timeRange.from());
+		if (fromInfo != null && !fromInfo.isSuccessful()) return new LogResult(fromInfo.exception);
+		SvnInfo.Result toInfo = timeRange.to() == Instant.MAX ? headRevision() : revisionAt(timeRange.to().minusSeconds(1));
+		if (!toInfo.isSuccessful()) return new LogResult(toInfo.exception);
+
+		if ((fromInfo != null && fromInfo.headRevision.isEmpty()) || toInfo.headRevision.isEmpty()) {
+			return new LogResult(new VcsError("Didn't find revision range in svn info output for " + repoRoot));
+		}
+		long fromRevision = fromInfo == null ? 1 : Math.max(1, Long.parseLong(fromInfo.headRevision));
+		long toRevision = Long.parseLong(toInfo.headRevision);
+		if (fromRevision > toRevision) return new LogResult();
+
+		List<Callable<LogResult>> pages = new ArrayList<>();
+		for (long pageStart = fromRevision; pageStart <= toRevision; pageStart += pageSize) {
+			long pageEnd = Math.min(pageStart + pageSize - 1, toRevision);
+			long from = pageStart;
+			pages.add(() -> logPage(from, pageEnd));
+		}
+		return execute(pages);
+	}
+
+	private LogResult execute(List<Callable<LogResult>> pages) {
+		try {
+			List<Future<LogResult>> futures = ParallelTasks.invokeAll(pages, parallelism);
+			List<VcsCommit> commits = new ArrayList<>();
+			List<Exception> exceptions = new ArrayList<>();
+			for (Future<LogResult> future : futures) {
+				try {
+					LogResult logResult = future.get();
+					commits.addAll(logResult.commits());
+					exceptions.addAll(logResult.exceptions());
+				} catch (ExecutionException e) {
+					exceptions.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+				}
+			}
+			commits.removeIf(commit -> !isInTimeRange(commit.getDateTime()));
+			return new LogResult(commits, exceptions);
+		} catch (InterruptedException e) {
+			cancel();
+			Thread.currentThread().interrupt();
+			return new LogResult(e);
+		}
+	}
+
+	private LogResult logPage(long fromRevision, long toRevision) {
+		LogResult logResult = null;
+		for (int attempt = 0; attempt < 2 && !isCancelled; attempt++) {
+			SvnLog svnLog = new SvnLog(svnPath, repoUrl, repoRoot, Long.toString(fromRevision - 1), Long.toString(toRevision), useMergeHistory);
+			commands.add(svnLog);
+			logResult = svnLog.execute();
+			if (logResult.isSuccessful()) break;
+		}
+		return logResult == null ? new LogResult() : logResult;
+	}
+
+	private SvnInfo.Result headRevision() {
+		String headRevision = repoInfoCache.headRevision(svnPath, repoUrl);
+		if (headRevision != null) return new SvnInfo.Result(repoRoot, headRevision);
+
+		SvnInfo.Result result = svnInfo(null);
+		if (result.isSuccessful() && !result.headRevision.isEmpty()) {
+			repoInfoCache.updateHeadRevision(svnPath, repoUrl, result.headRevision);
+		}
+		return result;
+	}
+
+	private SvnInfo.Result revisionAt(Instant instant) {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(UTC);
+		String revision = "{" + formatter.format(instant) + "}";
+		return svnInfo(quoteDateRange ? "'" + revision + "'" : revision);
+	}
+
+	private SvnInfo.Result svnInfo(String revision) {
+		// use repository root because repository URL might not exist at the specified revision
+		SvnInfo svnInfo = new SvnInfo(svnPath, repoRoot, revision);
+		commands.add(svnInfo);
+		return svnInfo.execute();
+	}
+
+	private boolean isInTimeRange(Instant instant) {
+		return !instant.isBefore(timeRange.from()) && instant.isBefore(timeRange.to());
+	}
+
+	@Override public String describe() {
+		StringBuilder result = new StringBuilder();
+		for (VcsCommand<?> command : commands) {
+			if (result.length() > 0) result.append("\n");
+			result.append(command.describe());
+		}
+		return result.toString();
+	}
+
+	@Override public boolean cancel() {
+		isCancelled = true;
+		boolean notRunning = true;
+		for (VcsCommand<?> command : commands) {
+			notRunning &= command.cancel();
+		}
+		return notRunning;
+	}
+
+	@Override public String toString() {
+		return "SvnPagedLog{" +
+				"svnPath='" + svnPath + '\'' +
+				", repoUrl='" + repoUrl + '\'' +
+				", timeRange=" + timeRange +
+				", pageSize=" + pageSize +
+				", parallelism=" + parallelism +
+				'}';
+	}
+}
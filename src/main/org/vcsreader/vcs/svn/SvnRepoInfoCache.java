@@ -0,0 +1,112 @@
+package org.vcsreader.vcs.svn;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metadata of svn repositories which is requested by {@link SvnVcsRoot} before running "svn log"
+ * (repository root, UUID, HEAD revision and whether date range argument needs quoting).
+ * It is shared by all roots with the same svn executable and repository URL,
+ * so that roots created by {@link SvnVcsRoot#withListener} don't have to request it again.
+ * <p>
+ * HEAD revision is only reused within {@code headRevisionTtl} because new commits can be added to repository.
+ */
+class SvnRepoInfoCache {
+	static final SvnRepoInfoCache shared = new SvnRepoInfoCache(Duration.ofSeconds(10), Clock.systemUTC());
+
+	private final Duration headRevisionTtl;
+	private final Clock clock;
+	private final ConcurrentHashMap<String, RepoInfo> infoByKey = new ConcurrentHashMap<>();
+
+
+	SvnRepoInfoCache(Duration headRevisionTtl, Clock clock) {
+		this.headRevisionTtl = headRevisionTtl;
+		this.clock = clock;
+	}
+
+	@Nullable String repoRoot(String svnPath, String repoUrl) {
+		RepoInfo info = infoByKey.get(keyOf(svnPath, repoUrl));
+		return info == null ? null : info.repoRoot;
+	}
+
+	@Nullable String repoUuid(String svnPath, String repoUrl) {
+		RepoInfo info = infoByKey.get(keyOf(svnPath, repoUrl));
+		return info == null ? null : info.repoUuid;
+	}
+
+	/**
+	 * @return HEAD revision if it was requested not longer than TTL ago; otherwise null
+	 */
+	@Nullable String headRevision(String svnPath, String repoUrl) {
+		RepoInfo info = infoByKey.get(keyOf(svnPath, repoUrl));
+		if (info == null || info.headRevision.equals(SvnInfo.Result.unknownRevision)) return null;
+		Instant now = clock.instant();
+		return info.headRevisionTime.plus(headRevisionTtl).isAfter(now) ? info.headRevision : null;
+	}
+
+	boolean quoteDateRange(String svnPath, String repoUrl) {
+		RepoInfo info = infoByKey.get(keyOf(svnPath, repoUrl));
+		return info != null && info.quoteDateRange;
+	}
+
+	/**
+	 * @param result successful result of "svn info" command for repository URL
+	 */
+	void update(String svnPath, String repoUrl, @NotNull SvnInfo.Result result) {
+		Instant now = clock.instant();
+		infoByKey.compute(keyOf(svnPath, repoUrl), (key, info) -> new RepoInfo(
+				result.repoRoot,
+				result.repoUuid,
+				result.headRevision,
+				now,
+				info != null && info.quoteDateRange
+		));
+	}
+
+	void updateHeadRevision(String svnPath, String repoUrl, String headRevision) {
+		Instant now = clock.instant();
+		infoByKey.computeIfPresent(keyOf(svnPath, repoUrl), (key, info) -> new RepoInfo(
+				info.repoRoot,
+				info.repoUuid,
+				headRevision,
+				now,
+				info.quoteDateRange
+		));
+	}
+
+	void updateQuoteDateRange(String svnPath, String repoUrl, boolean quoteDateRange) {
+		infoByKey.computeIfPresent(keyOf(svnPath, repoUrl), (key, info) -> new RepoInfo(
+				info.repoRoot,
+				info.repoUuid,
+				info.headRevision,
+				info.headRevisionTime,
+				quoteDateRange
+		));
+	}
+
+	private static String keyOf(String svnPath, String repoUrl) {
+		return svnPath + ":" + repoUrl;
+	}
+
+
+	private static class RepoInfo {
+		final String repoRoot;
+		final String repoUuid;
+		final String headRevision;
+		final Instant headRevisionTime;
+		final boolean quoteDateRange;
+
+		RepoInfo(String repoRoot, String repoUuid, String headRevision, Instant headRevisionTime, boolean quoteDateRange) {
+			this.repoRoot = repoRoot;
+			this.repoUuid = repoUuid;
+			this.headRevision = headRevision;
+			this.headRevisionTime = headRevisionTime;
+			this.quoteDateRange = quoteDateRange;
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package org.vcsreader.vcs.svn;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.FileContentCache;
 
 import java.nio.charset.Charset;
 
@@ -11,6 +14,10 @@ public class SvnSettings {
 	@NotNull private final Charset defaultFileCharset;
 	private final boolean useMergeHistory;
 	private final boolean failFast;
+	@Nullable private final CommitCache commitCache;
+	@Nullable private final FileContentCache fileContentCache;
+	private final int logPageSize;
+	private final int logParallelism;
 
 	/**
 	 * @param svnPath            path to svn executable
@@ -22,10 +29,20 @@ public class SvnSettings {
 	 *                           otherwise will aggregate all exceptions/errors into result object
 	 */
 	public SvnSettings(@NotNull String svnPath, @NotNull Charset defaultFileCharset, boolean useMergeHistory, boolean failFast) {
+		this(svnPath, defaultFileCharset, useMergeHistory, failFast, null, null, 0, 1);
+	}
+
+	private SvnSettings(@NotNull String svnPath, @NotNull Charset defaultFileCharset, boolean useMergeHistory, boolean failFast,
+	                    @Nullable CommitCache commitCache, @Nullable FileContentCache fileContentCache,
+	                    int logPageSize, int logParallelism) {
 		this.svnPath = svnPath;
 		this.defaultFileCharset = defaultFileCharset;
 		this.useMergeHistory = useMergeHistory;
 		this.failFast = failFast;
+		this.commitCache = commitCache;
+		this.fileContentCache = fileContentCache;
+		this.logPageSize = logPageSize;
+		this.logParallelism = logParallelism;
 	}
 
 	public static SvnSettings defaults() {
@@ -33,19 +50,44 @@ public class SvnSettings {
 	}
 
 	public SvnSettings withSvnPath(String value) {
-		return new SvnSettings(value, defaultFileCharset, useMergeHistory, failFast);
+		return new SvnSettings(value, defaultFileCharset, useMergeHistory, failFast, commitCache, fileContentCache, logPageSize, logParallelism);
 	}
 
 	public SvnSettings withDefaultFileCharset(Charset value) {
-		return new SvnSettings(svnPath, value, useMergeHistory, failFast);
+		return new SvnSettings(svnPath, value, useMergeHistory, failFast, commitCache, fileContentCache, logPageSize, logParallelism);
 	}
 
 	public SvnSettings withMergeHistory(boolean value) {
-		return new SvnSettings(svnPath, defaultFileCharset, value, failFast);
+		return new SvnSettings(svnPath, defaultFileCharset, value, failFast, commitCache, fileContentCache, logPageSize, logParallelism);
 	}
 
 	public SvnSettings withFailFast(boolean value) {
-		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, value);
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, value, commitCache, fileContentCache, logPageSize, logParallelism);
+	}
+
+	public SvnSettings withCommitCache(@Nullable CommitCache value) {
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, value, fileContentCache, logPageSize, logParallelism);
+	}
+
+	public SvnSettings withFileContentCache(@Nullable FileContentCache value) {
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, commitCache, value, logPageSize, logParallelism);
+	}
+
+	/**
+	 * @param value number of revisions requested by each "svn log" command;
+	 *              if 0, commits for the whole time range are requested with single command
+	 */
+	public SvnSettings withLogPageSize(int value) {
+		if (value < 0) throw new IllegalArgumentException("Page size cannot be negative: " + value);
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, commitCache, fileContentCache, value, logParallelism);
+	}
+
+	/**
+	 * @param value max number of "svn log" commands which can run concurrently if log page size is specified
+	 */
+	public SvnSettings withLogParallelism(int value) {
+		if (value < 1) throw new IllegalArgumentException("Parallelism must be positive: " + value);
+		return new SvnSettings(svnPath, defaultFileCharset, useMergeHistory, failFast, commitCache, fileContentCache, logPageSize, value);
 	}
 
 	@NotNull public String svnPath() {
@@ -64,6 +106,22 @@ public class SvnSettings {
 		return failFast;
 	}
 
+	@Nullable public CommitCache commitCache() {
+		return commitCache;
+	}
+
+	@Nullable public FileContentCache fileContentCache() {
+		return fileContentCache;
+	}
+
+	public int logPageSize() {
+		return logPageSize;
+	}
+
+	public int logParallelism() {
+		return logParallelism;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
@@ -72,8 +130,12 @@ public class SvnSettings {
 
 		return useMergeHistory == that.useMergeHistory &&
 				failFast == that.failFast &&
+				logPageSize == that.logPageSize &&
+				logParallelism == that.logParallelism &&
 				svnPath.equals(that.svnPath) &&
-				defaultFileCharset.equals(that.defaultFileCharset);
+				defaultFileCharset.equals(that.defaultFileCharset) &&
+				(commitCache != null ? commitCache.equals(that.commitCache) : that.commitCache == null) &&
+				(fileContentCache != null ? fileContentCache.equals(that.fileContentCache) : that.fileContentCache == null);
 	}
 
 	@Override public int hashCode() {
@@ -81,6 +143,10 @@ public class SvnSettings {
 		result = 31 * result + defaultFileCharset.hashCode();
 		result = 31 * result + (useMergeHistory ? 1 : 0);
 		result = 31 * result + (failFast ? 1 : 0);
+		result = 31 * result + (commitCache != null ? commitCache.hashCode() : 0);
+		result = 31 * result + (fileContentCache != null ? fileContentCache.hashCode() : 0);
+		result = 31 * result + logPageSize;
+		result = 31 * result + logParallelism;
 		return result;
 	}
 
@@ -90,6 +156,10 @@ public class SvnSettings {
 				", defaultFileCharset=" + defaultFileCharset +
 				", useMergeHistory=" + useMergeHistory +
 				", failFast=" + failFast +
+				", commitCache=" + commitCache +
+				", fileContentCache=" + fileContentCache +
+				", logPageSize=" + logPageSize +
+				", logParallelism=" + logParallelism +
 				'}';
 	}
 }
@@ -1,17 +1,29 @@
 package org.vcsreader.vcs.svn;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.vcsreader.*;
+import org.vcsreader.lang.CommandLine;
 import org.vcsreader.lang.TimeRange;
+import org.vcsreader.vcs.CommitCache;
+import org.vcsreader.vcs.FileCharsetMemo;
+import org.vcsreader.vcs.FileContentCache;
+import org.vcsreader.vcs.LogFileContentStream;
 import org.vcsreader.vcs.VcsCommand;
 import org.vcsreader.vcs.VcsCommand.ExceptionWrapper;
+import org.vcsreader.vcs.VcsError;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.vcsreader.vcs.svn.SvnLogFileContent.svnLogFileContent;
 
 public class SvnVcsRoot implements VcsRoot, VcsCommand.Observer {
 	@NotNull private final String repoUrl;
 	@NotNull private final SvnSettings settings;
 	private final VcsCommand.Listener listener;
-	private String repoRoot;
-	private boolean quoteDateRange = false;
+	private final SvnRepoInfoCache repoInfoCache = SvnRepoInfoCache.shared;
+	private final FileCharsetMemo charsetMemo;
 	private volatile VcsCommand lastCommand;
 
 
@@ -24,17 +36,19 @@ public class SvnVcsRoot implements VcsRoot, VcsCommand.Observer {
 	 * @param settings settings which will be used by VCS commands executed on this root
 	 */
 	public SvnVcsRoot(@NotNull String repoUrl, @NotNull SvnSettings settings) {
-		this(repoUrl, settings, VcsCommand.Listener.none);
+		this(repoUrl, settings, VcsCommand.Listener.none, new FileCharsetMemo());
 	}
 
-	private SvnVcsRoot(@NotNull String repoUrl, @NotNull SvnSettings settings, VcsCommand.Listener listener) {
+	private SvnVcsRoot(@NotNull String repoUrl, @NotNull SvnSettings settings, VcsCommand.Listener listener,
+	                   FileCharsetMemo charsetMemo) {
 		this.repoUrl = repoUrl;
 		this.settings = settings;
 		this.listener = listener;
+		this.charsetMemo = charsetMemo;
 	}
 
 	@Override public SvnVcsRoot withListener(VcsCommand.Listener listener) {
-		return new SvnVcsRoot(repoUrl, settings, listener);
+		return new SvnVcsRoot(repoUrl, settings, listener, charsetMemo);
 	}
 
 	@Override public CloneResult cloneIt() {
@@ -46,43 +60,156 @@ public class SvnVcsRoot implements VcsRoot, VcsCommand.Observer {
 	}
 
 	@Override public LogResult log(TimeRange timeRange) {
-		if (repoRoot == null) {
-			SvnInfo.Result result = execute(new SvnInfo(settings.svnPath(), repoUrl), SvnInfo.adapter);
-			if (!result.isSuccessful()) {
-				return new LogResult(result.exception);
-			}
-			repoRoot = result.repoRoot;
+		return log(timeRange, LogFilter.all);
+	}
+
+	/**
+	 * Included paths from the filter are passed to "svn log" unless commit cache or paged log is used.
+	 */
+	@Override public LogResult log(TimeRange timeRange, LogFilter filter) {
+		CommitCache commitCache = settings.commitCache();
+		if (commitCache != null) {
+			return filter.apply(commitCache.log(cacheKey(), timeRange, fromRevision -> execute(
+					new SvnLogNewCommits(settings.svnPath(), repoUrl, fromRevision, settings.useMergeHistory()),
+					CommitCache.Update.adapter
+			)));
 		}
-		LogResult logResult = execute(svnLog(timeRange), LogResult.adapter);
+		Exception exception = initRepoRoot();
+		if (exception != null) return new LogResult(exception);
+		String repoRoot = repoInfoCache.repoRoot(settings.svnPath(), repoUrl);
+
+		boolean isPaged = settings.logPageSize() > 0;
+		Function<Boolean, VcsCommand<LogResult>> newLog = isPaged ?
+				quote -> svnPagedLog(repoRoot, timeRange, quote) :
+				quote -> svnLog(repoRoot, timeRange, filter, quote);
+
+		boolean quoteDateRange = repoInfoCache.quoteDateRange(settings.svnPath(), repoUrl);
+		LogResult logResult = execute(newLog.apply(quoteDateRange), LogResult.adapter);
 		if (hasRevisionArgumentError(logResult)) {
-			quoteDateRange = !quoteDateRange;
-			logResult = execute(svnLog(timeRange), LogResult.adapter);
+			logResult = execute(newLog.apply(!quoteDateRange), LogResult.adapter);
+			if (!hasRevisionArgumentError(logResult)) {
+				repoInfoCache.updateQuoteDateRange(settings.svnPath(), repoUrl, !quoteDateRange);
+			}
+		}
+		return isPaged ? filter.apply(logResult) : logResult;
+	}
+
+	/**
+	 * Runs "svn log -r N:M" where N is the revision after {@code fromRevisionExclusive}. Commit cache is not used.
+	 *
+	 * @param fromRevisionExclusive must be revision number
+	 */
+	@Override public LogResult log(@Nullable String fromRevisionExclusive, String toRevision) {
+		if (fromRevisionExclusive != null && !fromRevisionExclusive.matches("\\d+")) {
+			return new LogResult(new VcsError("Expected svn revision number but was: '" + fromRevisionExclusive + "'"));
 		}
-		return logResult;
+		if (fromRevisionExclusive != null && toRevision.matches("\\d+") &&
+				Long.parseLong(fromRevisionExclusive) >= Long.parseLong(toRevision)) {
+			// avoid "svn log -r N+1:M" which logs revisions in reverse order if N >= M
+			return new LogResult();
+		}
+		Exception exception = initRepoRoot();
+		if (exception != null) return new LogResult(exception);
+		String repoRoot = repoInfoCache.repoRoot(settings.svnPath(), repoUrl);
+
+		SvnLog svnLog = new SvnLog(settings.svnPath(), repoUrl, repoRoot, fromRevisionExclusive, toRevision, settings.useMergeHistory());
+		return execute(svnLog, LogResult.adapter);
+	}
+
+	/**
+	 * Unlike {@link #log(TimeRange)} doesn't retry with quoted date range if svn reports revision argument error,
+	 * because error is only known after all commits were read.
+	 */
+	@Override public LogStream logStream(TimeRange timeRange) {
+		if (settings.commitCache() != null) return new LogStream(log(timeRange));
+
+		Exception exception = initRepoRoot();
+		if (exception != null) return new LogStream(new LogResult(exception));
+
+		SvnLogStream svnLogStream = new SvnLogStream(
+				settings.svnPath(),
+				repoUrl,
+				repoInfoCache.repoRoot(settings.svnPath(), repoUrl),
+				timeRange,
+				settings.useMergeHistory(),
+				repoInfoCache.quoteDateRange(settings.svnPath(), repoUrl)
+		);
+		return executeStream(svnLogStream, LogStream.adapter, LogStream::whenFinished);
+	}
+
+	/**
+	 * Requests repository root unless it's already known for this URL (e.g. from another root with the same URL).
+	 *
+	 * @return exception if repository root couldn't be requested from svn
+	 */
+	@Nullable private Exception initRepoRoot() {
+		if (repoInfoCache.repoRoot(settings.svnPath(), repoUrl) != null) return null;
+		SvnInfo.Result result = execute(new SvnInfo(settings.svnPath(), repoUrl), SvnInfo.adapter);
+		if (!result.isSuccessful()) return result.exception;
+		repoInfoCache.update(settings.svnPath(), repoUrl, result);
+		return null;
 	}
 
 	@Override public LogFileContentResult logFileContent(String filePath, String revision) {
+		FileContentCache fileContentCache = settings.fileContentCache();
+		if (fileContentCache == null) {
+			return logFileContentFromVcs(filePath, revision);
+		}
+		String rootKey = cacheKey() + ":" + settings.defaultFileCharset();
+		return fileContentCache.logFileContent(rootKey, filePath, revision, () -> logFileContentFromVcs(filePath, revision));
+	}
+
+	/**
+	 * Content is always requested from VCS, i.e. it's not looked up in {@link FileContentCache}.
+	 */
+	@Override public FileContentStream logFileContentStream(String filePath, String revision) {
+		CommandLine commandLine = svnLogFileContent(settings.svnPath(), repoUrl, filePath, revision, settings.defaultFileCharset());
+		LogFileContentStream logFileContentStream = new LogFileContentStream(commandLine, filePath, charsetMemo, SvnUtil::isSuccessful);
+		return executeStream(logFileContentStream, FileContentStream.adapter, FileContentStream::whenClosed);
+	}
+
+	private LogFileContentResult logFileContentFromVcs(String filePath, String revision) {
 		SvnLogFileContent logFileContent = new SvnLogFileContent(
 				settings.svnPath(),
 				repoUrl,
 				filePath,
 				revision,
-				settings.defaultFileCharset()
+				settings.defaultFileCharset(),
+				charsetMemo
 		);
 		return execute(logFileContent, LogFileContentResult.adapter);
 	}
 
-	private SvnLog svnLog(TimeRange timeRange) {
+	private SvnPagedLog svnPagedLog(String repoRoot, TimeRange timeRange, boolean quoteDateRange) {
+		return new SvnPagedLog(
+				settings.svnPath(),
+				repoUrl,
+				repoRoot,
+				timeRange,
+				settings.useMergeHistory(),
+				quoteDateRange,
+				settings.logPageSize(),
+				settings.logParallelism(),
+				repoInfoCache
+		);
+	}
+
+	private SvnLog svnLog(String repoRoot, TimeRange timeRange, LogFilter filter, boolean quoteDateRange) {
 		return new SvnLog(
 				settings.svnPath(),
 				repoUrl,
 				repoRoot,
 				timeRange,
+				filter,
 				settings.useMergeHistory(),
 				quoteDateRange
 		);
 	}
 
+	private String cacheKey() {
+		return "svn:" + repoUrl;
+	}
+
 	/**
 	 * This is workaround for error in cygwin when "{}" in date range argument
 	 * are interpreted by shell and, therefore, need quoting.
@@ -107,6 +234,14 @@ public class SvnVcsRoot implements VcsRoot, VcsCommand.Observer {
 		}
 	}
 
+	private <T> T executeStream(VcsCommand<T> vcsCommand, ExceptionWrapper<T> exceptionWrapper, BiFunction<T, Runnable, T> whenFinished) {
+		// command is still running after the stream was returned, so it's unregistered when the stream has finished
+		lastCommand = vcsCommand;
+		return VcsCommand.executeStream(vcsCommand, exceptionWrapper, listener, settings.failFast(), whenFinished, () -> {
+			if (lastCommand == vcsCommand) lastCommand = null;
+		});
+	}
+
 	@NotNull @Override public String repoFolder() {
 		return "";
 	}
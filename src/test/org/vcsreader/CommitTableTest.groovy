@@ -0,0 +1,47 @@
+package org.vcsreader
+
+import org.junit.Test
+import org.vcsreader.vcs.Change
+import org.vcsreader.vcs.Commit
+
+import java.time.Instant
+
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+
+class CommitTableTest {
+	@Test void "convert commits to columns"() {
+		def logResult = new LogResult([
+				new Commit("1", "", Instant.ofEpochSecond(1), "Author1", "", [new Change(Added, "file1", "1"), new Change(Added, "file2", "1")]),
+				new Commit("2", "1", Instant.ofEpochSecond(2), "Author2", "", []),
+				new Commit("3", "2", Instant.ofEpochSecond(3), "Author1", "", [new Change(Deleted, noFilePath, "file1", "3", "2")])
+		])
+
+		def table = logResult.toCommitTable()
+
+		assert table.commitCount() == 3
+		assert table.changeCount() == 3
+		assert table.revision(1) == "2"
+		assert table.commitTimes() == [1000, 2000, 3000] as long[]
+		assert table.authorIds().collect{ table.author(it) } == ["Author1", "Author2", "Author1"]
+		assert table.changeOffsets() == [0, 2, 2, 3] as int[]
+		assert table.changeTypes().collect{ CommitTable.changeType(it) } == [Added, Added, Deleted]
+		assert table.filePathIds().collect{ table.filePath(it) } == ["file1", "file2", noFilePath]
+		assert table.filePathBeforeIds().collect{ table.filePath(it) } == [noFilePath, noFilePath, "file1"]
+		assert table.authorCount() == 2
+		assert table.filePathCount() == 3
+	}
+
+	@Test void "count changes per file"() {
+		def commits = (1..10).collect { i ->
+			new Commit("$i", "", Instant.ofEpochSecond(i), "Author", "", [new Change(Modified, "file${i % 3}", "file${i % 3}", "$i", "")])
+		}
+		def table = CommitTable.from(commits)
+
+		def changeCounts = new int[table.filePathCount()]
+		for (int id : table.filePathIds()) changeCounts[id]++
+
+		assert (0..<table.filePathCount()).collectEntries{ [table.filePath(it), changeCounts[it]] } ==
+				["": 0, "file1": 4, "file2": 3, "file0": 3]
+	}
+}
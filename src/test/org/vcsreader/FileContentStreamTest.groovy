@@ -0,0 +1,53 @@
+package org.vcsreader
+
+import org.junit.Test
+import org.vcsreader.vcs.VcsError
+
+class FileContentStreamTest {
+	@Test void "stream of already loaded content"() {
+		def stream = new FileContentStream(new LogFileContentResult("été"))
+		assert !stream.binary
+		assert stream.reader().text == "été"
+		assert stream.successful
+
+		stream = new FileContentStream(new LogFileContentResult([1, 0, 2] as byte[]))
+		assert stream.binary
+		assert stream.inputStream().bytes == [1, 0, 2] as byte[]
+	}
+
+	@Test void "errors are reported after content was read"() {
+		def stream = new FileContentStream(new LogFileContentResult("some error", 1))
+		stream.withCloseable { assert it.inputStream().bytes.length == 0 }
+		assert stream.exceptions() == [new VcsError("some error")]
+	}
+
+	@Test void "errors are reported if stream is closed at the end of content"() {
+		def stream = new FileContentStream(new LogFileContentResult("file not found", 1))
+		assert !stream.binary
+		stream.close()
+		assert !stream.successful
+
+		def source = [
+				charsetOf: { bytes, length -> null },
+				finish: { [new VcsError("some error")] },
+				cancel: { assert false }
+		] as FileContentStream.Source
+		stream = new FileContentStream(new ByteArrayInputStream(new byte[10]), source)
+		stream.inputStream().read(new byte[10])
+		stream.close()
+		assert stream.exceptions() == [new VcsError("some error")]
+	}
+
+	@Test void "cancel source if stream is closed before content was read"() {
+		def isCancelled = false
+		def source = [
+				charsetOf: { bytes, length -> null },
+				finish: { [] },
+				cancel: { isCancelled = true }
+		] as FileContentStream.Source
+		def stream = new FileContentStream(new ByteArrayInputStream(new byte[100000]), source)
+		stream.inputStream().read(new byte[10])
+		stream.close()
+		assert isCancelled
+	}
+}
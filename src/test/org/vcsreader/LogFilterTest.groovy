@@ -0,0 +1,62 @@
+package org.vcsreader
+
+import org.junit.Test
+import org.vcsreader.vcs.Change
+import org.vcsreader.vcs.Commit
+
+import java.time.Instant
+
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+import static org.vcsreader.VcsChange.noRevision
+
+class LogFilterTest {
+	@Test void "match paths on folder boundaries"() {
+		def filter = LogFilter.all.withIncludedPaths("src/main/", "./build.gradle").withExcludedPaths("src\\main\\generated")
+
+		assert filter.includedPaths() == ["src/main", "build.gradle"]
+		assert filter.excludedPaths() == ["src/main/generated"]
+		assert filter.matchesPath("src/main/Main.java")
+		assert filter.matchesPath("build.gradle")
+		assert !filter.matchesPath("src/main2/Main.java")
+		assert !filter.matchesPath("src/main/generated/Generated.java")
+		assert !filter.matchesPath(noFilePath)
+		assert LogFilter.all.withIncludedPaths(".").matchesPath("any/file.txt")
+	}
+
+	@Test void "keep only matching changes and commits"() {
+		def commit1 = commit("1", [
+				new Change(Modified, "src/Main.java", "1"),
+				new Change(Modified, "readme.txt", "1")
+		])
+		def commit2 = commit("2", [new Change(Added, "readme.txt", "2")])
+		def commit3 = commit("3", [new Change(Moved, "test/Main.java", "src/Main.java", "3", "2")])
+		def logResult = new LogResult([commit1, commit2, commit3])
+
+		def filteredResult = LogFilter.all.withIncludedPaths("src").apply(logResult)
+
+		assert filteredResult.commits().collect{ it.revision } == ["1", "3"]
+		assert filteredResult.commits()[0].changes.collect{ it.filePath } == ["src/Main.java"]
+		assert filteredResult.commits()[1].is(commit3)
+		assert LogFilter.all.apply(logResult).is(logResult)
+	}
+
+	@Test void "match any of authors and any of message keywords"() {
+		def filter = LogFilter.all.withAuthors("Alice", "Bob").withMessageKeywords("PROJ-", "")
+
+		assert filter.messageKeywords() == ["PROJ-"]
+		assert filter.matchesAuthorAndMessage(commit("1", "Bob Smith", "PROJ-123 fixed", []))
+		assert !filter.matchesAuthorAndMessage(commit("2", "Carol", "PROJ-123 fixed", []))
+		assert !filter.matchesAuthorAndMessage(commit("3", "Alice", "proj-123 fixed", []))
+		assert filter.apply(new LogResult([commit("1", "Alice", "PROJ-1", []), commit("2", "Alice", "", [])]))
+				.commits().collect{ it.revision } == ["1"]
+	}
+
+	private static Commit commit(String revision, List<Change> changes) {
+		commit(revision, "author", "message", changes)
+	}
+
+	private static Commit commit(String revision, String author, String message, List<Change> changes) {
+		new Commit(revision, noRevision, Instant.ofEpochSecond(0), author, message, changes)
+	}
+}
@@ -0,0 +1,32 @@
+package org.vcsreader
+
+import org.junit.Test
+import org.vcsreader.vcs.Commit
+import org.vcsreader.vcs.VcsError
+
+import java.time.Instant
+
+class LogResultTest {
+	@Test void "aggregate commits from several results ordered by time"() {
+		def result1 = new LogResult([commit("1a", 3), commit("1b", 2), commit("1c", 0)], [new VcsError("error1")])
+		def result2 = new LogResult([commit("2a", 1), commit("2b", 2), commit("2c", 4)])
+		def result3 = new LogResult([commit("3a", 2), commit("3b", 0), commit("3c", 5)], [new VcsError("error3")])
+
+		def logResult = LogResult.aggregate([result1, result2, result3])
+
+		assert logResult.commits().collect{ it.revision } == ["1c", "3b", "2a", "1b", "2b", "3a", "1a", "2c", "3c"]
+		assert logResult.exceptions() == [new VcsError("error1"), new VcsError("error3")]
+	}
+
+	@Test void "aggregation keeps order of commits with the same time"() {
+		def result1 = new LogResult([commit("1a", 1), commit("1b", 0), commit("1c", 0)])
+		def result2 = new LogResult([commit("2a", 0)])
+
+		assert result1.aggregateWith(result2).commits().collect{ it.revision } == ["1b", "1c", "2a", "1a"]
+		assert LogResult.aggregate([]).commits() == []
+	}
+
+	private static Commit commit(String revision, long seconds) {
+		new Commit(revision, "", Instant.ofEpochSecond(seconds), "", "", [])
+	}
+}
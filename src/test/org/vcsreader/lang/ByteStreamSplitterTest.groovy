@@ -0,0 +1,44 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class ByteStreamSplitterTest {
+	@Test void "splitting byte streams"() {
+		assert split("", "|") == []
+		assert split("|", "|") == []
+		assert split("||", "|") == []
+
+		assert split("a|", "|") == ["a"]
+		assert split("|a", "|") == ["a"]
+		assert split("a|b|", "|") == ["a", "b"]
+		assert split("|a|b", "|") == ["a", "b"]
+
+		assert split("a<>b<", "<>") == ["a", "b<"]
+		assert split("<><>a<<>>b", "<>") == ["a<", ">b"]
+	}
+
+	@Test void "splitting values longer than read buffer"() {
+		def value = "a" * 100
+		def splitter = new ByteStreamSplitter(new ByteArrayInputStream((value + "<>" + value).getBytes(UTF_8)), "<>".getBytes(UTF_8), 7)
+		assert toList(splitter) == [value, value]
+	}
+
+	@Test void "splitting bytes in memory"() {
+		def splitter = new ByteStreamSplitter("a|bb|".getBytes(UTF_8), "|".getBytes(UTF_8))
+		assert toList(splitter) == ["a", "bb"]
+	}
+
+	private static List<String> split(String s, String separator) {
+		toList(new ByteStreamSplitter(new ByteArrayInputStream(s.getBytes(UTF_8)), separator.getBytes(UTF_8)))
+	}
+
+	private static List<String> toList(ByteStreamSplitter splitter) {
+		def result = []
+		while (splitter.next()) {
+			result.add(splitter.valueAsString(UTF_8))
+		}
+		result
+	}
+}
@@ -0,0 +1,52 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import java.nio.charset.Charset
+
+import static java.nio.charset.StandardCharsets.UTF_8
+import static org.vcsreader.lang.CharsetDetector.detectCharset
+
+class CharsetDetectorTest {
+	private static final Charset windows1251 = Charset.forName("windows-1251")
+
+	@Test void "don't detect charset of ASCII text"() {
+		def bytes = ("ascii text " * 10).getBytes(UTF_8)
+		assert detectCharset(bytes, bytes.length, null) == null
+	}
+
+	@Test void "detect UTF-8 text without charset detector"() {
+		def bytes = "текст в UTF-8".getBytes(UTF_8)
+		assert detectCharset(bytes, bytes.length, windows1251) == UTF_8
+
+		// last character is cut in the middle of multi-byte sequence
+		assert detectCharset(bytes, bytes.length - 1, windows1251) == UTF_8
+	}
+
+	@Test void "use charset guess if text is not UTF-8"() {
+		def bytes = "текст в windows-1251".getBytes(windows1251)
+		def guess = Charset.forName("KOI8-R")
+
+		assert detectCharset(bytes, bytes.length, guess) == guess
+	}
+
+	@Test void "detect charset with charset detector if there is no guess"() {
+		def shiftJis = Charset.forName("Shift_JIS")
+		def bytes = ("日本語のテキストファイルです。文字コードを検出します。" * 10).getBytes(shiftJis)
+
+		assert detectCharset(bytes, bytes.length, null) == shiftJis
+	}
+
+	@Test void "detect binary content by zero bytes"() {
+		assert CharsetDetector.isBinary([0x50, 0x4B, 0x03, 0x04, 0x00] as byte[], 5)
+		assert !CharsetDetector.isBinary("text".getBytes(UTF_8), 4)
+		assert !CharsetDetector.isBinary("text".getBytes("UTF-16"), 10)
+	}
+
+	@Test void "reject malformed UTF-8"() {
+		assert !CharsetDetector.isUtf8([0xC0, 0x80] as byte[], 0, 2) // overlong encoding
+		assert !CharsetDetector.isUtf8([0xED, 0xA0, 0x80] as byte[], 0, 3) // surrogate
+		assert !CharsetDetector.isUtf8([0xE2, 0x28, 0xA1] as byte[], 0, 3)
+		assert CharsetDetector.isUtf8([0xF0, 0x9F, 0x98, 0x80] as byte[], 0, 4)
+	}
+}
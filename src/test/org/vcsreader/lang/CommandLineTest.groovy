@@ -20,6 +20,37 @@ class CommandLineTest {
 		assert commandLine.exitCode() == 0
 	}
 
+	@Test void "command with input"() {
+		def commandLine = new CommandLine("cat").input("some input").execute()
+		assert commandLine.stdout() == "some input"
+		assert commandLine.exitCode() == 0
+	}
+
+	@Test void "command with output read as it's decoded"() {
+		def commandLine = new CommandLine("cat").charsetAutoDetect(true).input("some input")
+		def reader = commandLine.startReader()
+		assert reader.text == "some input"
+		commandLine.waitFor()
+		assert commandLine.exitCode() == 0
+	}
+
+	@Test void "command with stderr redirected to file"() {
+		def commandLine = new CommandLine("ls", "non-existent-file").redirectStderrToFile(true).execute()
+		assert commandLine.stdout().empty
+		assert commandLine.stderr().contains("non-existent-file")
+		assert commandLine.exitCode() != 0
+	}
+
+	@Test void "command with binary output"() {
+		def commandLine = new CommandLine("cat").detectBinaryOutput(true).input("binary\u0000output").execute()
+		assert commandLine.stdout().empty
+		assert commandLine.binaryStdout() == "binary\u0000output".bytes
+
+		commandLine = new CommandLine("cat").detectBinaryOutput(true).input("text output").execute()
+		assert commandLine.stdout() == "text output"
+		assert commandLine.binaryStdout() == null
+	}
+
 	@Test void "failed command line execution"() {
 		def commandLine = new CommandLine("fake-commandLine")
 		try {
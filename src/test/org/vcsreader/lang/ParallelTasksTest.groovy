@@ -0,0 +1,47 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+
+class ParallelTasksTest {
+	@Test void "return results in the same order as tasks"() {
+		def tasks = (1..10).collect{ int i -> { -> Thread.sleep(10 - i); i } as Callable<Integer> }
+
+		def futures = ParallelTasks.invokeAll(tasks, 3)
+
+		assert futures.collect{ it.get() } == (1..10).toList()
+	}
+
+	@Test void "run at most parallelism tasks at once"() {
+		def running = new AtomicInteger()
+		def maxRunning = new AtomicInteger()
+		def tasks = (1..20).collect{
+			{ ->
+				maxRunning.accumulateAndGet(running.incrementAndGet(), { a, b -> Math.max(a, b) })
+				Thread.sleep(5)
+				running.decrementAndGet()
+			} as Callable<Integer>
+		}
+
+		ParallelTasks.invokeAll(tasks, 2)
+
+		assert maxRunning.get() <= 2
+	}
+
+	@Test void "failed task doesn't stop other tasks"() {
+		def tasks = [{ -> throw new IllegalStateException() } as Callable<Integer>, { -> 2 } as Callable<Integer>]
+
+		def futures = ParallelTasks.invokeAll(tasks, 1)
+
+		try {
+			futures[0].get()
+			assert false
+		} catch (ExecutionException e) {
+			assert e.cause instanceof IllegalStateException
+		}
+		assert futures[1].get() == 2
+	}
+}
@@ -0,0 +1,49 @@
+package org.vcsreader.lang
+
+import org.junit.Test
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class PipelinedParserTest {
+	private static final separator = "|".getBytes(UTF_8)
+
+	@Test void "parse batches concurrently and keep order of chunks"() {
+		def input = (1..1000).collect{ "|" + it }.join("")
+		def parser = new PipelinedParser<String>(separator, 4, 10, { byte[] batch ->
+			Thread.sleep(new Random().nextInt(3))
+			new String(batch, UTF_8).split("\\|").findAll{ !it.empty }
+		})
+
+		assert parser.parse(new ByteArrayInputStream(input.getBytes(UTF_8))) == (1..1000).collect{ it.toString() }
+	}
+
+	@Test void "parse at most parallelism batches at once"() {
+		def running = new AtomicInteger()
+		def maxRunning = new AtomicInteger()
+		def parser = new PipelinedParser<String>(separator, 2, 1, { byte[] batch ->
+			maxRunning.accumulateAndGet(running.incrementAndGet(), { a, b -> Math.max(a, b) })
+			Thread.sleep(2)
+			running.decrementAndGet()
+			[new String(batch, UTF_8)]
+		})
+
+		def input = (1..20).collect{ "|" + it }.join("")
+		assert parser.parse(new ByteArrayInputStream(input.getBytes(UTF_8))).size() == 20
+		assert maxRunning.get() <= 2
+	}
+
+	@Test void "rethrow parser exceptions"() {
+		def parser = new PipelinedParser<String>(separator, 2, 1, { byte[] batch ->
+			throw new IllegalStateException("failed to parse")
+		})
+
+		try {
+			parser.parse(new ByteArrayInputStream("|a|b".getBytes(UTF_8)))
+			assert false
+		} catch (IllegalStateException e) {
+			assert e.message == "failed to parse"
+		}
+	}
+}
@@ -2,6 +2,7 @@ package org.vcsreader.lang
 
 import org.junit.Test
 
+import static org.vcsreader.lang.StringUtil.sha1Hex
 import static org.vcsreader.lang.StringUtil.split
 import static org.vcsreader.lang.StringUtil.trim
 
@@ -33,4 +34,9 @@ class StringUtilTest {
 
 		assert trim("=-=-=a-=-=-", "-=") == "a"
 	}
+
+	@Test void "sha1 hex of string"() {
+		assert sha1Hex("") == "da39a3ee5e6b4b0d3255bfef95601890afd80709"
+		assert sha1Hex("abc") == "a9993e364706816aba3e25717850c26c9cd0d89d"
+	}
 }
@@ -0,0 +1,66 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+import org.vcsreader.VcsRoot
+
+import java.time.Instant
+
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+import static org.vcsreader.VcsChange.noRevision
+
+class CommitCompactorTest {
+	private static final revision = "b421d0ebd66701187c10c2b0c7f519dc435531ae"
+	private static final revisionBefore = "9f2b2c52c5dc2fa3e06cf7d8b1d6ecf3e8c9c70a"
+
+	@Test void "compact commit has the same values as original commit"() {
+		def commit = new Commit(revision, revisionBefore, Instant.ofEpochSecond(1400000000, 123), "Some Author", "message", [
+				new Change(Added, "file1.txt", revision),
+				new Change(Modified, "file2.txt", "file2.txt", revision, revisionBefore),
+				new Change(Deleted, noFilePath, "file3.txt", revision, revisionBefore),
+				new Change(Moved, "file4.txt", "file5.txt", revision, "0000000000000000000000000000000000000000")
+		])
+
+		def compactCommit = new CommitCompactor().compact(commit)
+
+		assert compactCommit instanceof CompactCommit
+		assert compactCommit.revision == revision
+		assert compactCommit.revisionBefore == revisionBefore
+		assert compactCommit.dateTime == commit.dateTime
+		assert compactCommit.author == commit.author
+		assert compactCommit.message == commit.message
+		assert compactCommit.toString() == commit.toString()
+		assert compactCommit.changes.collect{ it.toString() } == commit.changes.collect{ it.toString() }
+		assert compactCommit.changes[3] == commit.changes[3]
+	}
+
+	@Test void "commits converted by the same compactor share strings"() {
+		def compactor = new CommitCompactor()
+		def commit1 = compactor.compact(new Commit("1", noRevision, Instant.EPOCH, new String("Author"), "", [new Change(Added, new String("file.txt"), "1")]))
+		def commit2 = compactor.compact(new Commit("2", "1", Instant.EPOCH, new String("Author"), "", [new Change(Modified, new String("file.txt"), "file.txt", "2", "1")]))
+
+		assert commit1.author.is(commit2.author)
+		assert commit1.changes[0].filePath.is(commit2.changes[0].filePath)
+		assert commit2.changes[0].filePathBefore.is(commit2.changes[0].filePath)
+		assert commit2.revision == "2"
+		assert commit2.changes[0].revisionBefore == "1"
+	}
+
+	@Test void "changes use root reference of compact commit"() {
+		def vcsRoot = [logFileContent: { String filePath, String revision -> new org.vcsreader.LogFileContentResult(filePath + "@" + revision) }] as VcsRoot
+		def commit = new CommitCompactor().compact(new Commit("abcd", "ab", Instant.EPOCH, "", "", [new Change(Modified, "file.txt", "file.txt", "abcd", "ab")]))
+		commit.setVcsRoot(vcsRoot)
+
+		assert commit.changes[0].fileContent().value == "file.txt@abcd"
+		assert commit.changes[0].fileContentBefore().value == "file.txt@ab"
+	}
+
+	@Test void "pack hex revisions"() {
+		assert CompactCommit.packRevision(revision) instanceof byte[]
+		assert (CompactCommit.packRevision(revision) as byte[]).length == 20
+		assert CompactCommit.unpackRevision(CompactCommit.packRevision(revision)) == revision
+		assert CompactCommit.packRevision("123") == "123"
+		assert CompactCommit.packRevision("ABCD") == "ABCD"
+		assert CompactCommit.packRevision(noRevision) == noRevision
+	}
+}
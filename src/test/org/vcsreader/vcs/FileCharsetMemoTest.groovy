@@ -0,0 +1,21 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+
+import java.nio.charset.Charset
+
+import static java.nio.charset.StandardCharsets.UTF_8
+
+class FileCharsetMemoTest {
+	@Test void "remember charsets by file extension"() {
+		def memo = new FileCharsetMemo()
+		def windows1251 = Charset.forName("windows-1251")
+
+		memo.update("folder/file.txt", windows1251)
+		memo.update("folder.java/README", UTF_8)
+
+		assert memo.charsetOf("other-folder/other-file.TXT") == windows1251
+		assert memo.charsetOf("folder.txt/README") == null
+		assert memo.charsetOf("file.java") == null
+	}
+}
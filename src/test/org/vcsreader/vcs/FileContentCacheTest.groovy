@@ -0,0 +1,66 @@
+package org.vcsreader.vcs
+
+import org.junit.Test
+import org.vcsreader.LogFileContentResult
+
+import java.nio.file.Files
+
+class FileContentCacheTest {
+	@Test void "request file content from VCS only once"() {
+		def cache = new FileContentCache(1024)
+		def loadCount = 0
+		def loader = { loadCount++; new LogFileContentResult("content") }
+
+		assert cache.logFileContent("root", "file.txt", "1", loader).text() == "content"
+		assert cache.logFileContent("root", "file.txt", "1", loader).text() == "content"
+		assert cache.logFileContent("root", "file.txt", "2", loader).text() == "content"
+
+		assert loadCount == 2
+		assert cache.hitCount() == 1
+		assert cache.missCount() == 2
+	}
+
+	@Test void "don't cache failed results"() {
+		def cache = new FileContentCache(1024)
+		def loader = { new LogFileContentResult("error", 1) }
+
+		assert !cache.logFileContent("root", "file.txt", "1", loader).isSuccessful()
+		assert !cache.logFileContent("root", "file.txt", "1", loader).isSuccessful()
+		assert cache.missCount() == 2
+	}
+
+	@Test void "evict least recently used content"() {
+		def cache = new FileContentCache(700)
+		def loadCount = 0
+		def loader = { loadCount++; new LogFileContentResult("x" * 100) }
+
+		cache.logFileContent("root", "file1.txt", "1", loader)
+		cache.logFileContent("root", "file2.txt", "1", loader)
+		cache.logFileContent("root", "file1.txt", "1", loader)
+		cache.logFileContent("root", "file3.txt", "1", loader)
+		assert loadCount == 3
+		assert cache.sizeInBytes() <= 700
+
+		cache.logFileContent("root", "file1.txt", "1", loader)
+		assert loadCount == 3
+		cache.logFileContent("root", "file2.txt", "1", loader)
+		assert loadCount == 4
+	}
+
+	@Test void "read evicted content from spill folder"() {
+		def spillFolder = Files.createTempDirectory("file-content-cache").toFile()
+		spillFolder.deleteOnExit()
+		def cache = new FileContentCache(700, spillFolder)
+		def loadCount = 0
+		def loader = { loadCount++; new LogFileContentResult("x" * 100) }
+
+		cache.logFileContent("root", "file1.txt", "1", loader)
+		cache.logFileContent("root", "file2.txt", "1", loader)
+		cache.logFileContent("root", "file3.txt", "1", loader)
+		cache.logFileContent("root", "file1.txt", "1", loader)
+
+		assert loadCount == 3
+		assert cache.hitCount() == 1
+		assert spillFolder.deleteDir()
+	}
+}
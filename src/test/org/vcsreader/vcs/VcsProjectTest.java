@@ -12,12 +12,15 @@ import org.vcsreader.vcs.git.GitVcsRoot;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.vcsreader.lang.DateTimeUtil.timeRange;
 
@@ -86,6 +89,81 @@ public class VcsProjectTest {
 		project.log(timeRange("01/07/2014", "08/07/2014"));
 	}
 
+	@Test public void logProjectHistoryConcurrently() {
+		// given
+		VcsCommit commit1 = new Commit("1", "", Instant.ofEpochMilli(1000), "", "", new ArrayList<>());
+		VcsCommit commit2 = new Commit("2", "", Instant.ofEpochMilli(0), "", "", new ArrayList<>());
+		when(root1.log(anyTimeRange())).thenReturn(new LogResult(asList(commit1), asList(new VcsError("some error"))));
+		when(root2.log(anyTimeRange())).thenReturn(new LogResult(asList(commit2)));
+		VcsProject project = new VcsProject(asList(root1, root2), VcsProject.newExecutor(2));
+
+		// when
+		LogResult logResult = project.log(timeRange("01/07/2014", "08/07/2014"));
+
+		// then
+		assertThat(logResult.commits(), equalTo(asList(commit2, commit1)));
+		assertThat(logResult.exceptions(), equalTo(asList(
+				new VcsError("some error")
+		)));
+	}
+
+	@Test public void mergeResultsOfConcurrentProjectClone() {
+		// given
+		when(root1.cloneIt()).thenReturn(new CloneResult("error1"));
+		when(root2.cloneIt()).thenReturn(new CloneResult("error2"));
+		VcsProject project = new VcsProject(asList(root1, root2), VcsProject.newExecutor(2));
+
+		// when
+		CloneResult cloneResult = project.cloneIt();
+
+		// then
+		assertThat(cloneResult.exceptions(), equalTo(asList(
+				new VcsError("error1"),
+				new VcsError("error2")
+		)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void failedConcurrentLogProjectHistory() {
+		// given
+		when(root1.log(anyTimeRange())).thenThrow(new IllegalStateException());
+		when(root2.log(anyTimeRange())).thenThrow(new IllegalStateException());
+		VcsProject project = new VcsProject(asList(root1, root2), VcsProject.newExecutor(2));
+
+		// when / then
+		project.log(timeRange("01/07/2014", "08/07/2014"));
+	}
+
+	@Test public void cancelOtherRootsIfConcurrentLogFails() throws Exception {
+		// given
+		CountDownLatch root2Started = new CountDownLatch(1);
+		CountDownLatch root2Cancelled = new CountDownLatch(1);
+		when(root1.log(anyTimeRange())).thenAnswer(invocation -> {
+			root2Started.await();
+			throw new IllegalStateException();
+		});
+		when(root2.log(anyTimeRange())).thenAnswer(invocation -> {
+			root2Started.countDown();
+			root2Cancelled.await();
+			return new LogResult();
+		});
+		when(root2.cancelLastCommand()).thenAnswer(invocation -> {
+			root2Cancelled.countDown();
+			return true;
+		});
+		VcsProject project = new VcsProject(asList(root1, root2), VcsProject.newExecutor(2));
+
+		// when
+		try {
+			project.log(timeRange("01/07/2014", "08/07/2014"));
+			fail();
+		} catch (IllegalStateException ignored) {
+		}
+
+		// then
+		verify(root2).cancelLastCommand();
+	}
+
 	private static TimeRange anyTimeRange() {
 		return any(TimeRange.class);
 	}
@@ -62,6 +62,18 @@ class CommandLine_GitIntegrationTest {
 		assert commandLine.exitCode() == 0
 	}
 
+	@Test void "log renames for several revisions"() {
+		def repository = 'repo with moved and renamed file'()
+
+		def commandLine = gitLogRenames(pathToGit, repository.path, repository.revisions).execute()
+
+		assert commandLine.stderr() == ""
+		assert commandLine.stdout().contains(repository.revisions[0])
+		assert commandLine.stdout().contains(repository.revisions[1])
+		assert commandLine.stdout().contains("R100")
+		assert commandLine.exitCode() == 0
+	}
+
 	@Test void "clone repository"() {
 		def repository = someNonEmptyRepository()
 
@@ -0,0 +1,52 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.VcsCommit;
+import org.vcsreader.vcs.CommitCompactor;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.vcsreader.vcs.git.GitCommitParserBenchmark.generateGitLogOutput;
+
+/**
+ * Compares heap used by commits parsed from generated "git log" output
+ * as default commits and as compact commits (see {@link CommitCompactor}).
+ * Run with: {@code java -cp <classpath> org.vcsreader.vcs.git.CompactCommitMemoryBenchmark [commitsCount]}
+ */
+public class CompactCommitMemoryBenchmark {
+	public static void main(String[] args) {
+		int commitsCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		byte[] stdout = generateGitLogOutput(commitsCount).getBytes(UTF_8);
+		System.out.println("Commits: " + commitsCount + ", output size: " + stdout.length / 1024 + "KB");
+
+		measure("Commit", () -> GitCommitBytesParser.parseListOfCommits(new ByteArrayInputStream(stdout)));
+		measure("CompactCommit", () -> GitCommitBytesParser.parseListOfCommits(new ByteArrayInputStream(stdout), 1, new CommitCompactor()));
+	}
+
+	private static void measure(String name, Parser parser) {
+		long usedBefore = usedMemory();
+		List<VcsCommit> commits = parser.parse();
+		long usedAfter = usedMemory();
+		if (commits.isEmpty()) throw new IllegalStateException();
+
+		long changesCount = commits.stream().mapToLong(commit -> commit.getChanges().size()).sum();
+		long bytes = usedAfter - usedBefore;
+		System.out.println(name + ": " + bytes / 1024 / 1024 + "MB, " + bytes / changesCount + " bytes per change");
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		long result = Long.MAX_VALUE;
+		// several gc calls because System.gc() is only a hint
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			result = Math.min(result, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return result;
+	}
+
+	private interface Parser {
+		List<VcsCommit> parse();
+	}
+}
@@ -0,0 +1,69 @@
+package org.vcsreader.vcs.git
+
+import org.junit.Test
+import org.vcsreader.vcs.Change
+import org.vcsreader.vcs.Commit
+
+import static java.nio.charset.StandardCharsets.UTF_8
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+import static org.vcsreader.VcsChange.noRevision
+import static org.vcsreader.lang.DateTimeUtil.dateTime
+import static org.vcsreader.vcs.TestUtil.assertEqualCommits
+
+class GitCommitBytesParserTest {
+	private static final String commitStart = "\u0015\u0016\u0017\u0018\u0019"
+	private static final String fieldEnd = "\u0019\u0018\u0017\u0016\u0015"
+
+	private final String stdout =
+			commitStart + "aaa" + fieldEnd + "" + fieldEnd + "1407682800" + fieldEnd + "Some Author" + fieldEnd +
+					"initial commit\n\n" + fieldEnd + "\nA\tfile1.txt\nA\t\"file \\\"2\\\".txt\"\n\n" +
+			commitStart + "bbb" + fieldEnd + "aaa" + fieldEnd + "1407682860" + fieldEnd + "Автор" + fieldEnd +
+					"move and delete\n\nwith details\n\n" + fieldEnd + "\nR100\tfile1.txt\tfolder/file1.txt\nD\t\"file \\\"2\\\".txt\"\n\n" +
+			commitStart + "ccc" + fieldEnd + "bbb aaa" + fieldEnd + "1407682920" + fieldEnd + "Some Author" + fieldEnd +
+					"merge\n\n" + fieldEnd +
+			commitStart + "ddd" + fieldEnd + "bbb" + fieldEnd + "1407682980" + fieldEnd + "Some Author" + fieldEnd +
+					"empty commit\n\n" + fieldEnd
+
+	private final expectedCommits = [
+			new Commit("aaa", noRevision, dateTime("15:00:00 10/08/2014"), "Some Author", "initial commit", [
+					new Change(Added, "file1.txt", noFilePath, "aaa", noRevision),
+					new Change(Added, "file \"2\".txt", noFilePath, "aaa", noRevision),
+			]),
+			new Commit("bbb", "aaa", dateTime("15:01:00 10/08/2014"), "Автор", "move and delete\n\nwith details", [
+					new Change(Moved, "folder/file1.txt", "file1.txt", "bbb", "aaa"),
+					new Change(Deleted, noFilePath, "file \"2\".txt", "bbb", "aaa"),
+			]),
+			new Commit("ddd", "bbb", dateTime("15:03:00 10/08/2014"), "Some Author", "empty commit", [])
+	]
+
+	@Test void "parse commits from bytes in the same way as from string"() {
+		def commits = GitCommitBytesParser.parseListOfCommits(stdout.getBytes(UTF_8))
+
+		assertEqualCommits(commits, expectedCommits)
+		assertEqualCommits(commits, GitCommitParser.parseListOfCommits(stdout))
+	}
+
+	@Test void "parse commits from stream which is read in small chunks"() {
+		def bytes = stdout.getBytes(UTF_8)
+		def inputStream = new ByteArrayInputStream(bytes) {
+			@Override synchronized int read(byte[] b, int off, int len) {
+				super.read(b, off, Math.min(len, 3))
+			}
+		}
+
+		assertEqualCommits(GitCommitBytesParser.parseCommits(inputStream).toList(), expectedCommits)
+	}
+
+	@Test void "parse commits with several threads"() {
+		def bytes = (stdout * 2000).getBytes(UTF_8)
+
+		def commits = GitCommitBytesParser.parseListOfCommits(new ByteArrayInputStream(bytes), 4)
+
+		assertEqualCommits(commits, expectedCommits * 2000)
+	}
+
+	@Test void "parse empty output"() {
+		assert GitCommitBytesParser.parseListOfCommits(new byte[0]).empty
+	}
+}
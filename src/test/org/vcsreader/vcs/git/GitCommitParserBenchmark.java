@@ -0,0 +1,72 @@
+package org.vcsreader.vcs.git;
+
+import org.vcsreader.VcsCommit;
+
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares parsing of "git log" output from string (with {@link GitCommitParser})
+ * and from bytes (with {@link GitCommitBytesParser}) on generated output.
+ * Run with: {@code java -cp <classpath> org.vcsreader.vcs.git.GitCommitParserBenchmark [commitsCount]}
+ */
+public class GitCommitParserBenchmark {
+	private static final String commitStart = "\u0015\u0016\u0017\u0018\u0019";
+	private static final String fieldEnd = "\u0019\u0018\u0017\u0016\u0015";
+	private static final int warmUpIterations = 5;
+	private static final int iterations = 10;
+
+	public static void main(String[] args) {
+		int commitsCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		String stdout = generateGitLogOutput(commitsCount);
+		byte[] stdoutBytes = stdout.getBytes(UTF_8);
+		System.out.println("Commits: " + commitsCount + ", output size: " + stdoutBytes.length / 1024 + "KB");
+
+		// Bytes are decoded to string on each iteration because GitCommitParser needs whole output as string.
+		measure("GitCommitParser", () -> GitCommitParser.parseListOfCommits(new String(stdoutBytes, UTF_8)));
+		measure("GitCommitBytesParser", () -> GitCommitBytesParser.parseListOfCommits(stdoutBytes));
+	}
+
+	private static void measure(String name, Parser parser) {
+		for (int i = 0; i < warmUpIterations; i++) {
+			parser.parse();
+		}
+		long totalDuration = 0;
+		long minDuration = Long.MAX_VALUE;
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			List<VcsCommit> commits = parser.parse();
+			long duration = System.nanoTime() - start;
+			if (commits.isEmpty()) throw new IllegalStateException();
+			totalDuration += duration;
+			minDuration = Math.min(minDuration, duration);
+		}
+		System.out.println(name + ": average " + totalDuration / iterations / 1_000_000 + "ms, min " + minDuration / 1_000_000 + "ms");
+	}
+
+	static String generateGitLogOutput(int commitsCount) {
+		StringBuilder result = new StringBuilder();
+		String previousRevision = "";
+		for (int i = 0; i < commitsCount; i++) {
+			String revision = String.format("%040x", i);
+			result.append(commitStart)
+					.append(revision).append(fieldEnd)
+					.append(previousRevision).append(fieldEnd)
+					.append(1400000000L + i * 60).append(fieldEnd)
+					.append("Author ").append(i % 100).append(fieldEnd)
+					.append("Commit message ").append(i).append("\n\nMore details about commit ").append(i).append("\n\n").append(fieldEnd)
+					.append("\n");
+			for (int j = 0; j < 5; j++) {
+				result.append(j == 0 ? "A" : "M").append("\tsrc/main/org/project/package").append(j).append("/File").append(i % 1000).append(".java\n");
+			}
+			result.append("\n");
+			previousRevision = revision;
+		}
+		return result.toString();
+	}
+
+	private interface Parser {
+		List<VcsCommit> parse();
+	}
+}
@@ -1,13 +1,22 @@
 package org.vcsreader.vcs.git
 
 import org.junit.Test
+import org.vcsreader.LogFilter
 import org.vcsreader.VcsChange
+import org.vcsreader.VcsChange.FileContent
 import org.vcsreader.VcsProject
 import org.vcsreader.lang.TimeRange
 import org.vcsreader.vcs.Change
 import org.vcsreader.vcs.Commit
+import org.vcsreader.vcs.CommitCache
+import org.vcsreader.vcs.CompactCommit
+import org.vcsreader.vcs.FileCharsetMemo
+import org.vcsreader.vcs.VcsCommand
 import org.vcsreader.vcs.VcsError
 
+import java.nio.charset.Charset
+
+import static java.nio.charset.StandardCharsets.UTF_8
 import static org.hamcrest.CoreMatchers.equalTo
 import static org.junit.Assert.assertThat
 import static org.vcsreader.VcsChange.Type.*
@@ -15,6 +24,7 @@ import static org.vcsreader.VcsChange.noRevision
 import static org.vcsreader.lang.DateTimeUtil.date
 import static org.vcsreader.lang.DateTimeUtil.dateTime
 import static org.vcsreader.lang.DateTimeUtil.timeRange
+import static org.vcsreader.lang.Pair.pair
 import static org.vcsreader.vcs.TestUtil.assertCommitsIn
 import static org.vcsreader.vcs.TestUtil.printingListener
 import static org.vcsreader.vcs.git.GitIntegrationTestConfig.*
@@ -157,6 +167,143 @@ class GitIntegrationTest {
 		}
 	}
 
+	@Test void "log commits as stream"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+
+		assertCommitsIn(logStream.toLogResult(), project.log(TimeRange.all).commits().reverse())
+		assert !logStream.hasNext()
+	}
+
+	@Test void "log stream command is the last command until stream is finished"() {
+		def repository = 'repo with two commits with three added files'()
+		def events = []
+		def listener = [beforeCommand: { events << "before " + it.class.simpleName }, afterCommand: { events << "after " + it.class.simpleName }] as VcsCommand.Listener
+		def project = new VcsProject(new GitVcsRoot(repository.path, repository.path, gitSettings)).addListener(listener)
+
+		def logStream = project.logStream(TimeRange.all)
+		assert logStream.hasNext()
+		assert events == ["before GitLogStream"]
+		assert project.cancelLastCommand()
+		logStream.close()
+		assert events == ["before GitLogStream", "after GitLogStream"]
+
+		def contentStream = project.vcsRoots().first().logFileContentStream("file1.txt", repository.revisions[0])
+		assert events.last() == "before LogFileContentStream"
+		contentStream.close()
+		assert events.last() == "after LogFileContentStream"
+	}
+
+	@Test void "log commits with several git commands for parts of time range"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def logResult = new GitParallelLog(pathToGit, repository.path, TimeRange.all, 2, 1).execute()
+
+		assert logResult.isSuccessful()
+		assert logResult.commits() == new GitLog(pathToGit, repository.path, TimeRange.all).execute().commits()
+	}
+
+	@Test void "log compact commits"() {
+		def repository = 'repo with two added and modified files'()
+
+		def vcsRoot = new GitVcsRoot(repository.path, repository.path, gitSettings.withCompactCommits(true))
+		def logResult = new VcsProject(vcsRoot).log(TimeRange.all)
+
+		assert logResult.commits().every{ it instanceof CompactCommit }
+		assert logResult.commits().toString() == newProject(repository).log(TimeRange.all).commits().toString()
+		assert logResult.commits().last().changes.first().fileContent().value == "file1 new content"
+		assert logResult.commits().last().changes.first().fileContentBefore().value == "file1 content"
+	}
+
+	@Test void "log commits with path filter"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+
+		def logResult = project.log(TimeRange.all, LogFilter.all.withIncludedPaths("file2.txt", "file3.txt").withExcludedPaths("file3.txt"))
+		assert logResult.isSuccessful()
+		assert logResult.commits().size() == 1
+		assert logResult.commits().first().changes.collect{ it.filePath } == ["file2.txt"]
+		assert GitLog.pathArguments(LogFilter.all.withExcludedPaths("file1.txt")) == ["--", ".", ":(exclude)file1.txt"]
+
+		logResult = project.log(TimeRange.all, LogFilter.all.withExcludedPaths("file1.txt"))
+		assert logResult.commits().collect{ it.message } == ["added file2, file3"]
+	}
+
+	@Test void "log commits with author and message filter"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+
+		def logResult = project.log(TimeRange.all, LogFilter.all.withAuthors("Other", author).withMessageKeywords("file2"))
+		assert logResult.isSuccessful()
+		assert logResult.commits().collect{ it.message } == ["added file2, file3"]
+
+		// git also matches author email but result is the same as for other VCS
+		assert project.log(TimeRange.all, LogFilter.all.withAuthors("some.author")).commits().empty
+		assert project.log(TimeRange.all, LogFilter.all.withMessageKeywords("[")).commits().empty
+	}
+
+	@Test void "log commits in revision range"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+		def vcsRoot = project.vcsRoots().first()
+
+		assert project.log(vcsRoot, null, repository.revisions[1]).commits().size() == 2
+		assert project.log(vcsRoot, repository.revisions[1], "HEAD").commits().empty
+
+		def logResult = project.log(vcsRoot, repository.revisions[0], repository.revisions[1])
+		assert logResult.isSuccessful()
+		assert logResult.commits().collect{ it.revision } == [repository.revisions[1]]
+		assert logResult.commits().first().changes.collect{ it.filePath } == ["file2.txt", "file3.txt"]
+		assert logResult.commits().first().changes.first().fileContent().value == ""
+
+		// root passed by caller is not the instance observed by project listeners
+		def gitRoot = new GitVcsRoot(repository.path, repository.path, gitSettings)
+		def commands = []
+		def listener = [beforeCommand: { commands << it }, afterCommand: {}] as VcsCommand.Listener
+		def observedProject = new VcsProject(gitRoot).addListener(listener)
+		assert observedProject.log(gitRoot, repository.revisions[0], "HEAD").commits().size() == 1
+		assert commands.any{ it instanceof GitLog }
+	}
+
+	@Test void "log commits using commit cache"() {
+		def repository = 'repo with two commits with three added files'()
+		def cacheFolder = newReferenceRepoPath()
+		def projectPath = newProjectPath()
+		def newCachedProject = {
+			def settings = gitSettings.withCommitCache(new CommitCache(new File(cacheFolder)))
+			new VcsProject(new GitVcsRoot(projectPath, repository.path, settings))
+		}
+		def project = newCachedProject()
+		project.cloneIt()
+		assert project.log(TimeRange.all).commits().size() == 2
+
+		repository.create("file4.txt")
+		repository.commit("added file4", "Aug 12 10:00:00 2014 +0000")
+		project.update()
+
+		def logResult = project.log(timeRange("11/08/2014", "13/08/2014"))
+		assert logResult.isSuccessful()
+		assert logResult.commits()*.message == ["added file2, file3", "added file4"]
+		assert newCachedProject().log(TimeRange.all).commits() == newProject(repository).log(TimeRange.all).commits()
+	}
+
+	@Test void "cache commits if git writes warnings to stderr but succeeds"() {
+		def repository = 'repo with two commits with three added files'()
+		def gitWithWarnings = new File(newReferenceRepoPath(), "git")
+		gitWithWarnings.text = "#!/bin/sh\n\"$pathToGit\" \"\$@\"\nexitCode=\$?\necho 'warning: some warning' >&2\nexit \$exitCode\n"
+		gitWithWarnings.setExecutable(true)
+		def cacheFolder = newReferenceRepoPath()
+		def settings = gitSettings.withGitPath(gitWithWarnings.absolutePath).withCommitCache(new CommitCache(new File(cacheFolder)))
+		def project = new VcsProject(new GitVcsRoot(repository.path, repository.path, settings))
+
+		def logResult = project.log(TimeRange.all)
+		assert !logResult.isSuccessful()
+		assert logResult.commits().size() == 2
+		assert new File(cacheFolder).list().length == 1
+	}
+
 	@Test void "log commit with modified files"() {
 		def repository = 'repo with two added and modified files'()
 		def revisions = repository.revisions
@@ -400,6 +547,20 @@ class GitIntegrationTest {
 		assert change.fileContentBefore().value == "file1 content"
 	}
 
+	@Test void "log content of all files in commit"() {
+		def repository = 'repo with two added and modified files'()
+
+		def project = newProject(repository)
+		def commit = project.log(timeRange("12/08/2014", "13/08/2014")).commits().first()
+		def vcsRoot = project.vcsRoots().first()
+
+		assert vcsRoot.logFileContents(commit) == [
+			pair(new FileContent("file1 content"), new FileContent("file1 new content")),
+			pair(new FileContent("file2 content"), new FileContent("file2 new content"))
+		]
+		assert vcsRoot.logFileContents([pair("file1.txt", commit.revision), pair("non-existent.txt", commit.revision)])*.successful == [true, false]
+	}
+
 	@Test void "log content of new file"() {
 		def repository = 'repo with two added and modified files'()
 
@@ -424,6 +585,86 @@ class GitIntegrationTest {
 		assert change.fileContentBefore().value == "file content"
 	}
 
+	@Test void "log content of files using git cat-file process"() {
+		def repository = 'repo with two added and modified files'()
+		def vcsRoot = new GitVcsRoot(newProjectPath(), repository.path, gitSettings.withCatFileBatch(true))
+		def project = new VcsProject(vcsRoot)
+		project.cloneIt()
+
+		def change = project.log(timeRange("12/08/2014", "13/08/2014")).commits().first().changes.first()
+		assert change.fileContent().value == "file1 new content"
+		assert change.fileContentBefore().value == "file1 content"
+		assert !vcsRoot.logFileContent("non-existent-file.txt", change.revision).isSuccessful()
+		assert vcsRoot.logFileContent(change.filePath, change.revision).text() == "file1 new content"
+
+		vcsRoot.close()
+		assert vcsRoot.logFileContent(change.filePath, change.revisionBefore).text() == "file1 content"
+		vcsRoot.close()
+	}
+
+	@Test void "remember detected charset of file content for files with the same extension"() {
+		def shiftJis = Charset.forName("Shift_JIS")
+		def longText = "日本語のテキストファイルです。文字コードを検出します。" * 10
+		def repository = new GitRepository().init().with {
+			new File(path, "long.txt").bytes = longText.getBytes(shiftJis)
+			new File(path, "short.txt").bytes = "テスト".getBytes(shiftJis)
+			commit("added Shift_JIS files", "Aug 19 16:00:00 2014 +0000")
+			it
+		}
+		def charsetMemo = new FileCharsetMemo()
+		def logFileContent = { String filePath ->
+			new GitLogFileContent(pathToGit, repository.path, filePath, repository.revisions[0], UTF_8, charsetMemo).execute()
+		}
+
+		assert charsetMemo.charsetOf("short.txt") == null
+		assert logFileContent("long.txt").text() == longText
+		assert charsetMemo.charsetOf("short.txt") == shiftJis
+		assert logFileContent("short.txt").text() == "テスト"
+	}
+
+	@Test void "log content of file as stream"() {
+		def repository = 'repo with two added and modified files'()
+		def vcsRoot = new GitVcsRoot(newProjectPath(), repository.path, gitSettings)
+		def project = new VcsProject(vcsRoot)
+		project.cloneIt()
+		def change = project.log(timeRange("12/08/2014", "13/08/2014")).commits().first().changes.first()
+
+		def stream = vcsRoot.logFileContentStream(change.filePath, change.revision)
+		assert !stream.binary
+		assert stream.reader().text == "file1 new content"
+		assert stream.successful
+
+		stream = vcsRoot.logFileContentStream(change.filePath, change.revisionBefore)
+		assert stream.inputStream().bytes == "file1 content".bytes
+		assert stream.successful
+
+		stream = vcsRoot.logFileContentStream("non-existent-file.txt", change.revision)
+		stream.withCloseable { assert it.inputStream().bytes.length == 0 }
+		assert !stream.successful
+
+		stream = vcsRoot.logFileContentStream("non-existent-file.txt", change.revision)
+		assert !stream.binary
+		stream.close()
+		assert !stream.successful
+	}
+
+	@Test void "log content of binary file without decoding it"() {
+		def repository = new GitRepository().init()
+		repository.create("image.png", "\u0089PNG\r\n\u001a\n\u0000\u0000")
+		repository.commit("added image", "Aug 10 00:00:00 2014 +0000")
+		def content = new File(repository.path, "image.png").bytes
+
+		[gitSettings, gitSettings.withCatFileBatch(true)].each { settings ->
+			def vcsRoot = new GitVcsRoot(repository.path, repository.path, settings)
+			def change = new VcsProject(vcsRoot).log(TimeRange.all).commits().first().changes.first()
+
+			assert change.fileContent().isBinary()
+			assert change.fileContent().bytes == content
+			assert change.fileContent().value == ""
+			vcsRoot.close()
+		}
+	}
+
 	@Test void "clone project can cancel"() {
 		def repository = new GitRepository().init()
 		def project = new VcsProject(new GitVcsRoot(newProjectPath(), repository.path, gitSettings))
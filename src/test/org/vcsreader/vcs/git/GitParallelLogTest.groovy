@@ -0,0 +1,43 @@
+package org.vcsreader.vcs.git
+
+import org.junit.Test
+import org.vcsreader.lang.TimeRange
+
+import java.time.Instant
+
+import static org.vcsreader.vcs.git.GitParallelLog.parseCommitTimes
+import static org.vcsreader.vcs.git.GitParallelLog.slice
+
+class GitParallelLogTest {
+	@Test void "split time range into slices with the same number of commits"() {
+		long[] commitTimes = [60, 50, 40, 30, 20, 10]
+
+		assert slice(TimeRange.all, commitTimes, 3, 1) == [
+			new TimeRange(Instant.MIN, Instant.ofEpochSecond(30)),
+			new TimeRange(Instant.ofEpochSecond(30), Instant.ofEpochSecond(50)),
+			new TimeRange(Instant.ofEpochSecond(50), Instant.MAX)
+		]
+	}
+
+	@Test void "don't split time range with too few commits"() {
+		long[] commitTimes = [30, 20, 10]
+
+		assert slice(TimeRange.all, commitTimes, 3, 2) == [TimeRange.all]
+		assert slice(TimeRange.all, new long[0], 3, 1) == [TimeRange.all]
+	}
+
+	@Test void "merge slices with commits at the same time"() {
+		long[] commitTimes = [10, 10, 10, 10, 20, 30]
+		def timeRange = TimeRange.between(Instant.ofEpochSecond(10), Instant.ofEpochSecond(31))
+
+		assert slice(timeRange, commitTimes, 3, 1) == [
+			new TimeRange(Instant.ofEpochSecond(10), Instant.ofEpochSecond(20)),
+			new TimeRange(Instant.ofEpochSecond(20), Instant.ofEpochSecond(31))
+		]
+	}
+
+	@Test void "parse commit times"() {
+		assert parseCommitTimes("1407675296\n1407786957\n") == [1407675296, 1407786957] as long[]
+		assert parseCommitTimes("") == new long[0]
+	}
+}
@@ -0,0 +1,42 @@
+package org.vcsreader.vcs.hg
+
+import org.junit.Test
+import org.vcsreader.vcs.Change
+import org.vcsreader.vcs.Commit
+
+import static java.nio.charset.StandardCharsets.UTF_8
+import static org.vcsreader.VcsChange.Type.*
+import static org.vcsreader.VcsChange.noFilePath
+import static org.vcsreader.VcsChange.noRevision
+import static org.vcsreader.lang.DateTimeUtil.dateTime
+import static org.vcsreader.vcs.TestUtil.assertEqualCommits
+
+class HgCommitParserTest {
+	private static final String commitStart = "\u0015\u0016\u0017\u0018\u0019"
+	private static final String fieldEnd = "\u0019\u0018\u0017\u0016\u0015"
+	private static final String fileSeparator = "\u0017\u0016\u0015\u0019\u0018"
+	private static final String hgNoRevision = "0" * 40
+
+	@Test void "parse commits with added, deleted, moved and modified files"() {
+		def stdout =
+				commitStart + "aaa" + fieldEnd + hgNoRevision + fieldEnd + "2014-08-10 15:00:00 +0000" + fieldEnd + "Some Author" + fieldEnd +
+						"initial commit" + fieldEnd + "file1.txt" + fileSeparator + "file2.txt" + fieldEnd + fieldEnd + fieldEnd + fieldEnd +
+				commitStart + "bbb" + fieldEnd + "aaa" + fieldEnd + "2014-08-10 16:00:00 +0000" + fieldEnd + "Автор" + fieldEnd +
+						"moved file" + fieldEnd + "folder/file1.txt" + fieldEnd + "file1.txt" + fileSeparator + "file3.txt" + fieldEnd +
+						"folder/file1.txt (file1.txt)" + fieldEnd + "file2.txt" + fieldEnd
+
+		def commits = HgCommitParser.parseListOfCommits(new ByteArrayInputStream(stdout.getBytes(UTF_8)))
+
+		assertEqualCommits(commits, [
+				new Commit("aaa", noRevision, dateTime("15:00:00 10/08/2014"), "Some Author", "initial commit", [
+						new Change(Added, "file1.txt", "aaa"),
+						new Change(Added, "file2.txt", "aaa"),
+				]),
+				new Commit("bbb", "aaa", dateTime("16:00:00 10/08/2014"), "Автор", "moved file", [
+						new Change(Deleted, noFilePath, "file3.txt", "bbb", "aaa"),
+						new Change(Moved, "folder/file1.txt", "file1.txt", "bbb", "aaa"),
+						new Change(Modified, "file2.txt", "file2.txt", "bbb", "aaa"),
+				])
+		])
+	}
+}
@@ -2,6 +2,7 @@ package org.vcsreader.vcs.hg
 
 import org.junit.Test
 import org.vcsreader.VcsChange
+import org.vcsreader.VcsChange.FileContent
 import org.vcsreader.VcsProject
 import org.vcsreader.lang.TimeRange
 import org.vcsreader.vcs.Change
@@ -13,6 +14,7 @@ import static org.junit.Assert.assertThat
 import static org.vcsreader.VcsChange.Type.*
 import static org.vcsreader.VcsChange.noRevision
 import static org.vcsreader.lang.DateTimeUtil.*
+import static org.vcsreader.lang.Pair.pair
 import static org.vcsreader.vcs.TestUtil.assertCommitsIn
 import static org.vcsreader.vcs.TestUtil.printingListener
 import static org.vcsreader.vcs.git.GitIntegrationTestConfig.author
@@ -157,6 +159,31 @@ class HgIntegrationTest {
 		}
 	}
 
+	@Test void "log commits as stream"() {
+		def repository = 'repo with two commits with three added files'()
+
+		def project = newProject(repository)
+		def logStream = project.logStream(TimeRange.all)
+
+		assertCommitsIn(logStream.toLogResult(), project.log(TimeRange.all).commits())
+		assert !logStream.hasNext()
+	}
+
+	@Test void "log commits in revision range"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+		def vcsRoot = project.vcsRoots().first()
+
+		assert project.log(vcsRoot, null, "tip").commits().size() == 2
+		assert project.log(vcsRoot, repository.revisions[1], "tip").commits().empty
+		// local revision number of "from" is greater than of "to"
+		assert project.log(vcsRoot, repository.revisions[1], repository.revisions[0]).commits().empty
+
+		def logResult = project.log(vcsRoot, repository.revisions[0], repository.revisions[1])
+		assert logResult.isSuccessful()
+		assert logResult.commits().collect{ it.revision } == [repository.revisions[1]]
+	}
+
 	@Test void "log modification commit"() {
 		def repository = 'repo with two added and modified files'()
 		def revisions = repository.revisions
@@ -280,6 +307,20 @@ class HgIntegrationTest {
 		assert change.fileContentBefore().value == "file1 content"
 	}
 
+	@Test void "log content of all files in commit"() {
+		def repository = 'repo with two added and modified files'()
+
+		def project = newProject(repository)
+		def commit = project.log(timeRange("12/08/2014", "13/08/2014")).commits().first()
+		def vcsRoot = project.vcsRoots().first()
+
+		assert vcsRoot.logFileContents(commit) == [
+			pair(new FileContent("file1 content"), new FileContent("file1 new content")),
+			pair(new FileContent("file2 content"), new FileContent("file2 new content"))
+		]
+		assert vcsRoot.logFileContents([pair("file1.txt", commit.revision), pair("non-existent.txt", commit.revision)])*.successful == [true, false]
+	}
+
 	@Test void "log content of new file"() {
 		def repository = 'repo with two added and modified files'()
 
@@ -38,6 +38,30 @@ class SvnCommitParserTest {
 		])
 	}
 
+	@Test void "parse commit without author and message"() {
+		def xml = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <log>
+                <logentry revision="1">
+                <date>2014-08-10T15:00:00.000000Z</date>
+                <paths>
+                        <path prop-mods="false" text-mods="true" kind="file" action="A">/file1.txt</path>
+                </paths>
+                </logentry>
+            </log>
+        """.trim()
+
+		assertEqualCommits(SvnCommitParser.parseCommits(xml), [
+				new Commit(
+						"1", noRevision,
+						dateTime("15:00:00 10/08/2014"),
+						"",
+						"",
+						[new Change(Added, "file1.txt", "1")]
+				)
+		])
+	}
+
 	@Test void "ignore commits with kind equal to 'folder'"() {
 		def xml = """
             <?xml version="1.0" encoding="UTF-8"?>
@@ -148,4 +172,26 @@ class SvnCommitParserTest {
 				)
 		])
 	}
+
+	@Test void "parse commits from stream with escaped characters in message"() {
+		def xml = """<?xml version="1.0" encoding="UTF-8"?>
+			<log>
+			<logentry revision="1">
+				<author>Some Author</author>
+				<date>2014-08-10T15:00:00.000000Z</date>
+				<paths><path kind="file" action="A">/file1.txt</path></paths>
+				<msg>${"&lt;long &amp; escaped&gt; message " * 1000}</msg>
+			</logentry>
+			</log>
+		"""
+
+		def commits = SvnCommitParser.parseCommits(new ByteArrayInputStream(xml.getBytes("UTF-8"))).toList()
+		assert commits.size() == 1
+		assert commits[0].message == "<long & escaped> message " * 1000
+		assert commits[0].changes == [new Change(Added, "file1.txt", "1")]
+	}
+
+	@Test void "parse empty stream as no commits"() {
+		assert !SvnCommitParser.parseCommits(new ByteArrayInputStream(new byte[0])).hasNext()
+	}
 }
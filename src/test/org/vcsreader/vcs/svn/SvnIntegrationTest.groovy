@@ -65,6 +65,24 @@ class SvnIntegrationTest {
 		])
 	}
 
+	@Test void "log commits in revision range"() {
+		def repository = 'repo with two commits with three added files'()
+		def project = newProject(repository)
+		def vcsRoot = project.vcsRoots().first()
+
+		assert project.log(vcsRoot, null, "HEAD").commits().size() == 2
+		assert project.log(vcsRoot, "2", "2").commits().empty
+		assert project.log(vcsRoot, "2", "1").commits().empty
+
+		def logResult = project.log(vcsRoot, "1", "2")
+		assert logResult.isSuccessful()
+		assert logResult.commits().collect{ it.revision } == ["2"]
+
+		logResult = project.log(vcsRoot, "HEAD", "2")
+		assert !logResult.isSuccessful()
+		assert logResult.commits().empty
+	}
+
 	@Test(expected = IllegalStateException)
 	void "commit time before 1970 is not supported"() {
 		def svnRepository = new SvnRepository().init()
@@ -133,6 +151,23 @@ class SvnIntegrationTest {
 		}
 	}
 
+	@Test void "log commits with revision pages requested concurrently"() {
+		def repository = 'repo with two commits with three added files'()
+		def settings = svnSettings.withLogPageSize(1).withLogParallelism(2)
+		def project = new VcsProject(new SvnVcsRoot("file://" + repository.repoPath, settings))
+
+		project.log(TimeRange.all).commits().with {
+			assertThat(it[0].message, equalTo("initial commit"))
+			assertThat(it[1].message, equalTo("added file2, file3"))
+			assertThat(it.size(), equalTo(2))
+		}
+
+		project.log(TimeRange.after(date("11/08/2014"))).commits().with {
+			assertThat(it[0].message, equalTo("added file2, file3"))
+			assertThat(it.size(), equalTo(1))
+		}
+	}
+
 	@Test void "log commit with modified files"() {
 		def repository = 'repo with two added and modified files'()
 		def revisions = repository.revisions
@@ -0,0 +1,41 @@
+package org.vcsreader.vcs.svn
+
+import org.junit.Test
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+class SvnRepoInfoCacheTest {
+	private Instant now = Instant.parse("2014-08-10T15:00:00Z")
+	private final cache = new SvnRepoInfoCache(Duration.ofSeconds(10), [instant: { now }] as Clock)
+
+	@Test void "keep repository info per svn path and url"() {
+		cache.update("svn", "file:///repo/folder", new SvnInfo.Result("file:///repo", "123", "some-uuid"))
+
+		assert cache.repoRoot("svn", "file:///repo/folder") == "file:///repo"
+		assert cache.repoUuid("svn", "file:///repo/folder") == "some-uuid"
+		assert cache.repoRoot("svn", "file:///repo") == null
+		assert cache.repoRoot("/usr/bin/svn", "file:///repo/folder") == null
+	}
+
+	@Test void "reuse head revision only within TTL"() {
+		cache.update("svn", "file:///repo", new SvnInfo.Result("file:///repo", "123"))
+		assert cache.headRevision("svn", "file:///repo") == "123"
+
+		now = now.plusSeconds(10)
+		assert cache.headRevision("svn", "file:///repo") == null
+
+		cache.updateHeadRevision("svn", "file:///repo", "124")
+		assert cache.headRevision("svn", "file:///repo") == "124"
+	}
+
+	@Test void "keep date range quoting when repository info is updated"() {
+		cache.update("svn", "file:///repo", new SvnInfo.Result("file:///repo"))
+		assert !cache.quoteDateRange("svn", "file:///repo")
+
+		cache.updateQuoteDateRange("svn", "file:///repo", true)
+		cache.update("svn", "file:///repo", new SvnInfo.Result("file:///repo", "123"))
+		assert cache.quoteDateRange("svn", "file:///repo")
+	}
+}